@@ -0,0 +1,171 @@
+package com.hjusic.auth.domain.oidc.infrastructure;
+
+import com.hjusic.auth.domain.role.infrastructure.RoleDatabaseEntity;
+import com.hjusic.auth.domain.role.model.RoleName;
+import com.hjusic.auth.domain.user.infrastructure.UserDatabaseEntity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.security.Principal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.OidcScopes;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationCode;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.security.oauth2.server.authorization.client.InMemoryRegisteredClientRepository;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+
+/**
+ * Cost of mapping an authorization to and from its row, for a completed authorization code flow
+ * with refresh and ID token. The database is not involved; the client lookup is in memory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AuthorizationMappingBenchmark {
+
+  private static final String ISSUER = "http://localhost:8081";
+
+  @Param({"cbor", "json"})
+  public String codec;
+
+  private JpaOAuth2AuthorizationService service;
+  private OAuth2Authorization authorization;
+  private OAuth2AuthorizationEntity entity;
+  private String accessTokenValue;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    var registeredClient = RegisteredClient.withId(UUID.randomUUID().toString())
+        .clientId("benchmark-client")
+        .clientSecret("{noop}secret")
+        .clientAuthenticationMethod(ClientAuthenticationMethod.CLIENT_SECRET_BASIC)
+        .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+        .authorizationGrantType(AuthorizationGrantType.REFRESH_TOKEN)
+        .redirectUri("http://localhost:3000/callback")
+        .scope(OidcScopes.OPENID)
+        .scope(OidcScopes.PROFILE)
+        .scope(OidcScopes.EMAIL)
+        .build();
+
+    var jacksonConfig = new OAuth2JacksonConfig();
+    var attributeCodec = jacksonConfig.authorizationAttributeCodec(
+        jacksonConfig.oauth2ObjectMapper(), jacksonConfig.oauth2CborMapper(), codec);
+    service = new JpaOAuth2AuthorizationService(null, null,
+        new InMemoryRegisteredClientRepository(registeredClient), attributeCodec, false,
+        new SimpleMeterRegistry());
+
+    authorization = authorization(registeredClient);
+    accessTokenValue = authorization.getAccessToken().getToken().getTokenValue();
+    entity = service.toEntity(authorization);
+  }
+
+  @Benchmark
+  public OAuth2AuthorizationEntity toEntity() {
+    return service.toEntity(authorization);
+  }
+
+  @Benchmark
+  public OAuth2Authorization toAuthorizationFully() {
+    return service.toAuthorization(entity, null,
+        EnumSet.allOf(JpaOAuth2AuthorizationService.Part.class));
+  }
+
+  @Benchmark
+  public OAuth2Authorization toAuthorizationForAccessToken() {
+    return service.toAuthorization(entity, accessTokenValue,
+        JpaOAuth2AuthorizationService.partsReadFor(OAuth2TokenType.ACCESS_TOKEN));
+  }
+
+  private static OAuth2Authorization authorization(RegisteredClient registeredClient) {
+    var now = Instant.now();
+    var scopes = Set.of(OidcScopes.OPENID, OidcScopes.PROFILE, OidcScopes.EMAIL);
+
+    var role = new RoleDatabaseEntity(RoleName.ROLE_GUEST, "Guest");
+    var user = UserDatabaseEntity.builder()
+        .id(1L)
+        .username("benchmark")
+        .email("benchmark@example.com")
+        .password("{argon2}hash")
+        .roles(Set.of(role))
+        .build();
+    var principal = UsernamePasswordAuthenticationToken.authenticated(
+        user, null, user.getAuthorities());
+    principal.setDetails(new WebAuthenticationDetails("127.0.0.1", UUID.randomUUID().toString()));
+
+    var authorizationRequest = OAuth2AuthorizationRequest.authorizationCode()
+        .authorizationUri(ISSUER + "/oauth2/authorize")
+        .clientId(registeredClient.getClientId())
+        .redirectUri("http://localhost:3000/callback")
+        .scopes(scopes)
+        .state(UUID.randomUUID().toString())
+        .additionalParameters(Map.of(
+            "code_challenge", UUID.randomUUID().toString(),
+            "code_challenge_method", "S256",
+            "nonce", UUID.randomUUID().toString()))
+        .build();
+
+    var code = new OAuth2AuthorizationCode(UUID.randomUUID().toString(), now,
+        now.plus(5, ChronoUnit.MINUTES));
+    var accessToken = new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER,
+        UUID.randomUUID().toString(), now, now.plus(1, ChronoUnit.HOURS), scopes);
+    Map<String, Object> accessTokenClaims = Map.of(
+        "sub", "benchmark",
+        "aud", List.of(registeredClient.getClientId()),
+        "iss", ISSUER,
+        "scope", List.copyOf(scopes),
+        "iat", now,
+        "exp", now.plus(1, ChronoUnit.HOURS),
+        "jti", UUID.randomUUID().toString());
+    var refreshToken = new OAuth2RefreshToken(UUID.randomUUID().toString(), now,
+        now.plus(7, ChronoUnit.DAYS));
+    var idToken = OidcIdToken.withTokenValue(UUID.randomUUID().toString())
+        .issuer(ISSUER)
+        .subject("benchmark")
+        .audience(List.of(registeredClient.getClientId()))
+        .issuedAt(now)
+        .expiresAt(now.plus(1, ChronoUnit.HOURS))
+        .authTime(now)
+        .nonce(UUID.randomUUID().toString())
+        .claim("sid", UUID.randomUUID().toString())
+        .build();
+
+    return OAuth2Authorization.withRegisteredClient(registeredClient)
+        .id(UUID.randomUUID().toString())
+        .principalName(user.getUsername())
+        .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+        .authorizedScopes(scopes)
+        .attribute(Principal.class.getName(), principal)
+        .attribute(OAuth2AuthorizationRequest.class.getName(), authorizationRequest)
+        .token(code, metadata -> metadata.put(
+            OAuth2Authorization.Token.INVALIDATED_METADATA_NAME, true))
+        .token(accessToken, metadata -> metadata.put(
+            OAuth2Authorization.Token.CLAIMS_METADATA_NAME, accessTokenClaims))
+        .refreshToken(refreshToken)
+        .token(idToken, metadata -> metadata.put(
+            OAuth2Authorization.Token.CLAIMS_METADATA_NAME, idToken.getClaims()))
+        .build();
+  }
+}
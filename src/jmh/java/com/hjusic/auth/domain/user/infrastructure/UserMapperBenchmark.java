@@ -0,0 +1,56 @@
+package com.hjusic.auth.domain.user.infrastructure;
+
+import com.hjusic.auth.domain.role.infrastructure.RoleDatabaseEntity;
+import com.hjusic.auth.domain.role.model.RoleName;
+import com.hjusic.auth.domain.user.model.User;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of mapping a user row to the domain model, which runs on every user lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class UserMapperBenchmark {
+
+  private final UserMapper mapper = new UserMapper();
+  private UserDatabaseEntity guest;
+  private UserDatabaseEntity admin;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    var guestRole = new RoleDatabaseEntity(RoleName.ROLE_GUEST, "Guest");
+    var adminRole = new RoleDatabaseEntity(RoleName.ROLE_ADMIN, "Administrator");
+    guest = user("guest", Set.of(guestRole));
+    admin = user("admin", Set.of(guestRole, adminRole));
+  }
+
+  @Benchmark
+  public User toGuestUser() {
+    return mapper.toModelObject(guest);
+  }
+
+  @Benchmark
+  public User toAdminUser() {
+    return mapper.toModelObject(admin);
+  }
+
+  private static UserDatabaseEntity user(String username, Set<RoleDatabaseEntity> roles) {
+    return UserDatabaseEntity.builder()
+        .id(1L)
+        .username(username)
+        .email(username + "@example.com")
+        .password("{argon2}hash")
+        .roles(roles)
+        .build();
+  }
+}
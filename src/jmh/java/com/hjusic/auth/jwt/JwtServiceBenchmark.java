@@ -0,0 +1,129 @@
+package com.hjusic.auth.jwt;
+
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * Token issuance and verification through {@link JwtService}, next to the previous sign/verify
+ * path, which parsed the PEM keys and built a new parser on every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JwtServiceBenchmark {
+
+  private static final String ISSUER = "http://localhost:8081";
+
+  private AnnotationConfigApplicationContext context;
+  private JwtService jwtService;
+  private UserDetails user;
+  private String privateKeyPem;
+  private String publicKeyPem;
+  private String token;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+    generator.initialize(2048);
+    KeyPair keyPair = generator.generateKeyPair();
+
+    privateKeyPem = pem("PRIVATE KEY", keyPair.getPrivate().getEncoded());
+    publicKeyPem = pem("PUBLIC KEY", keyPair.getPublic().getEncoded());
+
+    context = new AnnotationConfigApplicationContext();
+    context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", Map.of(
+        "jwt.private-key", privateKeyPem,
+        "jwt.public-key", publicKeyPem,
+        "jwt.expiration", "3600000",
+        "jwt.refresh-expiration", "604800000",
+        "jwt.issuer", ISSUER
+    )));
+    context.register(JwtKeyMaterial.class, JwtService.class, SimpleMeterRegistry.class);
+    context.refresh();
+
+    jwtService = context.getBean(JwtService.class);
+    user = new User("benchmark", "password",
+        List.of(new SimpleGrantedAuthority("ROLE_GUEST")));
+    token = jwtService.generateToken(user);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public String signWithPerCallKeyParsing() {
+    Instant now = Instant.now();
+
+    return Jwts.builder()
+        .subject(user.getUsername())
+        .claim("roles", List.of("ROLE_GUEST"))
+        .id(UUID.randomUUID().toString())
+        .issuer(ISSUER)
+        .issuedAt(Date.from(now))
+        .expiration(Date.from(now.plus(3600000, ChronoUnit.MILLIS)))
+        .signWith(JwtKeyMaterial.parsePrivateKey(privateKeyPem))
+        .compact();
+  }
+
+  @Benchmark
+  public String signWithCachedKey() {
+    return jwtService.generateToken(user);
+  }
+
+  @Benchmark
+  public String generateRefreshToken() {
+    return jwtService.generateRefreshToken(user);
+  }
+
+  @Benchmark
+  public String verifyWithPerCallParser() {
+    return Jwts.parser()
+        .verifyWith(JwtKeyMaterial.parsePublicKey(publicKeyPem))
+        .build()
+        .parseSignedClaims(token)
+        .getPayload()
+        .getSubject();
+  }
+
+  @Benchmark
+  public String verifyWithSharedParser() {
+    return jwtService.extractUsername(token);
+  }
+
+  @Benchmark
+  public boolean isTokenValid() {
+    return jwtService.isTokenValid(token, user);
+  }
+
+  private static String pem(String type, byte[] der) {
+    return "-----BEGIN " + type + "-----\n"
+        + Base64.getMimeEncoder(64, new byte[]{'\n'}).encodeToString(der)
+        + "\n-----END " + type + "-----\n";
+  }
+}
@@ -0,0 +1,88 @@
+package com.hjusic.auth.jwt;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * Sign and verify throughput of {@link JwtService} per signature algorithm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SigningAlgorithmBenchmark {
+
+  @Param({"RS256", "ES256", "EdDSA"})
+  public String algorithm;
+
+  private AnnotationConfigApplicationContext context;
+  private JwtService jwtService;
+  private UserDetails user;
+  private String token;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+    generator.initialize(2048);
+    KeyPair keyPair = generator.generateKeyPair();
+
+    context = new AnnotationConfigApplicationContext();
+    context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", Map.of(
+        "jwt.private-key", pem("PRIVATE KEY", keyPair.getPrivate().getEncoded()),
+        "jwt.public-key", pem("PUBLIC KEY", keyPair.getPublic().getEncoded()),
+        "jwt.expiration", "3600000",
+        "jwt.refresh-expiration", "604800000",
+        "jwt.issuer", "http://localhost:8081",
+        "jwt.algorithm", algorithm,
+        // Non-RSA keys are generated at startup
+        "jwt.signing.generate-key", "true"
+    )));
+    context.register(JwtKeyMaterial.class, JwtService.class, SimpleMeterRegistry.class);
+    context.refresh();
+
+    jwtService = context.getBean(JwtService.class);
+    user = new User("benchmark", "password",
+        List.of(new SimpleGrantedAuthority("ROLE_GUEST")));
+    token = jwtService.generateToken(user);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public String sign() {
+    return jwtService.generateToken(user);
+  }
+
+  @Benchmark
+  public VerifiedToken verify() {
+    return jwtService.verify(token);
+  }
+
+  private static String pem(String type, byte[] der) {
+    return "-----BEGIN " + type + "-----\n"
+        + Base64.getMimeEncoder(64, new byte[]{'\n'}).encodeToString(der)
+        + "\n-----END " + type + "-----\n";
+  }
+}
@@ -0,0 +1,55 @@
+package com.hjusic.auth.loadtest;
+
+import com.hjusic.auth.event.infrastructure.OutboxEventRepository;
+import com.hjusic.auth.event.infrastructure.OutboxProperties;
+import com.hjusic.auth.event.infrastructure.OutboxRelay;
+import com.hjusic.auth.scheduling.infrastructure.DatabaseLease;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.mock.MockProducerFactory;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Replaces every Kafka producer of the application with an in-process stub that acknowledges
+ * each send at once, so load tests need no broker. The autoconfigured {@code KafkaTemplate} picks
+ * up the stub factory, and the outbox relay is redefined on top of it.
+ */
+@Configuration(proxyBeanMethods = false)
+public class KafkaStubConfiguration {
+
+  @Bean
+  public ProducerFactory<Object, Object> kafkaProducerFactory() {
+    return new MockProducerFactory<>(KafkaStubConfiguration::producer);
+  }
+
+  @Bean
+  public OutboxRelay outboxRelay(
+      OutboxEventRepository outboxEventRepository,
+      OutboxProperties properties,
+      DatabaseLease lease,
+      TransactionTemplate transactionTemplate,
+      MeterRegistry meterRegistry
+  ) {
+    return new OutboxRelay(outboxEventRepository, properties, lease, transactionTemplate,
+        new MockProducerFactory<>(KafkaStubConfiguration::producer), meterRegistry);
+  }
+
+  /**
+   * A new stub per send: the template closes non-transactional producers from this factory after
+   * each send, which also keeps the stub's send history from growing.
+   */
+  private static <K, V> MockProducer<K, V> producer() {
+    return new MockProducer<>(true, serializer(), serializer());
+  }
+
+  private static <T> Serializer<T> serializer() {
+    return (topic, value) -> value == null
+        ? null
+        : value.toString().getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,55 @@
+package com.hjusic.auth.loadtest;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with logarithmic buckets about 5% wide, from one microsecond to
+ * about a minute. Percentiles are reported as the upper bound of their bucket.
+ */
+public class LatencyHistogram {
+
+  private static final double GROWTH = 1.05;
+  private static final double LOG_GROWTH = Math.log(GROWTH);
+  private static final int BUCKETS = (int) Math.ceil(Math.log(60_000_000d) / LOG_GROWTH) + 1;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder total = new LongAdder();
+  private final LongAdder sumNanos = new LongAdder();
+
+  public void record(long nanos) {
+    long micros = Math.max(1, nanos / 1_000);
+    int bucket = (int) Math.min(BUCKETS - 1, Math.ceil(Math.log(micros) / LOG_GROWTH));
+    counts.incrementAndGet(bucket);
+    total.increment();
+    sumNanos.add(nanos);
+  }
+
+  public long count() {
+    return total.sum();
+  }
+
+  public double meanMillis() {
+    long count = count();
+    return count == 0 ? 0 : sumNanos.sum() / 1_000_000d / count;
+  }
+
+  /**
+   * @param percentile between 0 and 100
+   */
+  public double percentileMillis(double percentile) {
+    long count = count();
+    if (count == 0) {
+      return 0;
+    }
+    long rank = (long) Math.ceil(count * percentile / 100d);
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts.get(i);
+      if (seen >= rank) {
+        return Math.pow(GROWTH, i) / 1_000d;
+      }
+    }
+    return Math.pow(GROWTH, BUCKETS - 1) / 1_000d;
+  }
+}
@@ -0,0 +1,179 @@
+package com.hjusic.auth.loadtest;
+
+import com.hjusic.auth.AuthApplication;
+import com.hjusic.auth.domain.oidc.infrastructure.OidcClientDatabaseEntity;
+import com.hjusic.auth.domain.oidc.infrastructure.OidcClientDatabaseRepository;
+import com.hjusic.auth.domain.role.infrastructure.RoleDatabaseRepository;
+import com.hjusic.auth.domain.role.model.RoleName;
+import com.hjusic.auth.domain.user.infrastructure.UserDatabaseEntity;
+import com.hjusic.auth.domain.user.infrastructure.UserDatabaseRepository;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.testcontainers.containers.KafkaContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+/**
+ * Boots the full application on a random port against a throwaway Postgres container and either
+ * a Kafka container or the in-process {@link KafkaStubConfiguration}, and seeds users and an OIDC
+ * client with known credentials.
+ */
+@Log4j2
+public class LoadTestEnvironment implements AutoCloseable {
+
+  public static final String PASSWORD = "LoadTest-Password-1";
+  public static final String CLIENT_ID = "loadtest-client";
+  public static final String CLIENT_SECRET = "LoadTest-Client-Secret-1";
+  public static final String REDIRECT_URI = "https://loadtest.local/callback";
+
+  private static final PostgreSQLContainer<?> POSTGRES =
+      new PostgreSQLContainer<>("postgres:16-alpine")
+          .withDatabaseName("loadtest")
+          .withUsername("loadtest")
+          .withPassword("loadtest");
+
+  private static final KafkaContainer KAFKA =
+      new KafkaContainer(DockerImageName.parse("confluentinc/cp-kafka:7.5.0"));
+
+  private final ConfigurableApplicationContext context;
+
+  @Getter
+  private final String baseUrl;
+
+  private LoadTestEnvironment(ConfigurableApplicationContext context) {
+    this.context = context;
+    int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+    this.baseUrl = "http://localhost:" + port;
+  }
+
+  /**
+   * Start the application against a Kafka container, optionally serving requests on virtual
+   * threads.
+   */
+  public static LoadTestEnvironment start(boolean virtualThreads, Map<String, Object> overrides) {
+    return start(virtualThreads, false, overrides);
+  }
+
+  /**
+   * Start the application, with Kafka replaced by an in-process stub when {@code stubKafka} is
+   * set, so that broker latency stays out of the measurement.
+   */
+  public static LoadTestEnvironment start(boolean virtualThreads, boolean stubKafka,
+      Map<String, Object> overrides) {
+    if (!POSTGRES.isRunning()) {
+      POSTGRES.start();
+    }
+    if (!stubKafka && !KAFKA.isRunning()) {
+      KAFKA.start();
+    }
+
+    Map<String, Object> properties = new HashMap<>();
+    properties.put("server.port", 0);
+    properties.put("management.server.port", 0);
+    properties.put("spring.datasource.url", POSTGRES.getJdbcUrl());
+    properties.put("spring.datasource.username", POSTGRES.getUsername());
+    properties.put("spring.datasource.password", POSTGRES.getPassword());
+    properties.put("spring.threads.virtual.enabled", virtualThreads);
+    // The OIDC flows run over plain HTTP
+    properties.put("server.servlet.session.cookie.secure", false);
+    properties.put("logging.level.root", "WARN");
+
+    var builder = new SpringApplicationBuilder(AuthApplication.class);
+    if (stubKafka) {
+      // The stub replaces the outbox relay's broker-bound producer with its own definition
+      properties.put("spring.main.allow-bean-definition-overriding", true);
+      properties.put("spring.kafka.bootstrap-servers", "localhost:0");
+      builder.sources(KafkaStubConfiguration.class);
+    } else {
+      properties.put("spring.kafka.bootstrap-servers", KAFKA.getBootstrapServers());
+    }
+    properties.putAll(overrides);
+
+    log.info("Starting application (virtual threads: {}, Kafka stub: {})", virtualThreads,
+        stubKafka);
+    var context = builder
+        .profiles("test", "jwt")
+        .properties(properties)
+        .run();
+    return new LoadTestEnvironment(context);
+  }
+
+  /**
+   * Create {@code count} users named {@code loadtest-<n>}, all with {@link #PASSWORD}.
+   */
+  public void seedUsers(int count) {
+    var userRepository = context.getBean(UserDatabaseRepository.class);
+    var roleRepository = context.getBean(RoleDatabaseRepository.class);
+    var passwordEncoder = context.getBean(PasswordEncoder.class);
+
+    var roles = roleRepository.findAllByNameIn(Set.of(RoleName.ROLE_GUEST));
+    var hash = passwordEncoder.encode(PASSWORD);
+    var users = IntStream.range(0, count)
+        .mapToObj(i -> UserDatabaseEntity.builder()
+            .username(username(i))
+            .email(username(i) + "@loadtest.local")
+            .password(hash)
+            .roles(new HashSet<>(roles))
+            .build())
+        .filter(user -> !userRepository.existsByUsername(user.getUsername()))
+        .toList();
+    userRepository.saveAll(users);
+    log.info("Seeded {} users", users.size());
+  }
+
+  /**
+   * Register a confidential client for the authorization code, refresh token and client
+   * credentials grants that needs no consent, authenticated with {@link #CLIENT_SECRET}.
+   */
+  public void seedClient() {
+    var clientRepository = context.getBean(OidcClientDatabaseRepository.class);
+    if (clientRepository.findByClientId(CLIENT_ID).isPresent()) {
+      return;
+    }
+
+    var passwordEncoder = context.getBean(PasswordEncoder.class);
+    clientRepository.saveAndFlush(OidcClientDatabaseEntity.builder()
+        .id(UUID.randomUUID().toString())
+        .clientId(CLIENT_ID)
+        .clientSecret(passwordEncoder.encode(CLIENT_SECRET))
+        .clientName("Load test client")
+        .grantTypes(Set.of("authorization_code", "refresh_token", "client_credentials"))
+        .authenticationMethods(Set.of("client_secret_basic"))
+        .redirectUris(Set.of(REDIRECT_URI))
+        .postLogoutRedirectUris(Set.of())
+        .scopes(Set.of("openid", "profile", "email"))
+        .accessTokenTimeToLiveSeconds(3600L)
+        .refreshTokenTimeToLiveSeconds(86400L)
+        .authorizationCodeTimeToLiveSeconds(300L)
+        .reuseRefreshTokens(false)
+        .requireProofKey(false)
+        .requireAuthorizationConsent(false)
+        .clientIdIssuedAt(Instant.now())
+        .build());
+    log.info("Seeded client {}", CLIENT_ID);
+  }
+
+  public <T> T getBean(Class<T> type) {
+    return context.getBean(type);
+  }
+
+  public static String username(int i) {
+    return "loadtest-" + i;
+  }
+
+  @Override
+  public void close() {
+    context.close();
+  }
+}
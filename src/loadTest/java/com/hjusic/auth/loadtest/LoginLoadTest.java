@@ -0,0 +1,112 @@
+package com.hjusic.auth.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Closed-loop concurrent login benchmark. Boots the application once per execution mode
+ * (platform request threads, then virtual threads), drives {@code POST /api/auth/login} from a
+ * fixed number of concurrent clients and prints throughput and latency for each mode.
+ * <p>
+ * Settings are read from system properties: {@code loadtest.modes} (platform,virtual),
+ * {@code loadtest.concurrency}, {@code loadtest.users}, {@code loadtest.warmup} and
+ * {@code loadtest.duration}.
+ */
+@Log4j2
+public class LoginLoadTest {
+
+  public static void main(String[] args) throws Exception {
+    var modes = Arrays.stream(System.getProperty("loadtest.modes", "platform,virtual").split(","))
+        .map(String::trim)
+        .toList();
+    int concurrency = Integer.getInteger("loadtest.concurrency", 200);
+    int users = Integer.getInteger("loadtest.users", 200);
+    var warmup = Duration.parse(System.getProperty("loadtest.warmup", "PT10S"));
+    var duration = Duration.parse(System.getProperty("loadtest.duration", "PT30S"));
+
+    Map<String, Result> results = new LinkedHashMap<>();
+    for (var mode : modes) {
+      try (var environment = LoadTestEnvironment.start("virtual".equals(mode), Map.of())) {
+        environment.seedUsers(users);
+        run(environment.getBaseUrl(), concurrency, users, warmup);
+        results.put(mode, run(environment.getBaseUrl(), concurrency, users, duration));
+      }
+    }
+
+    System.out.printf("%nConcurrent logins: %d clients, %d users, %s measured%n",
+        concurrency, users, duration);
+    System.out.printf("%-10s %10s %10s %10s %10s %10s %10s  %s%n",
+        "mode", "req/s", "mean ms", "p50 ms", "p95 ms", "p99 ms", "errors", "status codes");
+    results.forEach((mode, result) -> System.out.printf(
+        "%-10s %10.1f %10.1f %10.1f %10.1f %10.1f %10d  %s%n",
+        mode,
+        result.throughput(),
+        result.latency().meanMillis(),
+        result.latency().percentileMillis(50),
+        result.latency().percentileMillis(95),
+        result.latency().percentileMillis(99),
+        result.errors(),
+        result.statusCodes()));
+  }
+
+  static Result run(String baseUrl, int concurrency, int users, Duration duration)
+      throws InterruptedException {
+    var client = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(5))
+        .build();
+    var latency = new LatencyHistogram();
+    var statusCodes = new ConcurrentHashMap<Integer, LongAdder>();
+    var errors = new LongAdder();
+    long deadline = System.nanoTime() + duration.toNanos();
+
+    long started = System.nanoTime();
+    try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int worker = 0; worker < concurrency; worker++) {
+        var body = "{\"username\":\"" + LoadTestEnvironment.username(worker % users)
+            + "\",\"password\":\"" + LoadTestEnvironment.PASSWORD + "\"}";
+        var request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+            .header("Content-Type", "application/json")
+            .timeout(Duration.ofSeconds(30))
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build();
+
+        executor.submit(() -> {
+          while (System.nanoTime() < deadline) {
+            long start = System.nanoTime();
+            try {
+              var response = client.send(request, HttpResponse.BodyHandlers.discarding());
+              latency.record(System.nanoTime() - start);
+              statusCodes.computeIfAbsent(response.statusCode(), code -> new LongAdder())
+                  .increment();
+            } catch (Exception e) {
+              errors.increment();
+            }
+          }
+          return null;
+        });
+      }
+    }
+    double seconds = (System.nanoTime() - started) / 1e9;
+
+    Map<Integer, Long> codes = new TreeMap<>();
+    statusCodes.forEach((code, count) -> codes.put(code, count.sum()));
+    log.info("{} requests in {}s, status codes {}", latency.count(), seconds, codes);
+    return new Result(latency.count() / seconds, latency, errors.sum(), codes);
+  }
+
+  record Result(double throughput, LatencyHistogram latency, long errors,
+                Map<Integer, Long> statusCodes) {
+  }
+}
@@ -0,0 +1,419 @@
+package com.hjusic.auth.loadtest;
+
+import static com.hjusic.auth.loadtest.LoadTestEnvironment.CLIENT_ID;
+import static com.hjusic.auth.loadtest.LoadTestEnvironment.CLIENT_SECRET;
+import static com.hjusic.auth.loadtest.LoadTestEnvironment.PASSWORD;
+import static com.hjusic.auth.loadtest.LoadTestEnvironment.REDIRECT_URI;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Closed-loop mixed-workload benchmark for capacity planning. Boots the application once with
+ * Kafka replaced by {@link KafkaStubConfiguration}, gives every client its own session (a login
+ * token plus OIDC tokens from an authorization code flow) and drives a weighted mix of the main
+ * endpoints. Throughput and latency are printed per endpoint and in total.
+ * <p>
+ * Settings are read from system properties: {@code loadtest.virtual}, {@code loadtest.concurrency},
+ * {@code loadtest.users}, {@code loadtest.warmup}, {@code loadtest.duration} and
+ * {@code loadtest.mix}, a list of {@code operation=weight} pairs such as
+ * {@code login=5,me=30,client_credentials=10,refresh=10,introspect=20,userinfo=25}.
+ */
+@Log4j2
+public class MixedLoadTest {
+
+  private static final String DEFAULT_MIX =
+      "login=5,me=30,client_credentials=10,refresh=10,introspect=20,userinfo=25";
+
+  // Session setup hashes passwords; more at once would be turned away by the hashing pool
+  private static final int SETUP_PARALLELISM = 16;
+
+  private static final ObjectMapper JSON = new ObjectMapper();
+
+  private static final String CLIENT_AUTHORIZATION = "Basic " + Base64.getEncoder()
+      .encodeToString((CLIENT_ID + ":" + CLIENT_SECRET).getBytes(StandardCharsets.UTF_8));
+
+  enum Operation {
+    LOGIN("login", "POST /api/auth/login"),
+    ME("me", "GET /api/user/me"),
+    CLIENT_CREDENTIALS("client_credentials", "POST /oauth2/token client_credentials"),
+    REFRESH("refresh", "POST /oauth2/token refresh_token"),
+    INTROSPECT("introspect", "POST /oauth2/introspect"),
+    USERINFO("userinfo", "GET /userinfo");
+
+    private final String key;
+    private final String label;
+
+    Operation(String key, String label) {
+      this.key = key;
+      this.label = label;
+    }
+
+    static Operation of(String key) {
+      return Arrays.stream(values())
+          .filter(operation -> operation.key.equals(key))
+          .findFirst()
+          .orElseThrow(() -> new IllegalArgumentException("Unknown operation: " + key));
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    boolean virtualThreads = Boolean.getBoolean("loadtest.virtual");
+    int concurrency = Integer.getInteger("loadtest.concurrency", 100);
+    int users = Integer.getInteger("loadtest.users", 100);
+    var warmup = Duration.parse(System.getProperty("loadtest.warmup", "PT10S"));
+    var duration = Duration.parse(System.getProperty("loadtest.duration", "PT60S"));
+    var mix = Mix.parse(System.getProperty("loadtest.mix", DEFAULT_MIX));
+
+    Result result;
+    try (var environment = LoadTestEnvironment.start(virtualThreads, true, Map.of())) {
+      environment.seedUsers(users);
+      environment.seedClient();
+
+      var baseUrl = environment.getBaseUrl();
+      var sessions = openSessions(baseUrl, concurrency, users);
+      run(baseUrl, sessions, mix, warmup);
+      result = run(baseUrl, sessions, mix, duration);
+    }
+
+    System.out.printf("%nMixed workload: %d clients, %d users, %s threads, %s measured, mix %s%n",
+        concurrency, users, virtualThreads ? "virtual" : "platform", duration, mix);
+    System.out.printf("%-40s %9s %9s %9s %9s %9s %9s %7s  %s%n",
+        "endpoint", "requests", "req/s", "mean ms", "p50 ms", "p95 ms", "p99 ms", "errors",
+        "status codes");
+    result.endpoints().forEach((operation, stats) ->
+        print(operation.label, stats, result.seconds()));
+    print("total", result.total(), result.seconds());
+  }
+
+  private static void print(String label, Stats stats, double seconds) {
+    System.out.printf("%-40s %9d %9.1f %9.1f %9.1f %9.1f %9.1f %7d  %s%n",
+        label,
+        stats.latency.count(),
+        stats.latency.count() / seconds,
+        stats.latency.meanMillis(),
+        stats.latency.percentileMillis(50),
+        stats.latency.percentileMillis(95),
+        stats.latency.percentileMillis(99),
+        stats.errors.sum(),
+        stats.statusCodes());
+  }
+
+  static Result run(String baseUrl, List<Session> sessions, Mix mix, Duration duration)
+      throws InterruptedException {
+    var client = httpClient().build();
+    Map<Operation, Stats> endpoints = new EnumMap<>(Operation.class);
+    for (var operation : mix.operations()) {
+      endpoints.put(operation, new Stats());
+    }
+    var total = new Stats();
+    long deadline = System.nanoTime() + duration.toNanos();
+
+    long started = System.nanoTime();
+    try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (var session : sessions) {
+        executor.submit(() -> {
+          while (System.nanoTime() < deadline) {
+            var operation = mix.next();
+            var stats = endpoints.get(operation);
+            long start = System.nanoTime();
+            try {
+              var response = client.send(request(baseUrl, operation, session),
+                  HttpResponse.BodyHandlers.ofString());
+              long elapsed = System.nanoTime() - start;
+              stats.record(elapsed, response.statusCode());
+              total.record(elapsed, response.statusCode());
+              session.update(operation, response);
+            } catch (Exception e) {
+              stats.errors.increment();
+              total.errors.increment();
+            }
+          }
+          return null;
+        });
+      }
+    }
+    double seconds = (System.nanoTime() - started) / 1e9;
+
+    log.info("{} requests in {}s, status codes {}", total.latency.count(), seconds,
+        total.statusCodes());
+    return new Result(seconds, endpoints, total);
+  }
+
+  private static HttpRequest request(String baseUrl, Operation operation, Session session) {
+    return switch (operation) {
+      case LOGIN -> post(baseUrl + "/api/auth/login")
+          .header("Content-Type", "application/json")
+          .POST(HttpRequest.BodyPublishers.ofString(loginBody(session.username)))
+          .build();
+      case ME -> get(baseUrl + "/api/user/me")
+          .header("Authorization", "Bearer " + session.loginToken)
+          .build();
+      case CLIENT_CREDENTIALS -> form(baseUrl + "/oauth2/token",
+          Map.of("grant_type", "client_credentials"));
+      case REFRESH -> form(baseUrl + "/oauth2/token",
+          Map.of("grant_type", "refresh_token", "refresh_token", session.refreshToken));
+      case INTROSPECT -> form(baseUrl + "/oauth2/introspect",
+          Map.of("token", session.accessToken, "token_type_hint", "access_token"));
+      case USERINFO -> get(baseUrl + "/userinfo")
+          .header("Authorization", "Bearer " + session.accessToken)
+          .build();
+    };
+  }
+
+  /**
+   * Open one session per client, {@link #SETUP_PARALLELISM} at a time.
+   */
+  static List<Session> openSessions(String baseUrl, int count, int users) throws Exception {
+    var permits = new Semaphore(SETUP_PARALLELISM);
+    var futures = new ArrayList<Future<Session>>(count);
+    try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < count; i++) {
+        var username = LoadTestEnvironment.username(i % users);
+        futures.add(executor.submit(() -> {
+          permits.acquire();
+          try {
+            return openSession(baseUrl, username);
+          } finally {
+            permits.release();
+          }
+        }));
+      }
+    }
+
+    var sessions = new ArrayList<Session>(count);
+    for (var future : futures) {
+      sessions.add(future.get());
+    }
+    log.info("Opened {} sessions", sessions.size());
+    return sessions;
+  }
+
+  /**
+   * Log in through the API, then run the authorization code flow the way a browser would: the
+   * authorize request is sent to the login form, the form login resumes it and the code is
+   * exchanged for tokens.
+   */
+  private static Session openSession(String baseUrl, String username) throws Exception {
+    var session = new Session(username);
+    var client = httpClient().build();
+
+    var login = client.send(post(baseUrl + "/api/auth/login")
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(loginBody(username)))
+            .build(),
+        HttpResponse.BodyHandlers.ofString());
+    session.loginToken = json(login).get("token").asText();
+
+    var browser = httpClient()
+        .cookieHandler(new CookieManager())
+        .followRedirects(HttpClient.Redirect.NEVER)
+        .build();
+    var authorize = baseUrl + "/oauth2/authorize?response_type=code"
+        + "&client_id=" + encode(CLIENT_ID)
+        + "&scope=" + encode("openid profile")
+        + "&redirect_uri=" + encode(REDIRECT_URI)
+        + "&state=" + UUID.randomUUID();
+    redirect(browser.send(get(authorize).header("Accept", "text/html").build(),
+        HttpResponse.BodyHandlers.discarding()));
+
+    var formLogin = browser.send(post(baseUrl + "/oauth2/login")
+            .header("Content-Type", "application/x-www-form-urlencoded")
+            .POST(HttpRequest.BodyPublishers.ofString(
+                formBody(Map.of("username", username, "password", PASSWORD))))
+            .build(),
+        HttpResponse.BodyHandlers.discarding());
+    var resumed = redirect(formLogin);
+    if (!resumed.contains("/oauth2/authorize")) {
+      throw new IllegalStateException("Form login failed for " + username + ": " + resumed);
+    }
+
+    var callback = redirect(browser.send(get(resumed).header("Accept", "text/html").build(),
+        HttpResponse.BodyHandlers.discarding()));
+    var code = UriComponentsBuilder.fromUriString(callback).build().getQueryParams()
+        .getFirst("code");
+    if (code == null) {
+      throw new IllegalStateException("No authorization code for " + username + ": " + callback);
+    }
+
+    var tokens = client.send(form(baseUrl + "/oauth2/token", Map.of(
+            "grant_type", "authorization_code",
+            "code", code,
+            "redirect_uri", REDIRECT_URI)),
+        HttpResponse.BodyHandlers.ofString());
+    session.update(Operation.REFRESH, tokens);
+    if (session.accessToken == null) {
+      throw new IllegalStateException("Code exchange failed for " + username + ": "
+          + tokens.statusCode() + " " + tokens.body());
+    }
+    return session;
+  }
+
+  private static HttpClient.Builder httpClient() {
+    return HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(5));
+  }
+
+  private static HttpRequest.Builder get(String uri) {
+    return HttpRequest.newBuilder(URI.create(uri)).timeout(Duration.ofSeconds(30)).GET();
+  }
+
+  private static HttpRequest.Builder post(String uri) {
+    return HttpRequest.newBuilder(URI.create(uri)).timeout(Duration.ofSeconds(30));
+  }
+
+  /**
+   * A form post to a client-authenticated endpoint of the authorization server.
+   */
+  private static HttpRequest form(String uri, Map<String, String> parameters) {
+    return post(uri)
+        .header("Content-Type", "application/x-www-form-urlencoded")
+        .header("Authorization", CLIENT_AUTHORIZATION)
+        .POST(HttpRequest.BodyPublishers.ofString(formBody(parameters)))
+        .build();
+  }
+
+  private static String formBody(Map<String, String> parameters) {
+    return parameters.entrySet().stream()
+        .map(entry -> encode(entry.getKey()) + "=" + encode(entry.getValue()))
+        .collect(Collectors.joining("&"));
+  }
+
+  private static String loginBody(String username) {
+    return "{\"username\":\"" + username + "\",\"password\":\"" + PASSWORD + "\"}";
+  }
+
+  private static String redirect(HttpResponse<?> response) {
+    return response.headers().firstValue("Location").orElseThrow(() ->
+        new IllegalStateException("Expected a redirect from " + response.uri() + ", got "
+            + response.statusCode()));
+  }
+
+  private static String encode(String value) {
+    return URLEncoder.encode(value, StandardCharsets.UTF_8);
+  }
+
+  private static JsonNode json(HttpResponse<String> response) throws Exception {
+    if (response.statusCode() != 200) {
+      throw new IllegalStateException(response.uri() + " returned " + response.statusCode());
+    }
+    return JSON.readTree(response.body());
+  }
+
+  /**
+   * The tokens of one simulated user. Each session is driven by a single client, so refresh
+   * token rotation needs no coordination.
+   */
+  static final class Session {
+
+    private final String username;
+    private String loginToken;
+    private String accessToken;
+    private String refreshToken;
+
+    Session(String username) {
+      this.username = username;
+    }
+
+    void update(Operation operation, HttpResponse<String> response) throws Exception {
+      if (operation != Operation.REFRESH || response.statusCode() != 200) {
+        return;
+      }
+      var tokens = JSON.readTree(response.body());
+      accessToken = tokens.get("access_token").asText();
+      refreshToken = tokens.get("refresh_token").asText();
+    }
+  }
+
+  /**
+   * Weighted choice between operations.
+   */
+  record Mix(Operation[] operations, int[] cumulativeWeights, String description) {
+
+    static Mix parse(String value) {
+      var weights = new TreeMap<Operation, Integer>();
+      for (var entry : value.split(",")) {
+        var parts = entry.trim().split("=");
+        int weight = Integer.parseInt(parts[1].trim());
+        if (weight > 0) {
+          weights.put(Operation.of(parts[0].trim()), weight);
+        }
+      }
+      if (weights.isEmpty()) {
+        throw new IllegalArgumentException("Empty load test mix: " + value);
+      }
+
+      var operations = weights.keySet().toArray(Operation[]::new);
+      var cumulative = new int[operations.length];
+      int sum = 0;
+      for (int i = 0; i < operations.length; i++) {
+        sum += weights.get(operations[i]);
+        cumulative[i] = sum;
+      }
+      return new Mix(operations, cumulative, value);
+    }
+
+    Operation next() {
+      int total = cumulativeWeights[cumulativeWeights.length - 1];
+      int pick = ThreadLocalRandom.current().nextInt(total);
+      for (int i = 0; i < cumulativeWeights.length; i++) {
+        if (pick < cumulativeWeights[i]) {
+          return operations[i];
+        }
+      }
+      throw new IllegalStateException("Weight out of range: " + pick);
+    }
+
+    @Override
+    public String toString() {
+      return description;
+    }
+  }
+
+  static final class Stats {
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final ConcurrentHashMap<Integer, LongAdder> statusCodes = new ConcurrentHashMap<>();
+    private final LongAdder errors = new LongAdder();
+
+    void record(long nanos, int statusCode) {
+      latency.record(nanos);
+      statusCodes.computeIfAbsent(statusCode, code -> new LongAdder()).increment();
+    }
+
+    Map<Integer, Long> statusCodes() {
+      Map<Integer, Long> codes = new TreeMap<>();
+      statusCodes.forEach((code, count) -> codes.put(code, count.sum()));
+      return codes;
+    }
+  }
+
+  record Result(double seconds, Map<Operation, Stats> endpoints, Stats total) {
+  }
+}
@@ -1,21 +1,45 @@
 package com.hjusic.auth.config;
 
 import com.hjusic.auth.domain.user.infrastructure.UserDatabaseRepository;
+import com.hjusic.auth.domain.user.infrastructure.UserDetailsCache;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 @Service
 @RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+@Log4j2
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
+  private final UserDetailsCache userDetailsCache;
   private final UserDatabaseRepository userRepository;
 
   @Override
   public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-    return userRepository.findByUsername(username)
+    return userDetailsCache.findByUsername(username)
         .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
   }
+
+  /**
+   * Called after a successful login whose stored hash uses an outdated encoder or parameters.
+   * Only the hash changes, so this is not a password change: no event is raised and issued
+   * tokens stay valid.
+   */
+  @Override
+  public UserDetails updatePassword(UserDetails user, String newPassword) {
+    var username = user.getUsername();
+    if (userRepository.updatePasswordByUsername(username, newPassword) == 0) {
+      return user;
+    }
+
+    userDetailsCache.evict(username);
+    log.info("Upgraded password hash of user {}", username);
+    return userDetailsCache.findByUsername(username)
+        .<UserDetails>map(updated -> updated)
+        .orElse(user);
+  }
 }
@@ -1,5 +1,8 @@
 package com.hjusic.auth.config;
 
+import com.hjusic.auth.password.BoundedPasswordEncoder;
+import com.hjusic.auth.password.PasswordHashingProperties;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
@@ -16,19 +19,15 @@ import java.util.Map;
 public class PasswordEncoderConfig {
 
   @Bean
-  public PasswordEncoder passwordEncoder() {
-    int saltLength = 16;        // Salt length in bytes
-    int hashLength = 32;        // Hash length in bytes
-    int parallelism = 1;        // Number of parallel threads
-    int memory = 19456;         // Memory cost in KB (64 MB)
-    int iterations = 2;         // Number of iterations
-
+  public PasswordEncoder passwordEncoder(PasswordHashingProperties hashingProperties,
+      MeterRegistry meterRegistry) {
+    var argon2 = hashingProperties.getArgon2();
     Argon2PasswordEncoder argon2Encoder = new Argon2PasswordEncoder(
-        saltLength,
-        hashLength,
-        parallelism,
-        memory,
-        iterations
+        argon2.getSaltLength(),
+        argon2.getHashLength(),
+        argon2.getParallelism(),
+        argon2.getMemory(),
+        argon2.getIterations()
     );
 
     Map<String, PasswordEncoder> encoders = new HashMap<>();
@@ -37,6 +36,10 @@ public class PasswordEncoderConfig {
     encoders.put("scrypt", SCryptPasswordEncoder.defaultsForSpringSecurity_v5_8());
     encoders.put("pbkdf2", Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8());
 
-    return new DelegatingPasswordEncoder("argon2", encoders);
+    // Hashing runs on its own bounded pool rather than on request threads
+    return new BoundedPasswordEncoder(
+        new DelegatingPasswordEncoder("argon2", encoders),
+        hashingProperties,
+        meterRegistry);
   }
 }
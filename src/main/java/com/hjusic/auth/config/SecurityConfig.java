@@ -1,6 +1,8 @@
 package com.hjusic.auth.config;
 
 import com.hjusic.auth.jwt.filter.JwtAuthenticationFilter;
+import com.hjusic.auth.ratelimit.LoginRateLimiter;
+import com.hjusic.auth.ratelimit.RateLimitingAuthenticationProvider;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -16,7 +18,6 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.annotation.web.configurers.HeadersConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -30,8 +31,9 @@ import org.springframework.security.web.header.writers.XXssProtectionHeaderWrite
 public class SecurityConfig {
 
   private final JwtAuthenticationFilter jwtAuthFilter;
-  private final UserDetailsService userDetailsService;
+  private final CustomUserDetailsService userDetailsService;
   private final PasswordEncoder passwordEncoder;
+  private final LoginRateLimiter loginRateLimiter;
 
   @Bean
   @Order(4)
@@ -64,6 +66,7 @@ public class SecurityConfig {
                 "/swagger-ui/**",
                 "/swagger-ui.html",
                 "/v3/api-docs",
+                "/.well-known/jwks.json",
                 "/actuator/health",
                 "/actuator/info",
                 "/actuator/prometheus"
@@ -93,7 +96,8 @@ public class SecurityConfig {
     DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
     provider.setUserDetailsService(userDetailsService);
     provider.setPasswordEncoder(passwordEncoder);
-    return provider;
+    provider.setUserDetailsPasswordService(userDetailsService);
+    return new RateLimitingAuthenticationProvider(provider, loginRateLimiter);
   }
 
   @Bean
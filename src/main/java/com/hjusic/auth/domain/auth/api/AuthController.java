@@ -49,7 +49,7 @@ public class AuthController {
   public ResponseEntity<?> verifyToken(@RequestHeader("Authorization") String authHeader) {
     try {
       String token = authHeader.replace("Bearer ", "");
-      String username = jwtService.extractUsername(token);
+      String username = jwtService.verify(token).subject();
 
       var user = users.findByUsername(username);
 
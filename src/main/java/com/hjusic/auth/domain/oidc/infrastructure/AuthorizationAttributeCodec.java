@@ -0,0 +1,14 @@
+package com.hjusic.auth.domain.oidc.infrastructure;
+
+import java.util.Map;
+
+/**
+ * Encodes the attribute and metadata maps of an authorization for storage in a text column.
+ * Implementations must keep reading every format written by earlier versions.
+ */
+public interface AuthorizationAttributeCodec {
+
+  String encode(Map<String, Object> map);
+
+  Map<String, Object> decode(String value);
+}
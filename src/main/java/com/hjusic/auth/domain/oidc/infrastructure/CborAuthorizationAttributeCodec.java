@@ -0,0 +1,52 @@
+package com.hjusic.auth.domain.oidc.infrastructure;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Base64;
+import java.util.Map;
+import org.springframework.util.StringUtils;
+
+/**
+ * CBOR encoding with short registry type ids, stored as {@code c1:<base64>} so the existing text
+ * columns need no migration. Values without the version prefix are rows written before this
+ * codec and are read with the legacy JSON codec; they are rewritten in the new format the next
+ * time the authorization is saved.
+ */
+public class CborAuthorizationAttributeCodec implements AuthorizationAttributeCodec {
+
+  static final String VERSION_PREFIX = "c1:";
+
+  private final ObjectMapper cborMapper;
+  private final AuthorizationAttributeCodec legacyCodec;
+
+  public CborAuthorizationAttributeCodec(ObjectMapper cborMapper, AuthorizationAttributeCodec legacyCodec) {
+    this.cborMapper = cborMapper;
+    this.legacyCodec = legacyCodec;
+  }
+
+  @Override
+  public String encode(Map<String, Object> map) {
+    try {
+      return VERSION_PREFIX + Base64.getEncoder().encodeToString(cborMapper.writeValueAsBytes(map));
+    } catch (Exception e) {
+      throw new IllegalArgumentException("Error writing map", e);
+    }
+  }
+
+  @Override
+  public Map<String, Object> decode(String value) {
+    if (!StringUtils.hasText(value)) {
+      return Map.of();
+    }
+    if (!value.startsWith(VERSION_PREFIX)) {
+      return legacyCodec.decode(value);
+    }
+
+    try {
+      byte[] bytes = Base64.getDecoder().decode(value.substring(VERSION_PREFIX.length()));
+      return cborMapper.readValue(bytes, new TypeReference<>() {});
+    } catch (Exception e) {
+      throw new IllegalArgumentException("Error reading map", e);
+    }
+  }
+}
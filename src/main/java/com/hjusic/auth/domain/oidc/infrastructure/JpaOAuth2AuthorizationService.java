@@ -1,13 +1,14 @@
 package com.hjusic.auth.domain.oidc.infrastructure;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.oauth2.core.*;
 import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
 import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.endpoint.OidcParameterNames;
 import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
 import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationCode;
 import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationService;
@@ -19,67 +20,126 @@ import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 
+/**
+ * JPA-backed authorization store.
+ * <p>
+ * With {@code auth.authorization.store-token-digests} enabled, authorization codes, access,
+ * refresh and ID token values are persisted as {@code sha256:<hex>} digests instead of the full
+ * values. Everything else needed to rebuild the authorization (timestamps, scopes, metadata and
+ * ID token claims) is still stored. On lookup by token the presented value replaces its digest,
+ * which is all the authorization server needs to match it; the other tokens of the
+ * authorization keep their digest as placeholder value. Rows written in either mode are read
+ * correctly in both.
+ * <p>
+ * A lookup by token type only decodes the attribute and metadata blobs that flows presenting
+ * that type read. The others stay encoded under {@link #ENCODED_KEY} and are merged back on save,
+ * while each token's invalidated flag comes from its own column so that
+ * {@code Token#isActive()} is right without decoding.
+ */
 @Component
 public class JpaOAuth2AuthorizationService implements OAuth2AuthorizationService {
 
+  /**
+   * Reserved key holding a still-encoded attribute or metadata map.
+   */
+  static final String ENCODED_KEY = "com.hjusic.auth.encoded";
+
+  /**
+   * Token types used as tag values; anything else is recorded as {@code other}.
+   */
+  private static final Set<String> TOKEN_TYPES = Set.of(
+      OAuth2ParameterNames.STATE,
+      OAuth2ParameterNames.CODE,
+      OAuth2TokenType.ACCESS_TOKEN.getValue(),
+      OAuth2TokenType.REFRESH_TOKEN.getValue(),
+      OidcParameterNames.ID_TOKEN);
+
   private final OAuth2AuthorizationJpaRepository authorizationRepository;
+  private final OAuth2AuthorizationTokenIndex tokenIndex;
   private final RegisteredClientRepository registeredClientRepository;
-  private final ObjectMapper objectMapper;
+  private final AuthorizationAttributeCodec attributeCodec;
+  private final boolean storeTokenDigests;
+  private final MeterRegistry meterRegistry;
+  private final Map<String, Timer> timers = new ConcurrentHashMap<>();
 
   public JpaOAuth2AuthorizationService(OAuth2AuthorizationJpaRepository authorizationRepository,
-      RegisteredClientRepository registeredClientRepository, @Qualifier("oauth2ObjectMapper") ObjectMapper objectMapper) {
+      OAuth2AuthorizationTokenIndex tokenIndex,
+      RegisteredClientRepository registeredClientRepository, AuthorizationAttributeCodec attributeCodec,
+      @Value("${auth.authorization.store-token-digests:false}") boolean storeTokenDigests,
+      MeterRegistry meterRegistry) {
     this.authorizationRepository = authorizationRepository;
+    this.tokenIndex = tokenIndex;
     this.registeredClientRepository = registeredClientRepository;
-    this.objectMapper = objectMapper;
+    this.attributeCodec = attributeCodec;
+    this.storeTokenDigests = storeTokenDigests;
+    this.meterRegistry = meterRegistry;
   }
 
   @Override
   @Transactional(propagation = Propagation.REQUIRES_NEW)
   public void save(OAuth2Authorization authorization) {
-    var entity = toEntity(authorization);
-    authorizationRepository.save(entity);
+    timer("save", "all").record(() -> {
+      var entity = toEntity(authorization);
+      authorizationRepository.save(entity);
+      tokenIndex.index(entity);
+    });
   }
 
   @Override
   @Transactional(propagation = Propagation.REQUIRES_NEW)
   public void remove(OAuth2Authorization authorization) {
-    authorizationRepository.deleteById(authorization.getId());
+    timer("remove", "all").record(() -> authorizationRepository.deleteById(authorization.getId()));
   }
 
   @Override
   @Transactional(readOnly = true)
   public OAuth2Authorization findById(String id) {
-    return authorizationRepository.findById(id)
-        .map(this::toAuthorization)
-        .orElse(null);
+    return timer("find_by_id", "all").record(() -> authorizationRepository.findById(id)
+        .map(entity -> toAuthorization(entity, null, EnumSet.allOf(Part.class)))
+        .orElse(null));
   }
 
   @Override
   @Transactional(readOnly = true)
   public OAuth2Authorization findByToken(String token, OAuth2TokenType tokenType) {
-    Optional<OAuth2AuthorizationEntity> result;
+    var type = tokenType != null ? tokenType.getValue() : null;
+    return timer("find_by_token", tokenTypeTag(type)).record(() -> tokenIndex.find(token, type)
+        .map(entity -> toAuthorization(entity, token, partsReadFor(tokenType)))
+        .orElse(null));
+  }
 
+  /**
+   * Save and find by id handle every token of an authorization at once, so only lookups by token
+   * carry a specific token type.
+   */
+  private Timer timer(String operation, String tokenType) {
+    return timers.computeIfAbsent(operation + ":" + tokenType,
+        key -> Timer.builder("auth.authorization.store")
+            .description("Time spent reading and writing authorizations, mapping included")
+            .tag("operation", operation)
+            .tag("token_type", tokenType)
+            .register(meterRegistry));
+  }
+
+  private static String tokenTypeTag(String tokenType) {
     if (tokenType == null) {
-      result = authorizationRepository.findByAnyToken(token);
-    } else if (OAuth2ParameterNames.STATE.equals(tokenType.getValue())) {
-      result = authorizationRepository.findByState(token);
-    } else if (OAuth2ParameterNames.CODE.equals(tokenType.getValue())) {
-      result = authorizationRepository.findByAuthorizationCodeValue(token);
-    } else if (OAuth2TokenType.ACCESS_TOKEN.equals(tokenType)) {
-      result = authorizationRepository.findByAccessTokenValue(token);
-    } else if (OAuth2TokenType.REFRESH_TOKEN.equals(tokenType)) {
-      result = authorizationRepository.findByRefreshTokenValue(token);
-    } else {
-      result = Optional.empty();
+      return "any";
     }
-
-    return result.map(this::toAuthorization).orElse(null);
+    return TOKEN_TYPES.contains(tokenType) ? tokenType : "other";
   }
 
-  private OAuth2AuthorizationEntity toEntity(OAuth2Authorization authorization) {
+  // Package-private, like the mapping below, so the benchmarks can measure it without a database
+  OAuth2AuthorizationEntity toEntity(OAuth2Authorization authorization) {
     var builder = OAuth2AuthorizationEntity.builder()
         .id(authorization.getId())
         .registeredClientId(authorization.getRegisteredClientId())
@@ -87,24 +147,27 @@ public class JpaOAuth2AuthorizationService implements OAuth2AuthorizationService
         .authorizationGrantType(authorization.getAuthorizationGrantType().getValue())
         .authorizedScopes(StringUtils.collectionToDelimitedString(authorization.getAuthorizedScopes(), ","))
         .attributes(writeMap(authorization.getAttributes()))
-        .state(authorization.getAttribute(OAuth2ParameterNames.STATE));
+        .state(authorization.getAttribute(OAuth2ParameterNames.STATE))
+        .updatedAt(Instant.now());
 
     var authorizationCode = authorization.getToken(OAuth2AuthorizationCode.class);
     if (authorizationCode != null) {
       builder
-          .authorizationCodeValue(authorizationCode.getToken().getTokenValue())
+          .authorizationCodeValue(storedValue(authorizationCode.getToken().getTokenValue()))
           .authorizationCodeIssuedAt(authorizationCode.getToken().getIssuedAt())
           .authorizationCodeExpiresAt(authorizationCode.getToken().getExpiresAt())
-          .authorizationCodeMetadata(writeMap(authorizationCode.getMetadata()));
+          .authorizationCodeMetadata(writeMap(authorizationCode.getMetadata()))
+          .authorizationCodeInvalidated(authorizationCode.isInvalidated());
     }
 
     var accessToken = authorization.getToken(OAuth2AccessToken.class);
     if (accessToken != null) {
       builder
-          .accessTokenValue(accessToken.getToken().getTokenValue())
+          .accessTokenValue(storedValue(accessToken.getToken().getTokenValue()))
           .accessTokenIssuedAt(accessToken.getToken().getIssuedAt())
           .accessTokenExpiresAt(accessToken.getToken().getExpiresAt())
           .accessTokenMetadata(writeMap(accessToken.getMetadata()))
+          .accessTokenInvalidated(accessToken.isInvalidated())
           .accessTokenType(accessToken.getToken().getTokenType().getValue())
           .accessTokenScopes(StringUtils.collectionToDelimitedString(accessToken.getToken().getScopes(), ","));
     }
@@ -112,26 +175,38 @@ public class JpaOAuth2AuthorizationService implements OAuth2AuthorizationService
     var refreshToken = authorization.getToken(OAuth2RefreshToken.class);
     if (refreshToken != null) {
       builder
-          .refreshTokenValue(refreshToken.getToken().getTokenValue())
+          .refreshTokenValue(storedValue(refreshToken.getToken().getTokenValue()))
           .refreshTokenIssuedAt(refreshToken.getToken().getIssuedAt())
           .refreshTokenExpiresAt(refreshToken.getToken().getExpiresAt())
-          .refreshTokenMetadata(writeMap(refreshToken.getMetadata()));
+          .refreshTokenMetadata(writeMap(refreshToken.getMetadata()))
+          .refreshTokenInvalidated(refreshToken.isInvalidated());
     }
 
     var oidcIdToken = authorization.getToken(OidcIdToken.class);
     if (oidcIdToken != null) {
       builder
-          .oidcIdTokenValue(oidcIdToken.getToken().getTokenValue())
+          .oidcIdTokenValue(storedValue(oidcIdToken.getToken().getTokenValue()))
           .oidcIdTokenIssuedAt(oidcIdToken.getToken().getIssuedAt())
           .oidcIdTokenExpiresAt(oidcIdToken.getToken().getExpiresAt())
           .oidcIdTokenMetadata(writeMap(oidcIdToken.getMetadata()))
-          .oidcIdTokenClaims(writeMap(oidcIdToken.getClaims()));
+          .oidcIdTokenClaims(writeMap(oidcIdToken.getClaims()))
+          .oidcIdTokenInvalidated(oidcIdToken.isInvalidated());
     }
 
-    return builder.build();
+    var entity = builder.build();
+    entity.setLatestExpiresAt(Stream.of(
+            entity.getAuthorizationCodeExpiresAt(),
+            entity.getAccessTokenExpiresAt(),
+            entity.getRefreshTokenExpiresAt(),
+            entity.getOidcIdTokenExpiresAt())
+        .filter(Objects::nonNull)
+        .max(Comparator.naturalOrder())
+        .orElse(null));
+    return entity;
   }
 
-  private OAuth2Authorization toAuthorization(OAuth2AuthorizationEntity entity) {
+  OAuth2Authorization toAuthorization(OAuth2AuthorizationEntity entity, String presentedToken,
+      Set<Part> decoded) {
     RegisteredClient registeredClient = registeredClientRepository.findById(entity.getRegisteredClientId());
     if (registeredClient == null) {
       throw new IllegalStateException("Registered client not found: " + entity.getRegisteredClientId());
@@ -142,7 +217,9 @@ public class JpaOAuth2AuthorizationService implements OAuth2AuthorizationService
         .principalName(entity.getPrincipalName())
         .authorizationGrantType(new AuthorizationGrantType(entity.getAuthorizationGrantType()))
         .authorizedScopes(StringUtils.commaDelimitedListToSet(entity.getAuthorizedScopes()))
-        .attributes(attrs -> attrs.putAll(readMap(entity.getAttributes())));
+        .attributes(attrs -> attrs.putAll(decoded.contains(Part.ATTRIBUTES)
+            ? readMap(entity.getAttributes())
+            : encoded(entity.getAttributes(), null)));
 
     if (entity.getState() != null) {
       builder.attribute(OAuth2ParameterNames.STATE, entity.getState());
@@ -150,62 +227,135 @@ public class JpaOAuth2AuthorizationService implements OAuth2AuthorizationService
 
     if (entity.getAuthorizationCodeValue() != null) {
       var authorizationCode = new OAuth2AuthorizationCode(
-          entity.getAuthorizationCodeValue(),
+          tokenValue(entity.getAuthorizationCodeValue(), presentedToken),
           entity.getAuthorizationCodeIssuedAt(),
           entity.getAuthorizationCodeExpiresAt()
       );
-      builder.token(authorizationCode, metadata -> metadata.putAll(readMap(entity.getAuthorizationCodeMetadata())));
+      builder.token(authorizationCode, metadata -> metadata.putAll(readMetadata(
+          entity.getAuthorizationCodeMetadata(), entity.getAuthorizationCodeInvalidated(),
+          decoded.contains(Part.CODE))));
     }
 
     if (entity.getAccessTokenValue() != null) {
       var accessToken = new OAuth2AccessToken(
           OAuth2AccessToken.TokenType.BEARER,
-          entity.getAccessTokenValue(),
+          tokenValue(entity.getAccessTokenValue(), presentedToken),
           entity.getAccessTokenIssuedAt(),
           entity.getAccessTokenExpiresAt(),
           StringUtils.commaDelimitedListToSet(entity.getAccessTokenScopes())
       );
-      builder.token(accessToken, metadata -> metadata.putAll(readMap(entity.getAccessTokenMetadata())));
+      builder.token(accessToken, metadata -> metadata.putAll(readMetadata(
+          entity.getAccessTokenMetadata(), entity.getAccessTokenInvalidated(),
+          decoded.contains(Part.ACCESS_TOKEN))));
     }
 
     if (entity.getRefreshTokenValue() != null) {
       var refreshToken = new OAuth2RefreshToken(
-          entity.getRefreshTokenValue(),
+          tokenValue(entity.getRefreshTokenValue(), presentedToken),
           entity.getRefreshTokenIssuedAt(),
           entity.getRefreshTokenExpiresAt()
       );
-      builder.token(refreshToken, metadata -> metadata.putAll(readMap(entity.getRefreshTokenMetadata())));
+      builder.token(refreshToken, metadata -> metadata.putAll(readMetadata(
+          entity.getRefreshTokenMetadata(), entity.getRefreshTokenInvalidated(),
+          decoded.contains(Part.REFRESH_TOKEN))));
     }
 
     if (entity.getOidcIdTokenValue() != null) {
       var idToken = new OidcIdToken(
-          entity.getOidcIdTokenValue(),
+          tokenValue(entity.getOidcIdTokenValue(), presentedToken),
           entity.getOidcIdTokenIssuedAt(),
           entity.getOidcIdTokenExpiresAt(),
           readMap(entity.getOidcIdTokenClaims())
       );
-      builder.token(idToken, metadata -> metadata.putAll(readMap(entity.getOidcIdTokenMetadata())));
+      builder.token(idToken, metadata -> metadata.putAll(readMetadata(
+          entity.getOidcIdTokenMetadata(), entity.getOidcIdTokenInvalidated(),
+          decoded.contains(Part.ID_TOKEN))));
     }
 
     return builder.build();
   }
 
-  private String writeMap(Map<String, Object> map) {
-    try {
-      return objectMapper.writeValueAsString(map);
-    } catch (Exception e) {
-      throw new IllegalArgumentException("Error writing map", e);
+  private String storedValue(String tokenValue) {
+    return storeTokenDigests ? OAuth2AuthorizationTokenIndex.digest(tokenValue) : tokenValue;
+  }
+
+  /**
+   * Resolve a stored token value, putting the presented token back in place of its digest.
+   */
+  private static String tokenValue(String storedValue, String presentedToken) {
+    if (presentedToken != null && OAuth2AuthorizationTokenIndex.isDigest(storedValue)
+        && storedValue.equals(OAuth2AuthorizationTokenIndex.digest(presentedToken))) {
+      return presentedToken;
+    }
+    return storedValue;
+  }
+
+  /**
+   * The blobs a flow presenting the given token type actually reads. The ID token claims are
+   * always decoded, since an {@link OidcIdToken} cannot be built without them.
+   */
+  static Set<Part> partsReadFor(OAuth2TokenType tokenType) {
+    if (tokenType == null) {
+      return EnumSet.allOf(Part.class);
+    }
+    return switch (tokenType.getValue()) {
+      case OAuth2ParameterNames.STATE -> EnumSet.of(Part.ATTRIBUTES);
+      case OAuth2ParameterNames.CODE -> EnumSet.of(Part.ATTRIBUTES, Part.CODE);
+      case OAuth2ParameterNames.ACCESS_TOKEN -> EnumSet.of(Part.ACCESS_TOKEN);
+      case OAuth2ParameterNames.REFRESH_TOKEN -> EnumSet.of(Part.ATTRIBUTES, Part.REFRESH_TOKEN);
+      case OidcParameterNames.ID_TOKEN -> EnumSet.of(Part.ATTRIBUTES, Part.ID_TOKEN);
+      default -> EnumSet.allOf(Part.class);
+    };
+  }
+
+  /**
+   * Token metadata, decoded or left encoded. Rows written before the invalidated columns existed
+   * are always decoded, since their invalidated flag is only known from the metadata.
+   */
+  private Map<String, Object> readMetadata(String value, Boolean invalidated, boolean decode) {
+    if (decode || invalidated == null) {
+      return readMap(value);
     }
+    return encoded(value, invalidated);
   }
 
-  private Map<String, Object> readMap(String json) {
-    try {
-      if (!StringUtils.hasText(json)) {
-        return Map.of();
+  private static Map<String, Object> encoded(String value, Boolean invalidated) {
+    Map<String, Object> map = new HashMap<>();
+    if (StringUtils.hasText(value)) {
+      map.put(ENCODED_KEY, value);
+    }
+    if (Boolean.TRUE.equals(invalidated)) {
+      map.put(OAuth2Authorization.Token.INVALIDATED_METADATA_NAME, true);
+    }
+    return map;
+  }
+
+  /**
+   * Encode a map, first merging in the still-encoded original if it was never decoded. An
+   * original that nothing was added to or changed in is written back exactly as it was read.
+   */
+  private String writeMap(Map<String, Object> map) {
+    if (map.get(ENCODED_KEY) instanceof String encoded) {
+      if (map.size() == 1) {
+        return encoded;
       }
-      return objectMapper.readValue(json, new TypeReference<>() {});
-    } catch (Exception e) {
-      throw new IllegalArgumentException("Error reading map", e);
+      var original = readMap(encoded);
+      Map<String, Object> merged = new HashMap<>(original);
+      map.forEach((key, value) -> {
+        if (!ENCODED_KEY.equals(key)) {
+          merged.put(key, value);
+        }
+      });
+      return merged.equals(original) ? encoded : attributeCodec.encode(merged);
     }
+    return attributeCodec.encode(map);
+  }
+
+  private Map<String, Object> readMap(String value) {
+    return attributeCodec.decode(value);
+  }
+
+  enum Part {
+    ATTRIBUTES, CODE, ACCESS_TOKEN, REFRESH_TOKEN, ID_TOKEN
   }
-}
\ No newline at end of file
+}
@@ -1,7 +1,13 @@
 package com.hjusic.auth.domain.oidc.infrastructure;
 
-import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hjusic.auth.domain.oidc.model.events.OidcClientEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.oauth2.core.AuthorizationGrantType;
 import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
 import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
@@ -9,15 +15,39 @@ import org.springframework.security.oauth2.server.authorization.client.Registere
 import org.springframework.security.oauth2.server.authorization.settings.ClientSettings;
 import org.springframework.security.oauth2.server.authorization.settings.TokenSettings;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.time.Duration;
 
+/**
+ * Registered clients are immutable, so they are cached by id and by client id. Misses are not
+ * cached, and every {@link OidcClientEvent} evicts the affected client after
+ * {@link OidcClientAppRepository#trigger} has written it.
+ */
 @Component
-@RequiredArgsConstructor
+@Log4j2
 public class JpaRegisteredClientRepository implements RegisteredClientRepository {
 
   private final OidcClientDatabaseRepository oidcClientJpaRepository;
-  private final PasswordEncoder passwordEncoder;
+  private final Cache<String, RegisteredClient> byId;
+  private final Cache<String, RegisteredClient> byClientId;
+  private final Timer byIdTimer;
+  private final Timer byClientIdTimer;
+
+  public JpaRegisteredClientRepository(
+      OidcClientDatabaseRepository oidcClientJpaRepository,
+      MeterRegistry meterRegistry,
+      @Value("${auth.client-cache.maximum-size:1000}") long maximumSize,
+      @Value("${auth.client-cache.ttl:10m}") Duration ttl
+  ) {
+    this.oidcClientJpaRepository = oidcClientJpaRepository;
+    this.byId = buildCache(maximumSize, ttl);
+    this.byClientId = buildCache(maximumSize, ttl);
+    CaffeineCacheMetrics.monitor(meterRegistry, byId, "registered-clients-by-id");
+    CaffeineCacheMetrics.monitor(meterRegistry, byClientId, "registered-clients-by-client-id");
+    this.byIdTimer = lookupTimer(meterRegistry, "id");
+    this.byClientIdTimer = lookupTimer(meterRegistry, "client_id");
+  }
 
   @Override
   public void save(RegisteredClient registeredClient) {
@@ -27,16 +57,52 @@ public class JpaRegisteredClientRepository implements RegisteredClientRepository
 
   @Override
   public RegisteredClient findById(String id) {
-    return oidcClientJpaRepository.findById(id)
+    return byIdTimer.record(() -> byId.get(id, key -> oidcClientJpaRepository.findById(key)
         .map(this::toRegisteredClient)
-        .orElse(null);
+        .orElse(null)));
   }
 
   @Override
   public RegisteredClient findByClientId(String clientId) {
-    return oidcClientJpaRepository.findByClientId(clientId)
-        .map(this::toRegisteredClient)
-        .orElse(null);
+    return byClientIdTimer.record(() -> byClientId.get(clientId,
+        key -> oidcClientJpaRepository.findByClientId(key)
+            .map(this::toRegisteredClient)
+            .orElse(null)));
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  void onClientChanged(OidcClientEvent event) {
+    var client = event.getClient();
+    if (client == null || client.getId() == null) {
+      return;
+    }
+
+    // The client id may have changed, so drop every entry that points at this registration
+    var id = client.getId().getValue().toString();
+    byId.invalidate(id);
+    byClientId.asMap().values().removeIf(registeredClient -> registeredClient.getId().equals(id));
+    if (client.getClientId() != null) {
+      byClientId.invalidate(client.getClientId().getValue());
+    }
+    log.debug("Evicted cached registered client {}", id);
+  }
+
+  /**
+   * Lookup latency, cache hits included; the cache metrics tell hits and database loads apart.
+   */
+  private static Timer lookupTimer(MeterRegistry meterRegistry, String by) {
+    return Timer.builder("auth.clients.lookup")
+        .description("Time spent looking up registered clients")
+        .tag("by", by)
+        .register(meterRegistry);
+  }
+
+  private static Cache<String, RegisteredClient> buildCache(long maximumSize, Duration ttl) {
+    return Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(ttl)
+        .recordStats()
+        .build();
   }
 
   private RegisteredClient toRegisteredClient(OidcClientDatabaseEntity entity) {
@@ -0,0 +1,39 @@
+package com.hjusic.auth.domain.oidc.infrastructure;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Map;
+import org.springframework.util.StringUtils;
+
+/**
+ * Default-typed JSON, the format every authorization row was written in before the binary codec.
+ */
+public class JsonAuthorizationAttributeCodec implements AuthorizationAttributeCodec {
+
+  private final ObjectMapper objectMapper;
+
+  public JsonAuthorizationAttributeCodec(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+  }
+
+  @Override
+  public String encode(Map<String, Object> map) {
+    try {
+      return objectMapper.writeValueAsString(map);
+    } catch (Exception e) {
+      throw new IllegalArgumentException("Error writing map", e);
+    }
+  }
+
+  @Override
+  public Map<String, Object> decode(String value) {
+    try {
+      if (!StringUtils.hasText(value)) {
+        return Map.of();
+      }
+      return objectMapper.readValue(value, new TypeReference<>() {});
+    } catch (Exception e) {
+      throw new IllegalArgumentException("Error reading map", e);
+    }
+  }
+}
@@ -1,8 +1,14 @@
 package com.hjusic.auth.domain.oidc.infrastructure;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -13,4 +19,12 @@ public interface OAuth2AuthorizationConsentJpaRepository
       String registeredClientId, String principalName);
 
   void deleteByRegisteredClientIdAndPrincipalName(String registeredClientId, String principalName);
-}
\ No newline at end of file
+
+  @Query("SELECT DISTINCT c.registeredClientId FROM OAuth2AuthorizationConsentEntity c"
+      + " WHERE NOT EXISTS (SELECT o FROM OidcClientDatabaseEntity o WHERE o.id = c.registeredClientId)")
+  List<String> findOrphanedRegisteredClientIds(Pageable pageable);
+
+  @Modifying
+  @Query("DELETE FROM OAuth2AuthorizationConsentEntity c WHERE c.registeredClientId IN :registeredClientIds")
+  int deleteByRegisteredClientIdIn(@Param("registeredClientIds") Collection<String> registeredClientIds);
+}
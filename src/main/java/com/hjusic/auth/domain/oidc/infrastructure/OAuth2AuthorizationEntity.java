@@ -6,7 +6,11 @@ import lombok.*;
 import java.time.Instant;
 
 @Entity
-@Table(name = "oauth2_authorizations")
+@Table(
+    name = "oauth2_authorizations",
+    indexes = @Index(name = "idx_oauth2_authorizations_latest_expires_at",
+        columnList = "latest_expires_at, updated_at")
+)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -37,6 +41,19 @@ public class OAuth2AuthorizationEntity {
   @Column(name = "state", length = 500)
   private String state;
 
+  /**
+   * When the authorization was last saved; lets the purge find flows that never got a token.
+   */
+  @Column(name = "updated_at")
+  private Instant updatedAt;
+
+  /**
+   * Latest expiry across all tokens, kept in its own indexed column so the purge does not scan
+   * the table; null while the authorization holds no token.
+   */
+  @Column(name = "latest_expires_at")
+  private Instant latestExpiresAt;
+
   @Column(name = "authorization_code_value")
   private String authorizationCodeValue;
 
@@ -50,6 +67,9 @@ public class OAuth2AuthorizationEntity {
   @Column(name = "authorization_code_metadata", columnDefinition = "TEXT")
   private String authorizationCodeMetadata;
 
+  @Column(name = "authorization_code_invalidated")
+  private Boolean authorizationCodeInvalidated;
+
   @Lob
   @Column(name = "access_token_value", columnDefinition = "TEXT")
   private String accessTokenValue;
@@ -70,6 +90,9 @@ public class OAuth2AuthorizationEntity {
   @Column(name = "access_token_scopes", length = 1000)
   private String accessTokenScopes;
 
+  @Column(name = "access_token_invalidated")
+  private Boolean accessTokenInvalidated;
+
   @Lob
   @Column(name = "refresh_token_value", columnDefinition = "TEXT")
   private String refreshTokenValue;
@@ -84,6 +107,9 @@ public class OAuth2AuthorizationEntity {
   @Column(name = "refresh_token_metadata", columnDefinition = "TEXT")
   private String refreshTokenMetadata;
 
+  @Column(name = "refresh_token_invalidated")
+  private Boolean refreshTokenInvalidated;
+
   @Lob
   @Column(name = "oidc_id_token_value", columnDefinition = "TEXT")
   private String oidcIdTokenValue;
@@ -102,6 +128,9 @@ public class OAuth2AuthorizationEntity {
   @Column(name = "oidc_id_token_claims", columnDefinition = "TEXT")
   private String oidcIdTokenClaims;
 
+  @Column(name = "oidc_id_token_invalidated")
+  private Boolean oidcIdTokenInvalidated;
+
   @Lob
   @Column(name = "user_code_value", columnDefinition = "TEXT")
   private String userCodeValue;
@@ -1,15 +1,27 @@
 package com.hjusic.auth.domain.oidc.infrastructure;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface OAuth2AuthorizationJpaRepository extends JpaRepository<OAuth2AuthorizationEntity, String> {
 
+  /**
+   * Latest expiry across all tokens of an authorization; null when it holds no token. Only used
+   * to fill in {@code latestExpiresAt} for rows saved before that column existed.
+   */
+  String LATEST_EXPIRY = "greatest(a.authorizationCodeExpiresAt, a.accessTokenExpiresAt,"
+      + " a.refreshTokenExpiresAt, a.oidcIdTokenExpiresAt, a.userCodeExpiresAt, a.deviceCodeExpiresAt)";
+
   Optional<OAuth2AuthorizationEntity> findByState(String state);
 
   Optional<OAuth2AuthorizationEntity> findByAuthorizationCodeValue(String authorizationCode);
@@ -24,12 +36,51 @@ public interface OAuth2AuthorizationJpaRepository extends JpaRepository<OAuth2Au
 
   Optional<OAuth2AuthorizationEntity> findByDeviceCodeValue(String deviceCode);
 
-  @Query("SELECT a FROM OAuth2AuthorizationEntity a WHERE a.state = :token" +
-      " OR a.authorizationCodeValue = :token" +
-      " OR a.accessTokenValue = :token" +
-      " OR a.refreshTokenValue = :token" +
-      " OR a.oidcIdTokenValue = :token" +
-      " OR a.userCodeValue = :token" +
-      " OR a.deviceCodeValue = :token")
+  /**
+   * Token column lookup for authorizations the token index does not cover yet.
+   */
+  @Query("SELECT a FROM OAuth2AuthorizationEntity a WHERE a.state = :token"
+      + " OR a.authorizationCodeValue = :token"
+      + " OR a.accessTokenValue = :token"
+      + " OR a.refreshTokenValue = :token"
+      + " OR a.oidcIdTokenValue = :token"
+      + " OR a.userCodeValue = :token"
+      + " OR a.deviceCodeValue = :token")
   Optional<OAuth2AuthorizationEntity> findByAnyToken(@Param("token") String token);
-}
\ No newline at end of file
+
+  /**
+   * Authorizations whose tokens all expired before {@code cutoff}, and authorizations that never
+   * got a token, such as a flow that stopped at the consent page, last saved before
+   * {@code unfinishedCutoff}. Both branches are served by the latest expiry index.
+   */
+  @Query("SELECT a.id FROM OAuth2AuthorizationEntity a WHERE a.latestExpiresAt < :cutoff"
+      + " OR (a.latestExpiresAt IS NULL AND a.updatedAt < :unfinishedCutoff)")
+  List<String> findIdsPurgeable(
+      @Param("cutoff") Instant cutoff,
+      @Param("unfinishedCutoff") Instant unfinishedCutoff,
+      Pageable pageable);
+
+  @Query("SELECT min(a.latestExpiresAt) FROM OAuth2AuthorizationEntity a"
+      + " WHERE a.latestExpiresAt < :cutoff")
+  Optional<Instant> findOldestExpiryBefore(@Param("cutoff") Instant cutoff);
+
+  /**
+   * Rows saved before the latest expiry and last-saved columns existed.
+   */
+  @Query("SELECT a.id FROM OAuth2AuthorizationEntity a"
+      + " WHERE a.latestExpiresAt IS NULL AND a.updatedAt IS NULL")
+  List<String> findIdsWithoutLatestExpiry(Pageable pageable);
+
+  /**
+   * Fill in the latest expiry of rows saved before the column existed. Their last save is
+   * unknown, so they count as saved at {@code savedAt}.
+   */
+  @Modifying
+  @Query("UPDATE OAuth2AuthorizationEntity a SET a.latestExpiresAt = " + LATEST_EXPIRY + ","
+      + " a.updatedAt = :savedAt WHERE a.id IN :ids")
+  int fillLatestExpiry(@Param("ids") Collection<String> ids, @Param("savedAt") Instant savedAt);
+
+  @Modifying
+  @Query("DELETE FROM OAuth2AuthorizationEntity a WHERE a.id IN :ids")
+  int deleteByIdIn(@Param("ids") Collection<String> ids);
+}
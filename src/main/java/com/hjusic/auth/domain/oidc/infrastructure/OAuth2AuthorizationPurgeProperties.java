@@ -0,0 +1,26 @@
+package com.hjusic.auth.domain.oidc.infrastructure;
+
+import com.hjusic.auth.scheduling.infrastructure.BatchPurgeProperties;
+import java.time.Duration;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+@Component
+@ConfigurationProperties(prefix = "auth.purge")
+public class OAuth2AuthorizationPurgeProperties extends BatchPurgeProperties {
+
+  /**
+   * Rows are purged only once every token expired at least this long ago.
+   */
+  private Duration retention = Duration.ofHours(1);
+
+  /**
+   * Authorizations that never got a token, such as a login abandoned at the consent page, are
+   * purged once they were last saved this long ago.
+   */
+  private Duration unfinishedMaxAge = Duration.ofDays(1);
+}
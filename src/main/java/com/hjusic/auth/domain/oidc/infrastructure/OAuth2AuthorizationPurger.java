@@ -0,0 +1,99 @@
+package com.hjusic.auth.domain.oidc.infrastructure;
+
+import com.hjusic.auth.scheduling.infrastructure.LeasedBatchPurge;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Deletes authorizations whose tokens have all expired, authorizations abandoned before any
+ * token was issued, and consents of clients that no longer exist. Runs through
+ * {@link LeasedBatchPurge}. Token lookup rows go with their authorization through the cascading
+ * foreign key.
+ */
+@Component
+@Log4j2
+public class OAuth2AuthorizationPurger {
+
+  static final String LEASE_NAME = "oauth2-authorization-purge";
+
+  private final OAuth2AuthorizationJpaRepository authorizationRepository;
+  private final OAuth2AuthorizationConsentJpaRepository consentRepository;
+  private final OAuth2AuthorizationPurgeProperties properties;
+  private final LeasedBatchPurge batchPurge;
+
+  private final Counter purgedAuthorizations;
+  private final Counter purgedConsents;
+  private final AtomicLong lagSeconds = new AtomicLong();
+
+  public OAuth2AuthorizationPurger(
+      OAuth2AuthorizationJpaRepository authorizationRepository,
+      OAuth2AuthorizationConsentJpaRepository consentRepository,
+      OAuth2AuthorizationPurgeProperties properties,
+      LeasedBatchPurge batchPurge,
+      MeterRegistry meterRegistry
+  ) {
+    this.authorizationRepository = authorizationRepository;
+    this.consentRepository = consentRepository;
+    this.properties = properties;
+    this.batchPurge = batchPurge;
+    this.purgedAuthorizations = Counter.builder("auth.purge.authorizations")
+        .description("Expired OAuth2 authorizations deleted")
+        .register(meterRegistry);
+    this.purgedConsents = Counter.builder("auth.purge.consents")
+        .description("Consents of deleted clients removed")
+        .register(meterRegistry);
+    Gauge.builder("auth.purge.lag", lagSeconds, AtomicLong::get)
+        .description("Seconds since the oldest purgeable authorization became purgeable")
+        .baseUnit("seconds")
+        .register(meterRegistry);
+  }
+
+  @Scheduled(
+      initialDelayString = "${auth.purge.initial-delay:PT1M}",
+      fixedDelayString = "${auth.purge.interval:PT5M}"
+  )
+  public void purge() {
+    batchPurge.run(LEASE_NAME, properties, this::purgeBatches);
+  }
+
+  void purgeBatches() {
+    var now = Instant.now();
+    var cutoff = now.minus(properties.getRetention());
+    var unfinishedCutoff = now.minus(properties.getUnfinishedMaxAge());
+
+    // Rows saved before the latest expiry column existed are invisible to the purge query until
+    // it is filled in; with no known last save, token-less ones count as long abandoned
+    batchPurge.inBatches(properties, page -> {
+      var ids = authorizationRepository.findIdsWithoutLatestExpiry(page);
+      return ids.isEmpty() ? 0 : authorizationRepository.fillLatestExpiry(ids, Instant.EPOCH);
+    });
+
+    long authorizations = batchPurge.inBatches(properties, page -> {
+      var ids = authorizationRepository.findIdsPurgeable(cutoff, unfinishedCutoff, page);
+      return ids.isEmpty() ? 0 : authorizationRepository.deleteByIdIn(ids);
+    });
+    purgedAuthorizations.increment(authorizations);
+
+    long consents = batchPurge.inBatches(properties, page -> {
+      var clientIds = consentRepository.findOrphanedRegisteredClientIds(page);
+      return clientIds.isEmpty() ? 0 : consentRepository.deleteByRegisteredClientIdIn(clientIds);
+    });
+    purgedConsents.increment(consents);
+
+    lagSeconds.set(authorizationRepository.findOldestExpiryBefore(cutoff)
+        .map(oldest -> Duration.between(oldest, cutoff).toSeconds())
+        .orElse(0L));
+
+    if (authorizations > 0 || consents > 0) {
+      log.info("Purged {} expired authorizations and {} orphaned consents", authorizations,
+          consents);
+    }
+  }
+}
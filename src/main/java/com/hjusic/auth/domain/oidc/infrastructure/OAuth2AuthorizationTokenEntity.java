@@ -0,0 +1,39 @@
+package com.hjusic.auth.domain.oidc.infrastructure;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+/**
+ * Lookup row for one token of an authorization, keyed by the SHA-256 of the token value so that
+ * every find-by-token is a point lookup on a fixed-length indexed column.
+ */
+@Entity
+@Table(
+    name = "oauth2_authorization_tokens",
+    uniqueConstraints = @UniqueConstraint(name = "uk_oauth2_authorization_tokens_hash", columnNames = "token_hash"),
+    indexes = @Index(name = "idx_oauth2_authorization_tokens_authorization", columnList = "authorization_id")
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OAuth2AuthorizationTokenEntity {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "token_hash", length = 64, nullable = false)
+  private String tokenHash;
+
+  @Column(name = "token_type", length = 32, nullable = false)
+  private String tokenType;
+
+  @ManyToOne(fetch = FetchType.LAZY, optional = false)
+  @JoinColumn(name = "authorization_id", nullable = false)
+  @OnDelete(action = OnDeleteAction.CASCADE)
+  private OAuth2AuthorizationEntity authorization;
+}
@@ -0,0 +1,196 @@
+package com.hjusic.auth.domain.oidc.infrastructure;
+
+import com.hjusic.auth.scheduling.infrastructure.DatabaseLease;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+import org.springframework.security.oauth2.core.oidc.endpoint.OidcParameterNames;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Maintains the token-hash lookup table for authorizations. Token types use the same values as
+ * {@code OAuth2TokenType} and {@link OAuth2ParameterNames}, so a lookup with a type hint needs no
+ * mapping.
+ * <p>
+ * Authorizations written before the table existed, or by nodes still on an older version during a
+ * rolling deploy, have no lookup rows until a backfill run indexes them. Until then a lookup that
+ * misses the table falls back to the token columns, as long as
+ * {@code auth.authorization.legacy-token-lookup} is on. Turn it off once every node indexes its
+ * tokens and a backfill has run: it also stops the periodic backfill.
+ */
+@Component
+@Log4j2
+public class OAuth2AuthorizationTokenIndex {
+
+  static final String BACKFILL_LEASE_NAME = "oauth2-authorization-token-backfill";
+  static final Duration BACKFILL_LEASE_DURATION = Duration.ofMinutes(5);
+  static final int BACKFILL_BATCH_SIZE = 500;
+  private static final String DIGEST_PREFIX = "sha256:";
+
+  private final OAuth2AuthorizationTokenJpaRepository tokenRepository;
+  private final OAuth2AuthorizationJpaRepository authorizationRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final DatabaseLease lease;
+  private final boolean legacyLookup;
+
+  public OAuth2AuthorizationTokenIndex(
+      OAuth2AuthorizationTokenJpaRepository tokenRepository,
+      OAuth2AuthorizationJpaRepository authorizationRepository,
+      TransactionTemplate transactionTemplate,
+      DatabaseLease lease,
+      @Value("${auth.authorization.legacy-token-lookup:true}") boolean legacyLookup
+  ) {
+    this.tokenRepository = tokenRepository;
+    this.authorizationRepository = authorizationRepository;
+    this.transactionTemplate = transactionTemplate;
+    this.lease = lease;
+    this.legacyLookup = legacyLookup;
+  }
+
+  public Optional<OAuth2AuthorizationEntity> find(String token, String tokenType) {
+    var tokenHash = hash(token);
+    var indexed = tokenType == null
+        ? tokenRepository.findAuthorizationByTokenHash(tokenHash)
+        : tokenRepository.findAuthorizationByTokenHashAndType(tokenHash, tokenType);
+    if (indexed.isPresent() || !legacyLookup) {
+      return indexed;
+    }
+    return findByTokenColumn(token, tokenType);
+  }
+
+  private Optional<OAuth2AuthorizationEntity> findByTokenColumn(String token, String tokenType) {
+    if (tokenType == null) {
+      return authorizationRepository.findByAnyToken(token);
+    }
+    return switch (tokenType) {
+      case OAuth2ParameterNames.STATE -> authorizationRepository.findByState(token);
+      case OAuth2ParameterNames.CODE -> authorizationRepository.findByAuthorizationCodeValue(token);
+      case OAuth2ParameterNames.ACCESS_TOKEN ->
+          authorizationRepository.findByAccessTokenValue(token);
+      case OAuth2ParameterNames.REFRESH_TOKEN ->
+          authorizationRepository.findByRefreshTokenValue(token);
+      case OidcParameterNames.ID_TOKEN -> authorizationRepository.findByOidcIdTokenValue(token);
+      case OAuth2ParameterNames.USER_CODE -> authorizationRepository.findByUserCodeValue(token);
+      case OAuth2ParameterNames.DEVICE_CODE -> authorizationRepository.findByDeviceCodeValue(token);
+      default -> Optional.empty();
+    };
+  }
+
+  /**
+   * Replace the lookup rows of an authorization with rows for the tokens it currently holds.
+   * Must run in the transaction that saved the authorization.
+   */
+  public void index(OAuth2AuthorizationEntity entity) {
+    tokenRepository.deleteByAuthorizationId(entity.getId());
+
+    var authorization = authorizationRepository.getReferenceById(entity.getId());
+    var rows = new ArrayList<OAuth2AuthorizationTokenEntity>();
+    add(rows, authorization, OAuth2ParameterNames.STATE, entity.getState());
+    add(rows, authorization, OAuth2ParameterNames.CODE, entity.getAuthorizationCodeValue());
+    add(rows, authorization, OAuth2ParameterNames.ACCESS_TOKEN, entity.getAccessTokenValue());
+    add(rows, authorization, OAuth2ParameterNames.REFRESH_TOKEN, entity.getRefreshTokenValue());
+    add(rows, authorization, OidcParameterNames.ID_TOKEN, entity.getOidcIdTokenValue());
+    add(rows, authorization, OAuth2ParameterNames.USER_CODE, entity.getUserCodeValue());
+    add(rows, authorization, OAuth2ParameterNames.DEVICE_CODE, entity.getDeviceCodeValue());
+
+    tokenRepository.saveAll(rows);
+  }
+
+  /**
+   * Index authorizations written before the lookup table existed. Runs on one node at a time,
+   * under a lease that is renewed after every batch.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void backfill() {
+    lease.runExclusively(BACKFILL_LEASE_NAME, BACKFILL_LEASE_DURATION, this::backfillBatches);
+  }
+
+  /**
+   * Index authorizations that older nodes wrote after the startup backfill, for as long as the
+   * legacy lookup is on.
+   */
+  @Scheduled(
+      initialDelayString = "${auth.authorization.token-backfill-interval:PT10M}",
+      fixedDelayString = "${auth.authorization.token-backfill-interval:PT10M}"
+  )
+  public void backfillLate() {
+    if (legacyLookup) {
+      backfill();
+    }
+  }
+
+  void backfillBatches() {
+    int indexed = 0;
+    String afterId = "";
+    while (true) {
+      var from = afterId;
+      List<OAuth2AuthorizationEntity> batch = transactionTemplate.execute(status -> {
+        var unindexed = tokenRepository.findUnindexedAuthorizations(
+            from, PageRequest.of(0, BACKFILL_BATCH_SIZE));
+        unindexed.forEach(this::index);
+        return unindexed;
+      });
+      indexed += batch.size();
+      if (batch.size() < BACKFILL_BATCH_SIZE
+          || !lease.renew(BACKFILL_LEASE_NAME, BACKFILL_LEASE_DURATION)) {
+        break;
+      }
+      afterId = batch.getLast().getId();
+    }
+
+    if (indexed > 0) {
+      log.info("Indexed tokens of {} existing authorizations", indexed);
+    }
+  }
+
+  /**
+   * Stored form of a token value in digest storage mode. Idempotent, so an authorization that was
+   * loaded with digest placeholders can be saved again unchanged.
+   */
+  static String digest(String token) {
+    return isDigest(token) ? token : DIGEST_PREFIX + hash(token);
+  }
+
+  static boolean isDigest(String value) {
+    return value != null && value.startsWith(DIGEST_PREFIX);
+  }
+
+  static String hash(String token) {
+    try {
+      var digest = MessageDigest.getInstance("SHA-256")
+          .digest(token.getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(digest);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+
+  private static void add(
+      List<OAuth2AuthorizationTokenEntity> rows,
+      OAuth2AuthorizationEntity authorization,
+      String tokenType,
+      String value
+  ) {
+    if (value == null) {
+      return;
+    }
+    rows.add(OAuth2AuthorizationTokenEntity.builder()
+        .tokenHash(isDigest(value) ? value.substring(DIGEST_PREFIX.length()) : hash(value))
+        .tokenType(tokenType)
+        .authorization(authorization)
+        .build());
+  }
+}
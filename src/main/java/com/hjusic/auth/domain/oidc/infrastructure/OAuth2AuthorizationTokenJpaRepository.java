@@ -0,0 +1,34 @@
+package com.hjusic.auth.domain.oidc.infrastructure;
+
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OAuth2AuthorizationTokenJpaRepository extends JpaRepository<OAuth2AuthorizationTokenEntity, Long> {
+
+  @Query("SELECT t.authorization FROM OAuth2AuthorizationTokenEntity t WHERE t.tokenHash = :tokenHash")
+  Optional<OAuth2AuthorizationEntity> findAuthorizationByTokenHash(@Param("tokenHash") String tokenHash);
+
+  @Query("SELECT t.authorization FROM OAuth2AuthorizationTokenEntity t"
+      + " WHERE t.tokenHash = :tokenHash AND t.tokenType = :tokenType")
+  Optional<OAuth2AuthorizationEntity> findAuthorizationByTokenHashAndType(
+      @Param("tokenHash") String tokenHash,
+      @Param("tokenType") String tokenType);
+
+  @Modifying
+  @Query("DELETE FROM OAuth2AuthorizationTokenEntity t WHERE t.authorization.id = :authorizationId")
+  void deleteByAuthorizationId(@Param("authorizationId") String authorizationId);
+
+  @Query("SELECT a FROM OAuth2AuthorizationEntity a WHERE a.id > :afterId AND NOT EXISTS"
+      + " (SELECT t FROM OAuth2AuthorizationTokenEntity t WHERE t.authorization = a)"
+      + " ORDER BY a.id")
+  List<OAuth2AuthorizationEntity> findUnindexedAuthorizations(
+      @Param("afterId") String afterId,
+      Pageable pageable);
+}
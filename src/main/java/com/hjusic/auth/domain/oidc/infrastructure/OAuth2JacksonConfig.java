@@ -4,11 +4,20 @@ import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.cfg.MapperConfig;
 import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.jsontype.NamedType;
+import com.fasterxml.jackson.databind.jsontype.PolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.jsontype.TypeIdResolver;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.hjusic.auth.domain.user.infrastructure.UserDatabaseEntity;
+import java.util.Collection;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
@@ -33,13 +42,47 @@ public class OAuth2JacksonConfig {
 
     // Whitelist your custom principal so Jackson can deserialize it
     mapper.activateDefaultTyping(
-        BasicPolymorphicTypeValidator.builder()
-            .allowIfSubType(Object.class) // wide open for internal use — safe since this mapper is not exposed
-            .build(),
+        typeValidator(),
         ObjectMapper.DefaultTyping.NON_FINAL,
         JsonTypeInfo.As.PROPERTY
     );
 
+    return configureOAuth2Modules(mapper);
+  }
+
+  /**
+   * Same modules and typing as {@link #oauth2ObjectMapper()}, but binary and with short
+   * registry type ids for the common types.
+   */
+  @Bean("oauth2CborMapper")
+  public ObjectMapper oauth2CborMapper() {
+    ObjectMapper mapper = new CBORMapper();
+
+    var typer = new RegistryTypeResolverBuilder(typeValidator())
+        .init(JsonTypeInfo.Id.CLASS, null)
+        .inclusion(JsonTypeInfo.As.PROPERTY);
+    mapper.setDefaultTyping(typer);
+
+    return configureOAuth2Modules(mapper);
+  }
+
+  @Bean
+  public AuthorizationAttributeCodec authorizationAttributeCodec(
+      @Qualifier("oauth2ObjectMapper") ObjectMapper oauth2ObjectMapper,
+      @Qualifier("oauth2CborMapper") ObjectMapper oauth2CborMapper,
+      @Value("${auth.authorization.attribute-codec:cbor}") String codec
+  ) {
+    var json = new JsonAuthorizationAttributeCodec(oauth2ObjectMapper);
+    return "json".equals(codec) ? json : new CborAuthorizationAttributeCodec(oauth2CborMapper, json);
+  }
+
+  private static PolymorphicTypeValidator typeValidator() {
+    return BasicPolymorphicTypeValidator.builder()
+        .allowIfSubType(Object.class) // wide open for internal use — safe since this mapper is not exposed
+        .build();
+  }
+
+  private static ObjectMapper configureOAuth2Modules(ObjectMapper mapper) {
     ClassLoader classLoader = OAuth2JacksonConfig.class.getClassLoader();
     mapper.registerModules(SecurityJackson2Modules.getModules(classLoader));
     mapper.registerModule(new OAuth2AuthorizationServerJackson2Module());
@@ -50,6 +93,23 @@ public class OAuth2JacksonConfig {
     return mapper;
   }
 
+  static class RegistryTypeResolverBuilder extends ObjectMapper.DefaultTypeResolverBuilder {
+
+    RegistryTypeResolverBuilder(PolymorphicTypeValidator validator) {
+      super(ObjectMapper.DefaultTyping.NON_FINAL, validator);
+    }
+
+    @Override
+    protected TypeIdResolver idResolver(MapperConfig<?> config, JavaType baseType,
+        PolymorphicTypeValidator subtypeValidator, Collection<NamedType> subtypes,
+        boolean forSer, boolean forDeser) {
+      if (_idType == JsonTypeInfo.Id.CLASS) {
+        return new RegistryTypeIdResolver(baseType, config.getTypeFactory(), subtypeValidator);
+      }
+      return super.idResolver(config, baseType, subtypeValidator, subtypes, forSer, forDeser);
+    }
+  }
+
   @JsonTypeInfo(use = JsonTypeInfo.Id.CLASS)
   @JsonAutoDetect(
       fieldVisibility    = JsonAutoDetect.Visibility.ANY,
@@ -14,6 +14,7 @@ import java.util.List;
 import java.util.Optional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
 @Component
 @RequiredArgsConstructor
@@ -42,6 +43,7 @@ public class OidcClientAppRepository implements OidcClients {
   }
 
   @Override
+  @Transactional
   public OidcClient trigger(OidcClientEvent event) {
     var client = switch (event) {
       case OAuthClientCreatedEvent e -> handle(e);
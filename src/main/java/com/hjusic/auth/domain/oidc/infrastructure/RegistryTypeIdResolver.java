@@ -0,0 +1,79 @@
+package com.hjusic.auth.domain.oidc.infrastructure;
+
+import com.fasterxml.jackson.databind.DatabindContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.jsontype.PolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.jsontype.impl.ClassNameIdResolver;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class-name type ids, except that the types found in nearly every authorization are written as
+ * short fixed ids. Unregistered types still fall back to their class name, so the registry only
+ * affects size, never what can be stored.
+ * <p>
+ * Ids are persisted: only ever append to {@link #REGISTERED_TYPES}, never reorder or remove.
+ */
+class RegistryTypeIdResolver extends ClassNameIdResolver {
+
+  private static final List<String> REGISTERED_TYPES = List.of(
+      "java.util.HashMap",
+      "java.util.LinkedHashMap",
+      "java.util.ArrayList",
+      "java.util.HashSet",
+      "java.util.LinkedHashSet",
+      "java.util.Collections$UnmodifiableMap",
+      "java.util.Collections$UnmodifiableSet",
+      "java.util.Collections$UnmodifiableRandomAccessList",
+      "java.util.Collections$SingletonList",
+      "java.util.Collections$EmptyList",
+      "java.util.Collections$EmptyMap",
+      "java.util.Collections$EmptySet",
+      "org.springframework.security.authentication.UsernamePasswordAuthenticationToken",
+      "org.springframework.security.web.authentication.WebAuthenticationDetails",
+      "org.springframework.security.core.authority.SimpleGrantedAuthority",
+      "org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest",
+      "org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationResponseType",
+      "org.springframework.security.oauth2.core.AuthorizationGrantType",
+      "org.springframework.security.oauth2.server.authorization.settings.OAuth2TokenFormat",
+      "com.hjusic.auth.domain.user.infrastructure.UserDatabaseEntity"
+  );
+
+  private static final Map<String, String> ID_BY_CLASS_NAME = new HashMap<>();
+  private static final Map<String, String> CLASS_NAME_BY_ID = new HashMap<>();
+
+  static {
+    for (int i = 0; i < REGISTERED_TYPES.size(); i++) {
+      // '#' cannot start a class name, so short ids never clash with fallback ids
+      String id = "#" + i;
+      ID_BY_CLASS_NAME.put(REGISTERED_TYPES.get(i), id);
+      CLASS_NAME_BY_ID.put(id, REGISTERED_TYPES.get(i));
+    }
+  }
+
+  RegistryTypeIdResolver(JavaType baseType, TypeFactory typeFactory, PolymorphicTypeValidator validator) {
+    super(baseType, typeFactory, validator);
+  }
+
+  @Override
+  public String idFromValue(Object value) {
+    return shorten(super.idFromValue(value));
+  }
+
+  @Override
+  public String idFromValueAndType(Object value, Class<?> type) {
+    return shorten(super.idFromValueAndType(value, type));
+  }
+
+  @Override
+  public JavaType typeFromId(DatabindContext context, String id) throws IOException {
+    return super.typeFromId(context, CLASS_NAME_BY_ID.getOrDefault(id, id));
+  }
+
+  private static String shorten(String className) {
+    return className == null ? null : ID_BY_CLASS_NAME.getOrDefault(className, className);
+  }
+}
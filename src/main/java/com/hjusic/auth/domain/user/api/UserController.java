@@ -1,6 +1,8 @@
 package com.hjusic.auth.domain.user.api;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hjusic.auth.domain.auth.model.Auth;
+import com.hjusic.auth.domain.role.model.RoleName;
 import com.hjusic.auth.domain.user.api.dto.ChangePasswordRequest;
 import com.hjusic.auth.domain.user.api.dto.CompleteResetPasswordRequest;
 import com.hjusic.auth.domain.user.api.dto.CreateUserRequest;
@@ -9,14 +11,22 @@ import com.hjusic.auth.domain.user.api.dto.UpdateRoleRequest;
 import com.hjusic.auth.domain.user.application.ChangePassword;
 import com.hjusic.auth.domain.user.application.CreateUser;
 import com.hjusic.auth.domain.user.application.DeleteUser;
+import com.hjusic.auth.domain.user.application.ResetPasswordInitiationQueue;
 import com.hjusic.auth.domain.user.application.ResetPasswordProcess;
 import com.hjusic.auth.domain.user.application.UpdateRoles;
 import com.hjusic.auth.domain.user.model.User;
+import com.hjusic.auth.domain.user.model.UserQuery;
 import com.hjusic.auth.domain.user.model.Users;
-import java.util.Collection;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -26,25 +36,82 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 @RestController
 @RequestMapping("/api/user")
 @RequiredArgsConstructor
 public class UserController {
 
+  private static final String NDJSON = "application/x-ndjson";
+
   private final Users users;
   private final Auth auth;
   private final CreateUser createUser;
   private final DeleteUser deleteUser;
   private final ResetPasswordProcess resetPasswordProcess;
+  private final ResetPasswordInitiationQueue resetPasswordInitiationQueue;
   private final UpdateRoles updateRoles;
   private final ChangePassword changePassword;
+  private final ObjectMapper objectMapper;
 
+  /**
+   * One page of users in username order. When there are more, a {@code Link} header with
+   * {@code rel="next"} points at the next page.
+   */
   @GetMapping
   @PreAuthorize("hasAuthority('ROLE_ADMIN')")
-  public Collection<User> getUsers() {
-    return users.findAll();
+  public ResponseEntity<List<User>> getUsers(
+      @RequestParam(required = false) RoleName role,
+      @RequestParam(required = false) String prefix,
+      @RequestParam(required = false) String after,
+      @RequestParam(required = false) Integer limit) {
+    var query = UserQuery.of(role, prefix, after, limit);
+    var page = users.findPage(query);
+
+    var response = ResponseEntity.ok();
+    if (page.getNextCursor() != null) {
+      var next = ServletUriComponentsBuilder.fromCurrentRequestUri()
+          .queryParamIfPresent("role", Optional.ofNullable(query.getRole()))
+          .queryParamIfPresent("prefix", Optional.ofNullable(query.getUsernamePrefix()))
+          .queryParam("after", page.getNextCursor())
+          .queryParam("limit", query.getLimit())
+          .build()
+          .encode()
+          .toUriString();
+      response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+    }
+    return response.body(page.getUsers());
+  }
+
+  /**
+   * Every matching user as newline-delimited JSON, written while it is read.
+   */
+  @GetMapping(params = "format=ndjson", produces = NDJSON)
+  @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+  public ResponseEntity<StreamingResponseBody> exportUsers(
+      @RequestParam(required = false) RoleName role,
+      @RequestParam(required = false) String prefix) {
+    var query = UserQuery.of(role, prefix, null, null);
+
+    StreamingResponseBody body = outputStream -> {
+      var out = new BufferedOutputStream(outputStream);
+      users.forEach(query, user -> {
+        try {
+          out.write(objectMapper.writeValueAsBytes(user));
+          out.write('\n');
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+      out.flush();
+    };
+    return ResponseEntity.ok()
+        .contentType(MediaType.parseMediaType(NDJSON))
+        .body(body);
   }
 
   @GetMapping("/me")
@@ -122,7 +189,7 @@ public class UserController {
 
   @PostMapping("/password-reset/initiate")
   public ResponseEntity<?> initiatePasswordReset(@RequestBody InitiateResetPasswordRequest request) {
-    resetPasswordProcess.initiateResetPasswordProcess(request.getUsername());
+    resetPasswordInitiationQueue.enqueue(request.getUsername());
 
     return ResponseEntity.ok(Map.of(
         "message", "If an account exists with that username, a password reset email has been sent"
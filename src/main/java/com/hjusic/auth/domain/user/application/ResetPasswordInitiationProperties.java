@@ -0,0 +1,38 @@
+package com.hjusic.auth.domain.user.application;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "auth.password-reset.initiation")
+public class ResetPasswordInitiationProperties {
+
+  /**
+   * Requests waiting to be processed; further requests are dropped until the queue drains.
+   */
+  private int queueCapacity = 10_000;
+
+  /**
+   * A reset is started at most once per username within this window; repeated requests are
+   * coalesced into the first.
+   */
+  private Duration window = Duration.ofMinutes(5);
+
+  /**
+   * Usernames remembered for the window. Beyond this the oldest are forgotten early.
+   */
+  private long maximumRecent = 100_000;
+
+  /**
+   * Usernames processed in one transaction, whose notifications are sent together.
+   */
+  private int batchSize = 100;
+
+  /**
+   * Batches started per drain; whatever is left waits for the next drain.
+   */
+  private int maxBatchesPerRun = 10;
+}
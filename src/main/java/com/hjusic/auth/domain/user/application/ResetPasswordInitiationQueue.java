@@ -0,0 +1,175 @@
+package com.hjusic.auth.domain.user.application;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hjusic.auth.domain.user.model.ValueObjects.Username;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Takes password reset requests off the request thread. {@link #enqueue} only touches in-memory
+ * structures, so the unauthenticated endpoint costs the same whether or not the user exists and
+ * however often it is called. A scheduled drain starts the resets in batches, one transaction per
+ * batch, so their notifications are sent together when it commits. When a batch fails, its
+ * requests are retried one per transaction, so only the request that caused the failure is lost.
+ * Each drain runs at most {@code max-batches-per-run} batches, so a full queue does not hold the
+ * shared scheduler thread; on shutdown the rest of the queue is drained before the bean goes.
+ * <p>
+ * Requests for a username that is already queued, or whose reset was started within
+ * {@code auth.password-reset.initiation.window}, are coalesced into that reset. The window is
+ * kept per instance.
+ */
+@Component
+@Log4j2
+public class ResetPasswordInitiationQueue implements DisposableBean {
+
+  private final ResetPasswordProcess resetPasswordProcess;
+  private final ResetPasswordInitiationProperties properties;
+  private final TransactionTemplate transactionTemplate;
+  private final BlockingQueue<String> queue;
+  private final Set<String> pending = ConcurrentHashMap.newKeySet();
+  private final Cache<String, Boolean> recentlyStarted;
+
+  private final Counter coalesced;
+  private final Counter dropped;
+  private final Counter failed;
+
+  public ResetPasswordInitiationQueue(
+      ResetPasswordProcess resetPasswordProcess,
+      ResetPasswordInitiationProperties properties,
+      TransactionTemplate transactionTemplate,
+      MeterRegistry meterRegistry
+  ) {
+    this.resetPasswordProcess = resetPasswordProcess;
+    this.properties = properties;
+    this.transactionTemplate = transactionTemplate;
+    this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+    this.recentlyStarted = Caffeine.newBuilder()
+        .expireAfterWrite(properties.getWindow())
+        .maximumSize(properties.getMaximumRecent())
+        .build();
+
+    Gauge.builder("auth.password-reset.queue.depth", queue, BlockingQueue::size)
+        .description("Password reset requests waiting to be processed")
+        .register(meterRegistry);
+    this.coalesced = Counter.builder("auth.password-reset.requests")
+        .description("Password reset requests by what happened to them")
+        .tag("outcome", "coalesced")
+        .register(meterRegistry);
+    this.dropped = Counter.builder("auth.password-reset.requests")
+        .description("Password reset requests by what happened to them")
+        .tag("outcome", "dropped")
+        .register(meterRegistry);
+    this.failed = Counter.builder("auth.password-reset.requests")
+        .description("Password reset requests by what happened to them")
+        .tag("outcome", "failed")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Queue a reset for {@code username}. Never blocks; an invalid username, or a request that does
+   * not fit in the queue, is dropped, which the caller cannot tell apart from an accepted one.
+   */
+  public void enqueue(String username) {
+    if (Username.of(username).isLeft()) {
+      return;
+    }
+    if (recentlyStarted.getIfPresent(username) != null || !pending.add(username)) {
+      coalesced.increment();
+      return;
+    }
+    if (!queue.offer(username)) {
+      pending.remove(username);
+      dropped.increment();
+      log.warn("Password reset queue is full, dropped a request");
+    }
+  }
+
+  /**
+   * Whether every queued request has been processed.
+   */
+  public boolean isIdle() {
+    return pending.isEmpty();
+  }
+
+  @Scheduled(
+      initialDelayString = "${auth.password-reset.initiation.linger:PT0.5S}",
+      fixedDelayString = "${auth.password-reset.initiation.linger:PT0.5S}"
+  )
+  public void drain() {
+    drain(properties.getMaxBatchesPerRun());
+  }
+
+  /**
+   * Start every request still queued, so a shutdown or redeploy does not lose accepted requests.
+   */
+  @Override
+  public void destroy() {
+    if (!queue.isEmpty()) {
+      log.info("Starting {} queued password resets before shutdown", queue.size());
+    }
+    drain(Integer.MAX_VALUE);
+  }
+
+  private void drain(int maxBatches) {
+    List<String> batch = new ArrayList<>(properties.getBatchSize());
+    for (int i = 0; i < maxBatches && queue.drainTo(batch, properties.getBatchSize()) > 0; i++) {
+      process(batch);
+      batch.clear();
+    }
+  }
+
+  private void process(List<String> batch) {
+    try {
+      transactionTemplate.executeWithoutResult(status -> batch.forEach(this::start));
+      batch.forEach(this::markStarted);
+    } catch (RuntimeException e) {
+      if (batch.size() == 1) {
+        fail(e);
+      } else {
+        // One bad request must not cost everyone else in the batch their reset
+        log.warn("Starting {} password resets together failed, retrying one at a time",
+            batch.size(), e);
+        batch.forEach(this::processAlone);
+      }
+    } finally {
+      batch.forEach(pending::remove);
+    }
+  }
+
+  private void processAlone(String username) {
+    try {
+      transactionTemplate.executeWithoutResult(status -> start(username));
+      markStarted(username);
+    } catch (RuntimeException e) {
+      fail(e);
+    }
+  }
+
+  private void start(String username) {
+    resetPasswordProcess.initiateResetPasswordProcess(username)
+        .peekLeft(error -> log.debug("No password reset started: {}", error.getMessage()));
+  }
+
+  private void markStarted(String username) {
+    // Unknown usernames are remembered too, so they cannot be used to keep the drain busy
+    recentlyStarted.put(username, Boolean.TRUE);
+  }
+
+  private void fail(RuntimeException e) {
+    failed.increment();
+    log.error("Failed to start a password reset", e);
+  }
+}
@@ -0,0 +1,83 @@
+package com.hjusic.auth.domain.user.infrastructure;
+
+import com.hjusic.auth.password.PasswordHashingProperties;
+import com.hjusic.auth.scheduling.infrastructure.DatabaseLease;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes how many stored password hashes use each encoder, so the progress of hash upgrades
+ * after a parameter change can be followed.
+ * <p>
+ * The counts cover the whole user table, so one node at a time computes and publishes them. It
+ * keeps the lease between refreshes; the other nodes publish no counts until it stops.
+ */
+@Component
+@Log4j2
+public class PasswordSchemeMetrics implements DisposableBean {
+
+  static final String LEASE_NAME = "password-scheme-metrics";
+
+  private final UserDatabaseRepository userRepository;
+  private final PasswordHashingProperties properties;
+  private final DatabaseLease lease;
+  private final MultiGauge hashes;
+
+  public PasswordSchemeMetrics(UserDatabaseRepository userRepository,
+      PasswordHashingProperties properties, DatabaseLease lease, MeterRegistry meterRegistry) {
+    this.userRepository = userRepository;
+    this.properties = properties;
+    this.lease = lease;
+    this.hashes = MultiGauge.builder("auth.password.hashes")
+        .description("Stored password hashes per encoder")
+        .register(meterRegistry);
+  }
+
+  @Scheduled(
+      initialDelayString = "#{@passwordHashingProperties.schemeMetricsInitialDelay.toMillis()}",
+      fixedDelayString = "#{@passwordHashingProperties.schemeMetricsInterval.toMillis()}"
+  )
+  public void refresh() {
+    // Held for two intervals, so the holder renews it on every refresh and keeps it
+    if (!lease.hold(LEASE_NAME, properties.getSchemeMetricsInterval().multipliedBy(2))) {
+      hashes.register(List.of(), true);
+      return;
+    }
+
+    Map<String, Long> counts = new HashMap<>();
+    for (Object[] row : userRepository.countByPasswordScheme()) {
+      counts.merge(scheme((String) row[0]), ((Number) row[1]).longValue(), Long::sum);
+    }
+
+    var rows = new ArrayList<MultiGauge.Row<?>>();
+    counts.forEach((scheme, count) ->
+        rows.add(MultiGauge.Row.of(Tags.of("scheme", scheme), count)));
+    hashes.register(rows, true);
+    log.debug("Password hashes per scheme: {}", counts);
+  }
+
+  @Override
+  public void destroy() {
+    try {
+      lease.release(LEASE_NAME);
+    } catch (RuntimeException e) {
+      log.warn("Releasing the password scheme metrics lease failed; it runs out on its own", e);
+    }
+  }
+
+  static String scheme(String prefix) {
+    if (prefix == null || prefix.length() < 3 || !prefix.startsWith("{")) {
+      return "unknown";
+    }
+    return prefix.substring(1, prefix.length() - 1);
+  }
+}
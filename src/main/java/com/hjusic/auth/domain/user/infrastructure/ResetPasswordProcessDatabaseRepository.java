@@ -1,8 +1,12 @@
 package com.hjusic.auth.domain.user.infrastructure;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
@@ -10,11 +14,39 @@ import org.springframework.stereotype.Repository;
 public interface ResetPasswordProcessDatabaseRepository extends
     JpaRepository<ResetPasswordProcessDatabaseEntity, Long> {
 
-  List<ResetPasswordProcessDatabaseEntity> findByUser(UserDatabaseEntity user);
-
   @Query("SELECT r FROM ResetPasswordProcessDatabaseEntity r JOIN FETCH r.user")
   List<ResetPasswordProcessDatabaseEntity> findAllWithUser();
 
   @Query("SELECT r FROM ResetPasswordProcessDatabaseEntity r JOIN FETCH r.user WHERE r.tokenHash = :tokenHash")
   Optional<ResetPasswordProcessDatabaseEntity> findByTokenHashWithUser(String tokenHash);
+
+  /**
+   * The unused, unexpired reset process of {@code username} with this token hash, found through
+   * the unique index on the hash.
+   */
+  @Query("SELECT r FROM ResetPasswordProcessDatabaseEntity r JOIN FETCH r.user u "
+      + "WHERE r.tokenHash = :tokenHash AND u.username = :username "
+      + "AND r.used = false AND r.expiresAt > :now")
+  Optional<ResetPasswordProcessDatabaseEntity> findUsable(String tokenHash, String username,
+      LocalDateTime now);
+
+  /**
+   * Mark the process used unless that already happened; returns 0 for a token that was used
+   * concurrently.
+   */
+  @Modifying
+  @Query("UPDATE ResetPasswordProcessDatabaseEntity r SET r.used = true, r.usedAt = :now "
+      + "WHERE r.id = :id AND r.used = false")
+  int markUsed(Long id, LocalDateTime now);
+
+  /**
+   * Processes that expired before {@code cutoff}, found through the expiry index. Used ones need no
+   * branch of their own: a process expires at most 15 minutes after it was created, used or not.
+   */
+  @Query("SELECT r.id FROM ResetPasswordProcessDatabaseEntity r WHERE r.expiresAt < :cutoff")
+  List<Long> findIdsPurgeableBefore(LocalDateTime cutoff, Pageable pageable);
+
+  @Modifying
+  @Query("DELETE FROM ResetPasswordProcessDatabaseEntity r WHERE r.id IN :ids")
+  int deleteByIdIn(Collection<Long> ids);
 }
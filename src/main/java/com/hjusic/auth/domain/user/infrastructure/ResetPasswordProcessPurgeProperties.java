@@ -0,0 +1,20 @@
+package com.hjusic.auth.domain.user.infrastructure;
+
+import com.hjusic.auth.scheduling.infrastructure.BatchPurgeProperties;
+import java.time.Duration;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+@Component
+@ConfigurationProperties(prefix = "auth.password-reset.purge")
+public class ResetPasswordProcessPurgeProperties extends BatchPurgeProperties {
+
+  /**
+   * Reset processes, used or not, are purged this long after they expired.
+   */
+  private Duration retention = Duration.ofHours(1);
+}
@@ -0,0 +1,61 @@
+package com.hjusic.auth.domain.user.infrastructure;
+
+import com.hjusic.auth.scheduling.infrastructure.LeasedBatchPurge;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.LocalDateTime;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Deletes password reset processes that expired or were used, so repeated reset requests cannot
+ * grow the table without bound. Runs through {@link LeasedBatchPurge}.
+ */
+@Component
+@Log4j2
+public class ResetPasswordProcessPurger {
+
+  static final String LEASE_NAME = "password-reset-purge";
+
+  private final ResetPasswordProcessDatabaseRepository repository;
+  private final ResetPasswordProcessPurgeProperties properties;
+  private final LeasedBatchPurge batchPurge;
+  private final Counter purged;
+
+  public ResetPasswordProcessPurger(
+      ResetPasswordProcessDatabaseRepository repository,
+      ResetPasswordProcessPurgeProperties properties,
+      LeasedBatchPurge batchPurge,
+      MeterRegistry meterRegistry
+  ) {
+    this.repository = repository;
+    this.properties = properties;
+    this.batchPurge = batchPurge;
+    this.purged = Counter.builder("auth.purge.password-resets")
+        .description("Expired or used password reset processes deleted")
+        .register(meterRegistry);
+  }
+
+  @Scheduled(
+      initialDelayString = "${auth.password-reset.purge.initial-delay:PT1M}",
+      fixedDelayString = "${auth.password-reset.purge.interval:PT10M}"
+  )
+  public void purge() {
+    batchPurge.run(LEASE_NAME, properties, this::purgeBatches);
+  }
+
+  void purgeBatches() {
+    var cutoff = LocalDateTime.now().minus(properties.getRetention());
+
+    long total = batchPurge.inBatches(properties, page -> {
+      var ids = repository.findIdsPurgeableBefore(cutoff, page);
+      return ids.isEmpty() ? 0 : repository.deleteByIdIn(ids);
+    });
+    purged.increment(total);
+
+    if (total > 0) {
+      log.info("Purged {} expired or used password reset processes", total);
+    }
+  }
+}
@@ -2,8 +2,11 @@ package com.hjusic.auth.domain.user.infrastructure;
 
 import com.hjusic.auth.domain.role.infrastructure.RoleDatabaseRepository;
 import com.hjusic.auth.domain.role.model.Role;
+import com.hjusic.auth.domain.role.model.RoleName;
 import com.hjusic.auth.domain.user.model.User;
 import com.hjusic.auth.domain.user.model.UserError;
+import com.hjusic.auth.domain.user.model.UserPage;
+import com.hjusic.auth.domain.user.model.UserQuery;
 import com.hjusic.auth.domain.user.model.Users;
 import com.hjusic.auth.domain.user.model.ValueObjects.ResetPasswordToken;
 import com.hjusic.auth.domain.user.model.event.ChangePasswordEvent;
@@ -14,14 +17,27 @@ import com.hjusic.auth.domain.user.model.event.UserCreatedEvent;
 import com.hjusic.auth.domain.user.model.event.UserDeletedEvent;
 import com.hjusic.auth.domain.user.model.event.UserEvent;
 import com.hjusic.auth.event.model.DomainEventPublisher;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.vavr.control.Either;
 import java.time.LocalDateTime;
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import lombok.AllArgsConstructor;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
 @Component
 @AllArgsConstructor
@@ -33,17 +49,54 @@ public class UserAppRepository implements Users {
   private final UserMapper userMapper;
   private final DomainEventPublisher domainEventPublisher;
   private final PasswordEncoder passwordEncoder;
+  private final UserDetailsCache userDetailsCache;
+  private final MeterRegistry meterRegistry;
+  private final Map<Class<?>, Timer> triggerTimers = new ConcurrentHashMap<>();
+
+  /**
+   * Two queries per page: the usernames of the page through the username index, then those users
+   * with their roles. Reading usernames first keeps the limit exact however many roles a user
+   * has.
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public UserPage findPage(UserQuery query) {
+    var after = Objects.requireNonNullElse(query.getAfter(), "");
+    var prefix = likePrefix(query.getUsernamePrefix());
+    var limit = Limit.of(query.getLimit() + 1);
+    var usernames = query.getRole() == null
+        ? userRepository.findUsernamesAfter(after, prefix, limit)
+        : userRepository.findUsernamesAfterWithRole(after, prefix, query.getRole(), limit);
+
+    var hasMore = usernames.size() > query.getLimit();
+    var pageUsernames = hasMore ? usernames.subList(0, query.getLimit()) : usernames;
+    if (pageUsernames.isEmpty()) {
+      return UserPage.of(List.of(), null);
+    }
+
+    var users = new ArrayList<User>(pageUsernames.size());
+    mapGrouped(userRepository.findRowsByUsernameIn(pageUsernames).iterator(), users::add);
+    return UserPage.of(users, hasMore ? pageUsernames.getLast() : null);
+  }
 
+  /**
+   * Streams rows with the export fetch size and maps them one user at a time, so memory does not
+   * grow with the number of users. {@code after} and {@code limit} of the query are ignored.
+   */
   @Override
-  public Collection<User> findAll() {
-    return userRepository.findAll().stream()
-        .map(userMapper::toModelObject)
-        .toList();
+  @Transactional(readOnly = true)
+  public void forEach(UserQuery query, Consumer<User> action) {
+    var prefix = likePrefix(query.getUsernamePrefix());
+    try (var rows = query.getRole() == null
+        ? userRepository.streamRows(prefix)
+        : userRepository.streamRowsWithRole(prefix, query.getRole())) {
+      mapGrouped(rows.iterator(), action);
+    }
   }
 
   @Override
   public Either<UserError, User> findByUsername(String username) {
-    return userRepository.findByUsername(username)
+    return userDetailsCache.findByUsername(username)
         .map(userDatabaseEntity -> Either.<UserError, User>right(
             userMapper.toModelObject(userDatabaseEntity)))
         .orElse(Either.left(UserError.userNotFound(username)));
@@ -61,33 +114,24 @@ public class UserAppRepository implements Users {
     return passwordEncoder.matches(plaintext, hash);
   }
 
+  /**
+   * Looks the token up by its hash, so the cost does not depend on how many resets the user
+   * started. The stored value is a hash of a random token, so matching it in the database leaks
+   * nothing a constant-time comparison would protect.
+   */
   @Override
+  @Transactional
   public Either<UserError, User> validateResetPasswordToken(String username, String token) {
-
-    var userEntity = userRepository.findByUsername(username).orElseThrow(
-        () -> new IllegalArgumentException("User does not exist: " + username)
-    );
-
-    var resetPasswordTokens = resetPasswordProcessDatabaseRepository.findByUser(userEntity);
-
-    // Find valid token
-    var validToken = resetPasswordTokens.stream()
-        .filter(resetPasswordToken ->
-            ResetPasswordToken.verifyToken(token, resetPasswordToken.getTokenHash())
-                && !resetPasswordToken.isUsed()
-                && resetPasswordToken.getExpiresAt().isAfter(LocalDateTime.now())
-        )
-        .findFirst();
-
-    if (validToken.isPresent()) {
-      var resetProcess = validToken.get();
-
-      // Mark as used
-      resetProcess.setUsed(true);
-      resetProcess.setUsedAt(LocalDateTime.now());
-      resetPasswordProcessDatabaseRepository.save(resetProcess);
-
-      return Either.right(userMapper.toModelObject(userEntity));
+    var now = LocalDateTime.now();
+    var resetProcess = StringUtils.isBlank(token)
+        ? Optional.<ResetPasswordProcessDatabaseEntity>empty()
+        : resetPasswordProcessDatabaseRepository.findUsable(
+            ResetPasswordToken.hash(token), username, now);
+
+    // The conditional update lets only one of two concurrent completions use the token
+    if (resetProcess.isPresent()
+        && resetPasswordProcessDatabaseRepository.markUsed(resetProcess.get().getId(), now) == 1) {
+      return Either.right(userMapper.toModelObject(resetProcess.get().getUser()));
     }
 
     return Either.left(UserError.invalidResetPasswordToken(
@@ -95,7 +139,12 @@ public class UserAppRepository implements Users {
   }
 
   @Override
+  @Transactional
   public User trigger(UserEvent event) {
+    return triggerTimer(event).record(() -> apply(event));
+  }
+
+  private User apply(UserEvent event) {
     var user = switch (event) {
       case UserCreatedEvent e -> handle(e);
       case UserDeletedEvent e -> handle(e);
@@ -106,11 +155,68 @@ public class UserAppRepository implements Users {
       default -> throw new IllegalArgumentException("Unhandled event type: " + event.getClass());
     };
 
+    switch (event) {
+      case UserDeletedEvent e -> userDetailsCache.evict(e.getUsername().getValue());
+      case ResetPasswordProcessComplete e -> userDetailsCache.evict(e.getUsername().getValue());
+      case UpdateRolesEvent e -> userDetailsCache.evict(e.getUsername().getValue());
+      case ChangePasswordEvent e -> userDetailsCache.evict(e.getUsername().getValue());
+      default -> {
+      }
+    }
+
     domainEventPublisher.publish(event);
 
     return user;
   }
 
+  /**
+   * Map rows ordered by username to users, one user per run of rows with the same username.
+   */
+  private void mapGrouped(Iterator<UserRoleRow> rows, Consumer<User> action) {
+    UserRoleRow first = null;
+    Set<RoleName> roles = EnumSet.noneOf(RoleName.class);
+    while (rows.hasNext()) {
+      var row = rows.next();
+      if (first != null && !first.username().equals(row.username())) {
+        action.accept(userMapper.toModelObject(first.username(), first.email(), roles));
+        roles = EnumSet.noneOf(RoleName.class);
+      }
+      if (first == null || !first.username().equals(row.username())) {
+        first = row;
+      }
+      if (row.role() != null) {
+        roles.add(row.role());
+      }
+    }
+    if (first != null) {
+      action.accept(userMapper.toModelObject(first.username(), first.email(), roles));
+    }
+  }
+
+  /**
+   * A LIKE pattern matching usernames that start with {@code prefix}, or every username.
+   */
+  static String likePrefix(String prefix) {
+    if (prefix == null) {
+      return "%";
+    }
+    return prefix
+        .replace("\\", "\\\\")
+        .replace("%", "\\%")
+        .replace("_", "\\_") + "%";
+  }
+
+  /**
+   * Time to write an event and publish it, tagged by event class so the tag values are fixed.
+   */
+  private Timer triggerTimer(UserEvent event) {
+    return triggerTimers.computeIfAbsent(event.getClass(),
+        type -> Timer.builder("auth.users.trigger")
+            .description("Time spent applying a user event to the database and publishing it")
+            .tag("event", type.getSimpleName())
+            .register(meterRegistry));
+  }
+
   private User handle(ChangePasswordEvent e) {
     var user = userRepository.findByUsername(e.getUsername().getValue()).orElseThrow(
         () -> new IllegalArgumentException("User does not exist: " + e.getUsername())
@@ -1,14 +1,38 @@
 package com.hjusic.auth.domain.user.infrastructure;
 
+import com.hjusic.auth.domain.role.model.RoleName;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserDatabaseRepository extends JpaRepository<UserDatabaseEntity, Long> {
 
+  /**
+   * Rows fetched per round trip when exporting; the driver only honors it inside a transaction.
+   */
+  String EXPORT_FETCH_SIZE = "500";
+
+  String ROW = "SELECT new com.hjusic.auth.domain.user.infrastructure.UserRoleRow("
+      + "u.username, u.email, r.name) FROM UserDatabaseEntity u LEFT JOIN u.roles r ";
+
+  // :prefix is a LIKE pattern ending in %, with %, _ and \ in the prefix itself escaped
+  String MATCHES_PREFIX = "u.username LIKE :prefix ESCAPE '\\' ";
+
+  String HAS_ROLE = "EXISTS (SELECT 1 FROM RoleDatabaseEntity hr JOIN hr.users hu "
+      + "WHERE hu = u AND hr.name = :role) ";
+
   Optional<UserDatabaseEntity> findByUsername(String username);
 
   Optional<UserDatabaseEntity> findByEmail(String email);
@@ -19,4 +43,47 @@ public interface UserDatabaseRepository extends JpaRepository<UserDatabaseEntity
 
   @Query("SELECT u.password FROM UserDatabaseEntity u WHERE u.username = :username")
   String findPasswordHashByUsername(String username);
+
+  @Transactional
+  @Modifying
+  @Query("UPDATE UserDatabaseEntity u SET u.password = :password WHERE u.username = :username")
+  int updatePasswordByUsername(String username, String password);
+
+  /**
+   * Number of stored hashes per encoder id, e.g. {@code {argon2}}; hashes without an id prefix
+   * are counted under the empty string.
+   */
+  @Query("SELECT substring(u.password, 1, locate('}', u.password)), count(u) "
+      + "FROM UserDatabaseEntity u "
+      + "GROUP BY substring(u.password, 1, locate('}', u.password))")
+  List<Object[]> countByPasswordScheme();
+
+  /**
+   * Usernames of one keyset page. The first page starts after the empty string.
+   */
+  @Query("SELECT u.username FROM UserDatabaseEntity u "
+      + "WHERE u.username > :after AND " + MATCHES_PREFIX
+      + "ORDER BY u.username")
+  List<String> findUsernamesAfter(String after, String prefix, Limit limit);
+
+  @Query("SELECT u.username FROM UserDatabaseEntity u "
+      + "WHERE u.username > :after AND " + MATCHES_PREFIX + "AND " + HAS_ROLE
+      + "ORDER BY u.username")
+  List<String> findUsernamesAfterWithRole(String after, String prefix, RoleName role,
+      Limit limit);
+
+  @Query(ROW + "WHERE u.username IN :usernames ORDER BY u.username")
+  List<UserRoleRow> findRowsByUsernameIn(Collection<String> usernames);
+
+  /**
+   * Every matching user, one row per role, ordered so a user's rows are adjacent. Must be read
+   * inside a transaction and closed.
+   */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+  @Query(ROW + "WHERE " + MATCHES_PREFIX + "ORDER BY u.username")
+  Stream<UserRoleRow> streamRows(String prefix);
+
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+  @Query(ROW + "WHERE " + MATCHES_PREFIX + "AND " + HAS_ROLE + "ORDER BY u.username")
+  Stream<UserRoleRow> streamRowsWithRole(String prefix, RoleName role);
 }
@@ -0,0 +1,79 @@
+package com.hjusic.auth.domain.user.infrastructure;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Optional;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Bounded, TTL-limited cache of users for the authentication paths.
+ * <p>
+ * Entries are detached copies, so callers never touch a persistence context. Misses are not
+ * cached. {@link UserAppRepository#trigger} evicts a user after every event that changes their
+ * credentials or roles or removes them; loads for the same username are serialized with the
+ * eviction, so a load that raced a write cannot survive it. Inside a transaction the entry is
+ * evicted again after commit, so a load that read the old row before the commit is dropped too.
+ */
+@Component
+@Log4j2
+public class UserDetailsCache {
+
+  private final UserDatabaseRepository userRepository;
+  private final Cache<String, UserDatabaseEntity> cache;
+
+  public UserDetailsCache(
+      UserDatabaseRepository userRepository,
+      MeterRegistry meterRegistry,
+      @Value("${auth.user-cache.maximum-size:10000}") long maximumSize,
+      @Value("${auth.user-cache.ttl:5m}") Duration ttl
+  ) {
+    this.userRepository = userRepository;
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(ttl)
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "users");
+  }
+
+  public Optional<UserDatabaseEntity> findByUsername(String username) {
+    return Optional.ofNullable(cache.get(username, key -> userRepository.findByUsername(key)
+        .map(UserDetailsCache::detach)
+        .orElse(null)));
+  }
+
+  public void evict(String username) {
+    cache.invalidate(username);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          cache.invalidate(username);
+        }
+      });
+    }
+    log.debug("Evicted cached user {}", username);
+  }
+
+  private static UserDatabaseEntity detach(UserDatabaseEntity entity) {
+    return UserDatabaseEntity.builder()
+        .id(entity.getId())
+        .username(entity.getUsername())
+        .email(entity.getEmail())
+        .password(entity.getPassword())
+        .roles(new HashSet<>(entity.getRoles()))
+        .enabled(entity.isEnabled())
+        .createdAt(entity.getCreatedAt())
+        .updatedAt(entity.getUpdatedAt())
+        .expiresAt(entity.getExpiresAt())
+        .build();
+  }
+}
@@ -18,62 +18,39 @@ import org.springframework.stereotype.Component;
 public class UserMapper {
 
   public User toModelObject(UserDatabaseEntity entity) {
-    Set<Role> roles = entity.getRoles().stream()
-        .map(role -> Role.of(role.getName()))
-        .collect(Collectors.toSet());
-
-    RoleName primaryRole = determinePrimaryRole(entity);
-
-    return switch (primaryRole) {
-      case ROLE_ADMIN -> mapToAdminUser(entity, roles);
-      case ROLE_GUEST -> mapToGuestUser(entity, roles);
-    };
-  }
-
-  private RoleName determinePrimaryRole(UserDatabaseEntity entity) {
-    Set<RoleName> roles = entity.getRoles().stream()
+    return toModelObject(entity.getUsername(), entity.getEmail(), entity.getRoles().stream()
         .map(RoleDatabaseEntity::getName)
-        .collect(Collectors.toSet());
-
-    // Priority order: ADMIN > GUEST
-    if (roles.contains(RoleName.ROLE_ADMIN)) return RoleName.ROLE_ADMIN;
-    return RoleName.ROLE_GUEST;
+        .collect(Collectors.toSet()));
   }
 
-  private AdminUser mapToAdminUser(UserDatabaseEntity entity, Set<Role> roles) {
+  /**
+   * Map a user read as a projection rather than an entity.
+   */
+  public User toModelObject(String usernameValue, String emailValue, Set<RoleName> roleNames) {
+    Set<Role> roles = roleNames.stream()
+        .map(Role::of)
+        .collect(Collectors.toSet());
 
-    var username = Username.of(entity.getUsername());
+    var username = Username.of(usernameValue);
 
     if(username.isLeft()) {
       throw new IllegalStateException(username.getLeft().getMessage());
     }
 
-    var email = Email.of(entity.getEmail());
+    var email = Email.of(emailValue);
 
     if(email.isLeft()) {
       throw new IllegalStateException(email.getLeft().getMessage());
     }
 
-    return AdminUser.builder()
-        .username(username.get())
-        .email(email.get())
-        .roles(roles)
-        .build();
-  }
-
-  private GuestUser mapToGuestUser(UserDatabaseEntity entity, Set<Role> roles) {
-    var username = Username.of(entity.getUsername());
-
-    if(username.isLeft()) {
-      throw new IllegalStateException(username.getLeft().getMessage());
-    }
-
-    var email = Email.of(entity.getEmail());
-
-    if(email.isLeft()) {
-      throw new IllegalStateException(email.getLeft().getMessage());
+    // Priority order: ADMIN > GUEST
+    if (roleNames.contains(RoleName.ROLE_ADMIN)) {
+      return AdminUser.builder()
+          .username(username.get())
+          .email(email.get())
+          .roles(roles)
+          .build();
     }
-
     return GuestUser.builder()
         .username(username.get())
         .email(email.get())
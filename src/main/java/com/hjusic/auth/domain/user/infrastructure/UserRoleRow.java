@@ -0,0 +1,12 @@
+package com.hjusic.auth.domain.user.infrastructure;
+
+import com.hjusic.auth.domain.role.model.RoleName;
+
+/**
+ * A user joined with one of its roles, {@code role} being {@code null} for a user without roles.
+ * Listing reads these projections instead of entities, so nothing is added to the persistence
+ * context and roles are not loaded one user at a time.
+ */
+public record UserRoleRow(String username, String email, RoleName role) {
+
+}
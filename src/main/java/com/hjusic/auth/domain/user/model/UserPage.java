@@ -0,0 +1,21 @@
+package com.hjusic.auth.domain.user.model;
+
+import java.util.List;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * One page of users in username order. {@code nextCursor} is {@code null} on the last page.
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class UserPage {
+
+  List<User> users;
+  String nextCursor;
+
+  public static UserPage of(List<User> users, String nextCursor) {
+    return new UserPage(List.copyOf(users), nextCursor);
+  }
+}
@@ -0,0 +1,38 @@
+package com.hjusic.auth.domain.user.model;
+
+import com.hjusic.auth.domain.role.model.RoleName;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * Filter and keyset position for listing users. Users are ordered by username; {@code after} is
+ * the last username of the previous page, or {@code null} for the first page.
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class UserQuery {
+
+  public static final int DEFAULT_LIMIT = 100;
+  public static final int MAX_LIMIT = 1000;
+
+  RoleName role;
+  String usernamePrefix;
+  String after;
+  int limit;
+
+  /**
+   * @param role           only users with this role, or any user when {@code null}
+   * @param usernamePrefix only usernames starting with this, or any when blank
+   * @param after          cursor returned with the previous page
+   * @param limit          page size, {@link #DEFAULT_LIMIT} when {@code null}, at most
+   *                       {@link #MAX_LIMIT}
+   */
+  public static UserQuery of(RoleName role, String usernamePrefix, String after, Integer limit) {
+    return new UserQuery(
+        role,
+        usernamePrefix == null || usernamePrefix.isBlank() ? null : usernamePrefix.trim(),
+        after == null || after.isBlank() ? null : after,
+        limit == null ? DEFAULT_LIMIT : Math.clamp(limit, 1, MAX_LIMIT));
+  }
+}
@@ -2,11 +2,17 @@ package com.hjusic.auth.domain.user.model;
 
 import com.hjusic.auth.domain.user.model.event.UserEvent;
 import io.vavr.control.Either;
-import java.util.Collection;
+import java.util.function.Consumer;
 
 public interface Users {
 
-  Collection<User> findAll();
+  UserPage findPage(UserQuery query);
+
+  /**
+   * Pass every user matching the query's filters to {@code action}, in username order, without
+   * holding them all in memory.
+   */
+  void forEach(UserQuery query, Consumer<User> action);
 
   Either<UserError, User> findByUsername(String username);
 
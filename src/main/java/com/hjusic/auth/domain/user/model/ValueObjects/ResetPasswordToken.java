@@ -36,6 +36,13 @@ public class ResetPasswordToken {
     return hashToken(value.toString());
   }
 
+  /**
+   * The value stored for a raw token, so a presented token can be looked up by it.
+   */
+  public static String hash(String rawToken) {
+    return hashToken(rawToken);
+  }
+
   public static boolean verifyToken(String rawToken, String storedHash) {
     String computedHash = hashToken(rawToken);
     return MessageDigest.isEqual(
@@ -20,8 +20,9 @@ public class ResetPasswordProcessListener {
 
   @EventListener
   private void initiateResetPasswordProcessNotification(ResetPasswordProcessStartedEvent event) {
-    notifyEmail.sendNotification(event.getEmail().getValue(), "Reset passwort process started use the following token: " + UI_URL + "/reset?token=" + event.getResetPasswordToken().getValue() + "&username=" + event.getUsername().getValue());
-    log.info("Reset password process notification sent to email: {}", event.getEmail());
+    // Reset processes started together, as by the initiation queue, share one send
+    notifyEmail.sendOnCommit(event.getEmail().getValue(), "Reset passwort process started use the following token: " + UI_URL + "/reset?token=" + event.getResetPasswordToken().getValue() + "&username=" + event.getUsername().getValue());
+    log.info("Reset password process notification queued for email: {}", event.getEmail());
   }
 
 }
@@ -0,0 +1,54 @@
+package com.hjusic.auth.event.infrastructure;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A domain event waiting to be relayed to Kafka. Rows are written in the transaction that changed
+ * the aggregate and deleted once the broker acknowledged them.
+ */
+@Entity
+@Table(name = "event_outbox")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEventEntity {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(nullable = false, length = 100)
+  private String topic;
+
+  @Column(name = "aggregate_key", length = 200)
+  private String aggregateKey;
+
+  @Column(name = "event_type", nullable = false, length = 100)
+  private String eventType;
+
+  /**
+   * Fully qualified class name of the event, sent as the JSON type header. {@code null} for rows
+   * written before the column existed.
+   */
+  @Column(name = "type_id", length = 200)
+  private String typeId;
+
+  @Column(nullable = false, columnDefinition = "TEXT")
+  private String payload;
+
+  @Column(name = "created_at", nullable = false)
+  private Instant createdAt;
+}
@@ -0,0 +1,20 @@
+package com.hjusic.auth.event.infrastructure;
+
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEventEntity, Long> {
+
+  @Query("SELECT e FROM OutboxEventEntity e ORDER BY e.id")
+  List<OutboxEventEntity> findOldest(Pageable pageable);
+
+  /**
+   * Ids only, so checking for pending rows reads nothing but the primary key index.
+   */
+  @Query("SELECT e.id FROM OutboxEventEntity e ORDER BY e.id")
+  List<Long> findOldestIds(Pageable pageable);
+}
@@ -0,0 +1,38 @@
+package com.hjusic.auth.event.infrastructure;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "auth.outbox")
+public class OutboxProperties {
+
+  private boolean relayEnabled = true;
+
+  /**
+   * Pause between relay runs. Events written in the meantime go out together in one batch.
+   */
+  private Duration linger = Duration.ofMillis(200);
+
+  private int batchSize = 200;
+
+  /**
+   * Upper bound on batches per run, so one node does not hold the lease indefinitely.
+   */
+  private int maxBatchesPerRun = 50;
+
+  /**
+   * How long to wait for the broker to acknowledge a batch before retrying it on the next run.
+   */
+  private Duration sendTimeout = Duration.ofSeconds(10);
+
+  /**
+   * How long the relay lease lasts without renewal. The holder keeps it between runs, re-checks
+   * it once half has passed and renews it after every batch, so it must be more than twice
+   * {@link #sendTimeout}. A node that stops relaying hands over after at most this long.
+   */
+  private Duration leaseDuration = Duration.ofSeconds(30);
+}
@@ -0,0 +1,227 @@
+package com.hjusic.auth.event.infrastructure;
+
+import com.hjusic.auth.scheduling.infrastructure.DatabaseLease;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import lombok.extern.log4j.Log4j2;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.ssl.SslBundles;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.kafka.support.mapping.AbstractJavaTypeMapper;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Drains the event outbox to Kafka. Each run sends the oldest rows as one batch, waits for the
+ * broker to acknowledge them and deletes the acknowledged prefix; anything after the first failure
+ * stays for the next run. Only the node holding the relay lease sends, and each run sends the
+ * rows it sees in id order. Ids are assigned at insert, not at commit, so a transaction holding a
+ * lower id can commit after a run has already sent a higher one: events for the same aggregate
+ * key are usually, but not strictly, relayed in the order they happened. Delivery is at least
+ * once: a crash between the acknowledgement and the delete resends the batch.
+ * <p>
+ * A run that finds the outbox empty touches no lease. Otherwise the relay holds on to the lease
+ * between runs rather than releasing it every few hundred milliseconds, and gives it up on
+ * shutdown. A run renews the lease after every batch and stops as soon as renewal fails, so a
+ * slow broker cannot keep a run going after its lease has passed to another node.
+ * <p>
+ * The outbox already holds serialized JSON, so the relay uses its own string producer. Apart from
+ * the serializers it takes every setting, batching included, from {@code spring.kafka.producer}.
+ * Like the JSON serializer it replaces, it adds the {@code __TypeId__} header unless
+ * {@code spring.json.add.type.headers} is off.
+ */
+@Component
+@Log4j2
+public class OutboxRelay implements DisposableBean {
+
+  static final String LEASE_NAME = "event-outbox-relay";
+
+  private final OutboxEventRepository outboxEventRepository;
+  private final OutboxProperties properties;
+  private final DatabaseLease lease;
+  private final TransactionTemplate transactionTemplate;
+  private final ProducerFactory<String, String> producerFactory;
+  private final KafkaTemplate<String, String> kafkaTemplate;
+  private final boolean typeHeaders;
+  private final Counter relayedEvents;
+
+  @Autowired
+  public OutboxRelay(
+      OutboxEventRepository outboxEventRepository,
+      OutboxProperties properties,
+      DatabaseLease lease,
+      TransactionTemplate transactionTemplate,
+      KafkaProperties kafkaProperties,
+      SslBundles sslBundles,
+      MeterRegistry meterRegistry
+  ) {
+    this(outboxEventRepository, properties, lease, transactionTemplate,
+        new DefaultKafkaProducerFactory<>(
+            kafkaProperties.buildProducerProperties(sslBundles),
+            new StringSerializer(),
+            new StringSerializer()),
+        typeHeaders(kafkaProperties.getProducer().getProperties()),
+        meterRegistry);
+  }
+
+  /**
+   * Relay through the given producer factory instead of one built from the Kafka settings, for
+   * example an in-process stub when there is no broker.
+   */
+  public OutboxRelay(
+      OutboxEventRepository outboxEventRepository,
+      OutboxProperties properties,
+      DatabaseLease lease,
+      TransactionTemplate transactionTemplate,
+      ProducerFactory<String, String> producerFactory,
+      MeterRegistry meterRegistry
+  ) {
+    this(outboxEventRepository, properties, lease, transactionTemplate, producerFactory, true,
+        meterRegistry);
+  }
+
+  OutboxRelay(
+      OutboxEventRepository outboxEventRepository,
+      OutboxProperties properties,
+      DatabaseLease lease,
+      TransactionTemplate transactionTemplate,
+      ProducerFactory<String, String> producerFactory,
+      boolean typeHeaders,
+      MeterRegistry meterRegistry
+  ) {
+    this.outboxEventRepository = outboxEventRepository;
+    this.properties = properties;
+    this.lease = lease;
+    this.transactionTemplate = transactionTemplate;
+    this.producerFactory = producerFactory;
+    this.kafkaTemplate = new KafkaTemplate<>(producerFactory);
+    this.typeHeaders = typeHeaders;
+    // A held lease is only re-checked once half of it has passed
+    if (properties.getSendTimeout().compareTo(properties.getLeaseDuration().dividedBy(2)) >= 0) {
+      throw new IllegalStateException(
+          "auth.outbox.send-timeout must be shorter than half of auth.outbox.lease-duration");
+    }
+    this.relayedEvents = Counter.builder("auth.outbox.relayed")
+        .description("Domain events relayed from the outbox to Kafka")
+        .register(meterRegistry);
+  }
+
+  @Scheduled(
+      initialDelayString = "${auth.outbox.initial-delay:PT5S}",
+      fixedDelayString = "${auth.outbox.linger:PT0.2S}"
+  )
+  public void relay() {
+    if (!properties.isRelayEnabled() || !hasPending()) {
+      return;
+    }
+
+    if (lease.hold(LEASE_NAME, properties.getLeaseDuration())) {
+      relayBatches();
+    }
+  }
+
+  private boolean hasPending() {
+    return !outboxEventRepository.findOldestIds(PageRequest.of(0, 1)).isEmpty();
+  }
+
+  void relayBatches() {
+    for (int i = 0; i < properties.getMaxBatchesPerRun(); i++) {
+      List<OutboxEventEntity> batch = transactionTemplate.execute(status ->
+          outboxEventRepository.findOldest(PageRequest.of(0, properties.getBatchSize())));
+      if (batch == null || batch.isEmpty()) {
+        return;
+      }
+
+      int acknowledged = send(batch);
+      if (acknowledged > 0) {
+        var ids = batch.subList(0, acknowledged).stream()
+            .map(OutboxEventEntity::getId)
+            .toList();
+        transactionTemplate.executeWithoutResult(status ->
+            outboxEventRepository.deleteAllByIdInBatch(ids));
+        relayedEvents.increment(acknowledged);
+      }
+
+      if (acknowledged < batch.size()
+          || !lease.renew(LEASE_NAME, properties.getLeaseDuration())) {
+        return;
+      }
+    }
+  }
+
+  static boolean typeHeaders(Map<String, String> producerProperties) {
+    // JsonSerializer adds type headers unless told otherwise
+    return Boolean.parseBoolean(
+        producerProperties.getOrDefault(JsonSerializer.ADD_TYPE_INFO_HEADERS, "true"));
+  }
+
+  ProducerRecord<String, String> toRecord(OutboxEventEntity event) {
+    var record = new ProducerRecord<>(event.getTopic(), event.getAggregateKey(),
+        event.getPayload());
+    if (typeHeaders && event.getTypeId() != null) {
+      record.headers().add(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME,
+          event.getTypeId().getBytes(StandardCharsets.UTF_8));
+    }
+    return record;
+  }
+
+  /**
+   * Send the batch and wait for the acknowledgements.
+   *
+   * @return the length of the acknowledged prefix of the batch
+   */
+  int send(List<OutboxEventEntity> batch) {
+    var futures = new ArrayList<CompletableFuture<SendResult<String, String>>>(batch.size());
+    for (var event : batch) {
+      futures.add(kafkaTemplate.send(toRecord(event)));
+    }
+    kafkaTemplate.flush();
+
+    long deadline = System.nanoTime() + properties.getSendTimeout().toNanos();
+    int acknowledged = 0;
+    for (var future : futures) {
+      try {
+        future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        acknowledged++;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      } catch (ExecutionException | TimeoutException e) {
+        log.warn("Relaying outbox event {} failed, retrying on the next run",
+            batch.get(acknowledged).getId(), e);
+        break;
+      }
+    }
+    return acknowledged;
+  }
+
+  @Override
+  public void destroy() throws Exception {
+    try {
+      lease.release(LEASE_NAME);
+    } catch (RuntimeException e) {
+      log.warn("Releasing the outbox relay lease failed; it runs out on its own", e);
+    }
+    if (producerFactory instanceof DisposableBean disposable) {
+      disposable.destroy();
+    }
+  }
+}
@@ -1,33 +1,124 @@
 package com.hjusic.auth.event.infrastructure;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hjusic.auth.domain.oidc.model.events.OidcClientEvent;
+import com.hjusic.auth.domain.user.model.event.UserEvent;
 import com.hjusic.auth.event.model.DomainEvent;
 import com.hjusic.auth.event.model.DomainEventPublisher;
-import lombok.RequiredArgsConstructor;
+import com.hjusic.auth.notification.model.event.NotificationEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationEventPublisher;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.JacksonUtils;
 import org.springframework.stereotype.Component;
 
+/**
+ * Publishes domain events in-process and records them in the outbox. The outbox row joins the
+ * caller's transaction, so an event reaches Kafka (through {@link OutboxRelay}) only if the change
+ * that raised it was committed, and the request never waits on the broker.
+ * <p>
+ * {@code auth.events.publish} times the in-process listeners and serialization per event type,
+ * {@code auth.events.outbox.write} the outbox insert, so a slow listener and a slow database show
+ * up separately.
+ */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class SpringDomainEventPublisher implements DomainEventPublisher {
 
+  static final String TOPIC_NAME = "auth-event";
+
   private final ApplicationEventPublisher applicationEventPublisher;
-  private final KafkaTemplate<String, DomainEvent> kafkaTemplate;
-  private final String TOPIC_NAME = "auth-event";
+  private final OutboxEventRepository outboxEventRepository;
+  private final MeterRegistry meterRegistry;
+  private final ObjectMapper objectMapper = JacksonUtils.enhancedObjectMapper();
+  private final Map<Class<?>, Timer> publishTimers = new ConcurrentHashMap<>();
+  private final Timer outboxWriteTimer;
+
+  public SpringDomainEventPublisher(
+      ApplicationEventPublisher applicationEventPublisher,
+      OutboxEventRepository outboxEventRepository,
+      MeterRegistry meterRegistry
+  ) {
+    this.applicationEventPublisher = applicationEventPublisher;
+    this.outboxEventRepository = outboxEventRepository;
+    this.meterRegistry = meterRegistry;
+    this.outboxWriteTimer = Timer.builder("auth.events.outbox.write")
+        .description("Time spent writing domain events to the outbox")
+        .register(meterRegistry);
+  }
 
   @Override
   public void publish(DomainEvent event) {
+    var entry = dispatch(event);
+    outboxWriteTimer.record(() -> outboxEventRepository.save(entry));
+  }
+
+  /**
+   * Publish the events in order and write their outbox rows in one call, so they are flushed
+   * together and relayed in the same batch.
+   */
+  @Override
+  public void publishAll(Iterable<DomainEvent> events) {
+    var entries = new ArrayList<OutboxEventEntity>();
+    for (var event : events) {
+      entries.add(dispatch(event));
+    }
+    if (!entries.isEmpty()) {
+      outboxWriteTimer.record(() -> outboxEventRepository.saveAll(entries));
+    }
+  }
+
+  private OutboxEventEntity dispatch(DomainEvent event) {
     log.debug("Publishing domain event: {} with ID: {}",
         event.getClass().getSimpleName(),
         event.getEventId());
-    applicationEventPublisher.publishEvent(event);
-    kafkaTemplate.send(TOPIC_NAME, event);
+    return publishTimer(event).record(() -> {
+      applicationEventPublisher.publishEvent(event);
+      return toOutboxEntry(event);
+    });
   }
 
-  @Override
-  public void publishAll(Iterable<DomainEvent> events) {
-    events.forEach(this::publish);
+  private Timer publishTimer(DomainEvent event) {
+    return publishTimers.computeIfAbsent(event.getClass(),
+        type -> Timer.builder("auth.events.publish")
+            .description("Time spent in in-process listeners and serializing a domain event")
+            .tag("event", type.getSimpleName())
+            .register(meterRegistry));
+  }
+
+  private OutboxEventEntity toOutboxEntry(DomainEvent event) {
+    try {
+      return OutboxEventEntity.builder()
+          .topic(TOPIC_NAME)
+          .aggregateKey(aggregateKey(event))
+          .eventType(event.getClass().getSimpleName())
+          .typeId(event.getClass().getName())
+          .payload(objectMapper.writeValueAsString(event))
+          .createdAt(Instant.now())
+          .build();
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Failed to serialize domain event " + event.getEventId(), e);
+    }
+  }
+
+  /**
+   * The record key for an event. Events with the same key land on the same partition; see
+   * {@link OutboxRelay} for the ordering that gives.
+   */
+  static String aggregateKey(DomainEvent event) {
+    return switch (event) {
+      case UserEvent e when e.getUsername() != null -> e.getUsername().getValue();
+      case OidcClientEvent e when e.getClient() != null && e.getClient().getId() != null ->
+          e.getClient().getId().getValue().toString();
+      case NotificationEvent e when e.getNotification() != null ->
+          e.getNotification().getRecipient();
+      default -> null;
+    };
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,84 @@
+package com.hjusic.auth.jwt;
+
+import com.nimbusds.jose.jwk.JWKSet;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * The public JWK set as served by {@code /.well-known/jwks.json} and {@code /oauth2/jwks}.
+ * Serialized once per key-set change and handed out as ready-made bytes with a strong ETag, so
+ * polling resource servers cost neither JSON encoding nor, when they send the ETag back, a body.
+ */
+@Component
+@Log4j2
+public class JwkSetDocument {
+
+  private final JwtKeyMaterial keyMaterial;
+  private final Duration maxAge;
+  private final AtomicReference<Snapshot> current = new AtomicReference<>();
+
+  public JwkSetDocument(
+      JwtKeyMaterial keyMaterial,
+      @Value("${jwt.jwks.max-age:5m}") Duration maxAge
+  ) {
+    this.keyMaterial = keyMaterial;
+    this.maxAge = maxAge;
+  }
+
+  public Snapshot current() {
+    var jwkSet = keyMaterial.getJwkSet();
+    var snapshot = current.get();
+    if (snapshot != null && snapshot.source() == jwkSet) {
+      return snapshot;
+    }
+
+    var rebuilt = Snapshot.of(jwkSet);
+    current.set(rebuilt);
+    log.debug("Rebuilt JWKS document with ETag {}", rebuilt.etag());
+    return rebuilt;
+  }
+
+  public Duration getMaxAge() {
+    return maxAge;
+  }
+
+  /**
+   * Whether an {@code If-None-Match} header value matches the given ETag.
+   */
+  public static boolean matches(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (var candidate : ifNoneMatch.split(",")) {
+      var trimmed = candidate.trim();
+      if (trimmed.equals("*") || trimmed.equals(etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public record Snapshot(JWKSet source, byte[] body, String etag) {
+
+    static Snapshot of(JWKSet jwkSet) {
+      var body = jwkSet.toPublicJWKSet().toString().getBytes(StandardCharsets.UTF_8);
+      return new Snapshot(jwkSet, body, etag(body));
+    }
+
+    private static String etag(byte[] body) {
+      try {
+        var digest = MessageDigest.getInstance("SHA-256").digest(body);
+        return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest) + "\"";
+      } catch (NoSuchAlgorithmException e) {
+        throw new IllegalStateException("SHA-256 not available", e);
+      }
+    }
+  }
+}
@@ -0,0 +1,22 @@
+package com.hjusic.auth.jwt;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "jwt.authentication")
+public class JwtAuthenticationProperties {
+
+  /**
+   * Build the authentication from verified token claims instead of loading the user per request.
+   */
+  private boolean stateless = false;
+
+  /**
+   * Tokens issued longer ago than this are checked against the database even in stateless mode.
+   */
+  private Duration maxStaleness = Duration.ofMinutes(5);
+}
@@ -0,0 +1,70 @@
+package com.hjusic.auth.jwt;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Arrays;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Signature algorithms a signing key can use. ES256 and EdDSA sign far cheaper than RS256 and
+ * produce much shorter signatures; EdDSA keys are Ed25519.
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@Getter
+public enum JwtSigningAlgorithm {
+
+  RS256("RS256", "RSA", Jwts.SIG.RS256,
+      org.springframework.security.oauth2.jose.jws.SignatureAlgorithm.RS256),
+  ES256("ES256", "EC", Jwts.SIG.ES256,
+      org.springframework.security.oauth2.jose.jws.SignatureAlgorithm.ES256),
+  // The authorization server's token encoder has no EdDSA support
+  EDDSA("EdDSA", "Ed25519", Jwts.SIG.EdDSA, null);
+
+  private final String jwsName;
+
+  /**
+   * The {@link java.security.KeyFactory} and {@link KeyPairGenerator} algorithm of the keys.
+   */
+  private final String keyAlgorithm;
+
+  private final SignatureAlgorithm signatureAlgorithm;
+
+  private final org.springframework.security.oauth2.jose.jws.SignatureAlgorithm
+      authorizationServerAlgorithm;
+
+  /**
+   * Resolve an algorithm by its JWS name, ignoring case, e.g. {@code ES256} or {@code EdDSA}.
+   */
+  public static JwtSigningAlgorithm fromJwsName(String name) {
+    return Arrays.stream(values())
+        .filter(algorithm -> algorithm.jwsName.equalsIgnoreCase(name.trim()))
+        .findFirst()
+        .orElseThrow(() -> new IllegalArgumentException("Unsupported JWT algorithm: " + name));
+  }
+
+  public boolean isSupportedByAuthorizationServer() {
+    return authorizationServerAlgorithm != null;
+  }
+
+  public KeyPair generateKeyPair() {
+    try {
+      var generator = KeyPairGenerator.getInstance(keyAlgorithm);
+      switch (this) {
+        case RS256 -> generator.initialize(2048);
+        case ES256 -> generator.initialize(new ECGenParameterSpec("secp256r1"));
+        case EDDSA -> {
+          // Ed25519 has a single key size
+        }
+      }
+      return generator.generateKeyPair();
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Failed to generate " + jwsName + " key pair", e);
+    }
+  }
+}
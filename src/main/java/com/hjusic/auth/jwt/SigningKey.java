@@ -0,0 +1,108 @@
+package com.hjusic.auth.jwt;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.OctetKeyPair;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.util.Base64URL;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * One key of the signing key ring. The key id is the RFC 7638 thumbprint of the public key, so
+ * every node derives the same id for the same key, across restarts.
+ *
+ * @param retiresAt when the key stops being accepted, or {@code null} while it is current
+ */
+public record SigningKey(
+    String kid,
+    JwtSigningAlgorithm algorithm,
+    PrivateKey privateKey,
+    PublicKey publicKey,
+    JWK jwk,
+    Instant retiresAt
+) {
+
+  // Raw Ed25519 keys are the last 32 bytes of their X.509 and PKCS#8 encodings
+  private static final int ED25519_KEY_LENGTH = 32;
+
+  public static SigningKey rsa(RSAPrivateKey privateKey, RSAPublicKey publicKey) {
+    return of(JwtSigningAlgorithm.RS256, privateKey, publicKey);
+  }
+
+  public static SigningKey of(
+      JwtSigningAlgorithm algorithm,
+      PrivateKey privateKey,
+      PublicKey publicKey
+  ) {
+    try {
+      var publicJwk = publicJwk(algorithm, publicKey);
+      var kid = publicJwk.computeThumbprint().toString();
+      var jwk = privateJwk(algorithm, privateKey, publicKey, kid);
+      return new SigningKey(kid, algorithm, privateKey, publicKey, jwk, null);
+    } catch (JOSEException e) {
+      throw new IllegalStateException("Failed to compute key thumbprint", e);
+    }
+  }
+
+  public SigningKey retiringAt(Instant instant) {
+    return new SigningKey(kid, algorithm, privateKey, publicKey, jwk, instant);
+  }
+
+  public boolean isRetiredAt(Instant instant) {
+    return retiresAt != null && !instant.isBefore(retiresAt);
+  }
+
+  private static JWK publicJwk(JwtSigningAlgorithm algorithm, PublicKey publicKey) {
+    return switch (algorithm) {
+      case RS256 -> new RSAKey.Builder((RSAPublicKey) publicKey).build();
+      case ES256 -> new ECKey.Builder(Curve.P_256, (ECPublicKey) publicKey).build();
+      case EDDSA -> new OctetKeyPair.Builder(Curve.Ed25519, rawEd25519(publicKey.getEncoded()))
+          .build();
+    };
+  }
+
+  private static JWK privateJwk(
+      JwtSigningAlgorithm algorithm,
+      PrivateKey privateKey,
+      PublicKey publicKey,
+      String kid
+  ) {
+    var jwsAlgorithm = JWSAlgorithm.parse(algorithm.getJwsName());
+    return switch (algorithm) {
+      case RS256 -> new RSAKey.Builder((RSAPublicKey) publicKey)
+          .privateKey((RSAPrivateKey) privateKey)
+          .keyUse(KeyUse.SIGNATURE)
+          .algorithm(jwsAlgorithm)
+          .keyID(kid)
+          .build();
+      case ES256 -> new ECKey.Builder(Curve.P_256, (ECPublicKey) publicKey)
+          .privateKey((ECPrivateKey) privateKey)
+          .keyUse(KeyUse.SIGNATURE)
+          .algorithm(jwsAlgorithm)
+          .keyID(kid)
+          .build();
+      case EDDSA -> new OctetKeyPair.Builder(Curve.Ed25519, rawEd25519(publicKey.getEncoded()))
+          .d(rawEd25519(privateKey.getEncoded()))
+          .keyUse(KeyUse.SIGNATURE)
+          .algorithm(jwsAlgorithm)
+          .keyID(kid)
+          .build();
+    };
+  }
+
+  private static Base64URL rawEd25519(byte[] encoded) {
+    return Base64URL.encode(
+        Arrays.copyOfRange(encoded, encoded.length - ED25519_KEY_LENGTH, encoded.length));
+  }
+}
@@ -0,0 +1,72 @@
+package com.hjusic.auth.jwt;
+
+import com.hjusic.auth.domain.user.model.event.ChangePasswordEvent;
+import com.hjusic.auth.domain.user.model.event.ResetPasswordProcessComplete;
+import com.hjusic.auth.domain.user.model.event.UpdateRolesEvent;
+import com.hjusic.auth.domain.user.model.event.UserDeletedEvent;
+import com.hjusic.auth.domain.user.model.event.UserEvent;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Remembers, per username, the moment after which previously issued tokens must no longer be
+ * trusted on their claims alone. Fed by user events that change who a user is or whether they
+ * exist; entries are dropped once every token issued before them has expired.
+ */
+@Component
+@Log4j2
+public class TokenRevocationRegistry {
+
+  private final Map<String, Instant> revokedBefore = new ConcurrentHashMap<>();
+
+  @Value("${jwt.refresh-expiration}")
+  private long refreshExpiration;
+
+  public void revoke(String username) {
+    var now = Instant.now();
+    revokedBefore.put(username, now);
+    revokedBefore.values().removeIf(at -> at.plusMillis(refreshExpiration).isBefore(now));
+    log.debug("Revoked claims-only trust for tokens of user {}", username);
+  }
+
+  /**
+   * Whether the token was issued at or before the last revocation of its subject. JWT issue
+   * times have second precision, so a token from the same second is treated as revoked.
+   */
+  public boolean isRevoked(VerifiedToken token) {
+    var revokedAt = revokedBefore.get(token.subject());
+    return revokedAt != null
+        && (token.issuedAt() == null || !token.issuedAt().isAfter(revokedAt));
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  void onUserDeleted(UserDeletedEvent event) {
+    revoke(event);
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  void onRolesUpdated(UpdateRolesEvent event) {
+    revoke(event);
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  void onPasswordChanged(ChangePasswordEvent event) {
+    revoke(event);
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  void onPasswordReset(ResetPasswordProcessComplete event) {
+    revoke(event);
+  }
+
+  private void revoke(UserEvent event) {
+    if (event.getUsername() != null) {
+      revoke(event.getUsername().getValue());
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package com.hjusic.auth.jwt;
+
+import io.jsonwebtoken.Claims;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Immutable result of a single signature verification. Callers read what they need from here
+ * instead of parsing the same token again.
+ */
+public record VerifiedToken(
+    String subject,
+    List<String> roles,
+    Instant issuedAt,
+    Instant expiresAt,
+    String jti,
+    String issuer
+) {
+
+  public VerifiedToken {
+    roles = roles == null ? List.of() : List.copyOf(roles);
+  }
+
+  @SuppressWarnings("unchecked")
+  static VerifiedToken from(Claims claims) {
+    return new VerifiedToken(
+        claims.getSubject(),
+        claims.get("roles", List.class),
+        toInstant(claims.getIssuedAt()),
+        toInstant(claims.getExpiration()),
+        claims.getId(),
+        claims.getIssuer()
+    );
+  }
+
+  public boolean isExpired() {
+    return expiresAt != null && expiresAt.isBefore(Instant.now());
+  }
+
+  private static Instant toInstant(Date date) {
+    return date == null ? null : date.toInstant();
+  }
+}
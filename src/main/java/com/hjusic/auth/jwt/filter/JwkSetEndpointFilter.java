@@ -0,0 +1,56 @@
+package com.hjusic.auth.jwt.filter;
+
+import com.hjusic.auth.jwt.JwkSetDocument;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Serves the authorization server's JWK set endpoint from {@link JwkSetDocument}, ahead of the
+ * endpoint filter that would otherwise serialize the key set on every request, so it returns the
+ * same bytes, ETag and caching headers as {@code /.well-known/jwks.json}.
+ */
+@RequiredArgsConstructor
+public class JwkSetEndpointFilter extends OncePerRequestFilter {
+
+  private final JwkSetDocument document;
+  private final String endpointPath;
+
+  @Override
+  protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+    return !HttpMethod.GET.matches(request.getMethod())
+        || !endpointPath.equals(request.getRequestURI().substring(
+            request.getContextPath().length()));
+  }
+
+  @Override
+  protected void doFilterInternal(
+      @NonNull HttpServletRequest request,
+      @NonNull HttpServletResponse response,
+      @NonNull FilterChain filterChain
+  ) throws ServletException, IOException {
+    var snapshot = document.current();
+    response.setHeader(HttpHeaders.ETAG, snapshot.etag());
+    response.setHeader(HttpHeaders.CACHE_CONTROL,
+        CacheControl.maxAge(document.getMaxAge()).cachePublic().getHeaderValue());
+
+    if (JwkSetDocument.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), snapshot.etag())) {
+      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      return;
+    }
+
+    response.setStatus(HttpServletResponse.SC_OK);
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    response.setContentLength(snapshot.body().length);
+    response.getOutputStream().write(snapshot.body());
+  }
+}
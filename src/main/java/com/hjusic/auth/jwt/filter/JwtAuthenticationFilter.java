@@ -1,7 +1,10 @@
 package com.hjusic.auth.jwt.filter;
 
-import com.hjusic.auth.domain.user.infrastructure.UserDatabaseRepository;
+import com.hjusic.auth.domain.user.infrastructure.UserDetailsCache;
+import com.hjusic.auth.jwt.JwtAuthenticationProperties;
 import com.hjusic.auth.jwt.JwtService;
+import com.hjusic.auth.jwt.TokenRevocationRegistry;
+import com.hjusic.auth.jwt.VerifiedToken;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -10,12 +13,14 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.time.Instant;
 
 @Component
 @RequiredArgsConstructor
@@ -23,7 +28,9 @@ import java.io.IOException;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
   private final JwtService jwtService;
-  private final UserDatabaseRepository userRepository;
+  private final UserDetailsCache userDetailsCache;
+  private final JwtAuthenticationProperties properties;
+  private final TokenRevocationRegistry revocationRegistry;
 
   @Override
   protected void doFilterInternal(
@@ -47,25 +54,40 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     try {
       final String jwt = authHeader.substring(7);
-      final String username = jwtService.extractUsername(jwt);
+      final VerifiedToken verified = jwtService.verify(jwt);
+      final String username = verified.subject();
 
       if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-        var userDetails = userRepository.findByUsername(username);
-
-        if (userDetails.isPresent() && jwtService.isTokenValid(jwt, userDetails.get())) {
+        if (canTrustClaims(verified)) {
+          var authorities = verified.roles().stream()
+              .map(SimpleGrantedAuthority::new)
+              .toList();
           UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-              userDetails.get(),
+              username,
               null,
-              userDetails.get().getAuthorities()
+              authorities
           );
 
           authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
           SecurityContextHolder.getContext().setAuthentication(authToken);
         } else {
-          // Token is invalid or user not found
-          response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-          response.getWriter().write("Invalid or expired token");
-          return;
+          var userDetails = userDetailsCache.findByUsername(username);
+
+          if (userDetails.isPresent() && jwtService.isTokenValid(verified, userDetails.get())) {
+            UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                userDetails.get(),
+                null,
+                userDetails.get().getAuthorities()
+            );
+
+            authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authToken);
+          } else {
+            // Token is invalid or user not found
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            response.getWriter().write("Invalid or expired token");
+            return;
+          }
         }
       }
     } catch (Exception e) {
@@ -78,4 +100,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     filterChain.doFilter(request, response);
   }
+
+  /**
+   * In stateless mode a recent token whose subject has not been revoked since it was issued is
+   * trusted on its claims alone; anything else falls back to the database lookup.
+   */
+  private boolean canTrustClaims(VerifiedToken token) {
+    if (!properties.isStateless() || token.issuedAt() == null) {
+      return false;
+    }
+
+    var fresh = token.issuedAt().plus(properties.getMaxStaleness()).isAfter(Instant.now());
+    return fresh && !revocationRegistry.isRevoked(token);
+  }
 }
@@ -0,0 +1,45 @@
+package com.hjusic.auth.jwt.rotation;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "jwt.rotation")
+public class JwtKeyRotationProperties {
+
+  /**
+   * Generate and rotate signing keys automatically. When off, the configured key is the only
+   * signing key.
+   */
+  private boolean enabled = false;
+
+  /**
+   * How long a key signs before the next one takes over.
+   */
+  private Duration interval = Duration.ofDays(30);
+
+  /**
+   * How long a new key is published before it starts signing. Must exceed the time resource
+   * servers cache the JWK set.
+   */
+  private Duration prepublish = Duration.ofMinutes(15);
+
+  /**
+   * How long a superseded key stays published and accepted. Must cover the longest token
+   * lifetime.
+   */
+  private Duration retention = Duration.ofDays(8);
+
+  /**
+   * How often every node reloads the ring from the database.
+   */
+  private Duration refreshInterval = Duration.ofMinutes(1);
+
+  /**
+   * Secret used to encrypt stored private keys. Required when rotation is enabled.
+   */
+  private String encryptionSecret;
+}
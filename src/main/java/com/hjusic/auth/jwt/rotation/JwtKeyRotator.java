@@ -0,0 +1,186 @@
+package com.hjusic.auth.jwt.rotation;
+
+import com.hjusic.auth.jwt.JwtKeyMaterial;
+import com.hjusic.auth.jwt.JwtSigningAlgorithm;
+import com.hjusic.auth.jwt.SigningKey;
+import com.hjusic.auth.scheduling.infrastructure.DatabaseLease;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Rotates the signing key ring through the database so every node signs with the same key.
+ * <p>
+ * The node holding the rotation lease generates the next key one {@code prepublish} period
+ * before the current key's interval ends. A new key is published at once but signs only from its
+ * activation time, so resource servers see it before any token uses it. A superseded key stays
+ * published for {@code retention} and is then deleted. Every node reloads the ring from the
+ * table on each run; the configured key acts as the first key of the sequence.
+ */
+@Component
+@ConditionalOnProperty(prefix = "jwt.rotation", name = "enabled", havingValue = "true")
+@Log4j2
+public class JwtKeyRotator {
+
+  static final String LEASE_NAME = "jwt-key-rotation";
+
+  private final JwtSigningKeyRepository repository;
+  private final JwtKeyRotationProperties properties;
+  private final JwtKeyMaterial keyMaterial;
+  private final DatabaseLease lease;
+  private final TransactionTemplate transactionTemplate;
+  private final PrivateKeyEncryptor encryptor;
+  private final Clock clock;
+
+  @Autowired
+  public JwtKeyRotator(
+      JwtSigningKeyRepository repository,
+      JwtKeyRotationProperties properties,
+      JwtKeyMaterial keyMaterial,
+      DatabaseLease lease,
+      TransactionTemplate transactionTemplate
+  ) {
+    this(repository, properties, keyMaterial, lease, transactionTemplate, Clock.systemUTC());
+  }
+
+  JwtKeyRotator(
+      JwtSigningKeyRepository repository,
+      JwtKeyRotationProperties properties,
+      JwtKeyMaterial keyMaterial,
+      DatabaseLease lease,
+      TransactionTemplate transactionTemplate,
+      Clock clock
+  ) {
+    this.repository = repository;
+    this.properties = properties;
+    this.keyMaterial = keyMaterial;
+    this.lease = lease;
+    this.transactionTemplate = transactionTemplate;
+    this.encryptor = new PrivateKeyEncryptor(properties.getEncryptionSecret());
+    this.clock = clock;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void onStartup() {
+    refresh();
+  }
+
+  @Scheduled(
+      initialDelayString = "${jwt.rotation.refresh-interval:PT1M}",
+      fixedDelayString = "${jwt.rotation.refresh-interval:PT1M}"
+  )
+  public void refresh() {
+    lease.runExclusively(LEASE_NAME, properties.getRefreshInterval(), this::rotateIfDue);
+    reload();
+  }
+
+  void rotateIfDue() {
+    var now = clock.instant();
+    transactionTemplate.executeWithoutResult(status -> {
+      var keys = repository.findAllByOrderByActivatesAtAsc();
+      if (keys.isEmpty() || !now.isBefore(keys.getLast().getActivatesAt()
+          .plus(properties.getInterval()).minus(properties.getPrepublish()))) {
+        // A generated configured key differs per node, so the first shared key replaces it at once
+        var activatesAt = keys.isEmpty() && keyMaterial.isConfiguredKeyGenerated()
+            ? now
+            : now.plus(properties.getPrepublish());
+        var entity = generate(activatesAt);
+        repository.save(entity);
+        log.info("Generated signing key {} activating at {}", entity.getKid(),
+            entity.getActivatesAt());
+      }
+
+      // A key is deleted once the key after it has been active for the whole retention period
+      for (int i = 0; i < keys.size() - 1; i++) {
+        var supersededAt = keys.get(i + 1).getActivatesAt();
+        if (supersededAt.plus(properties.getRetention()).isBefore(now)) {
+          repository.delete(keys.get(i));
+          log.info("Deleted retired signing key {}", keys.get(i).getKid());
+        }
+      }
+    });
+  }
+
+  void reload() {
+    var now = clock.instant();
+    var entities = transactionTemplate.execute(status ->
+        repository.findAllByOrderByActivatesAtAsc());
+    if (entities == null || entities.isEmpty()) {
+      return;
+    }
+
+    // The configured key is the implicit predecessor of the first stored key
+    var sequence = new ArrayList<SigningKey>();
+    var activations = new ArrayList<Instant>();
+    sequence.add(keyMaterial.getConfiguredKey());
+    activations.add(Instant.MIN);
+    for (var entity : entities) {
+      sequence.add(toSigningKey(entity));
+      activations.add(entity.getActivatesAt());
+    }
+
+    SigningKey active = null;
+    List<SigningKey> others = new ArrayList<>();
+    for (int i = 0; i < sequence.size(); i++) {
+      var key = sequence.get(i);
+      boolean activated = !activations.get(i).isAfter(now);
+      boolean superseded = i + 1 < sequence.size() && !activations.get(i + 1).isAfter(now);
+      if (activated && !superseded) {
+        active = key;
+      } else if (superseded && i == 0 && keyMaterial.isConfiguredKeyGenerated()) {
+        // Known to this node only and superseded at once, so it signed next to nothing; retiring
+        // it would keep a different JWK set on every node for the whole retention period
+        continue;
+      } else if (superseded) {
+        others.add(key.retiringAt(activations.get(i + 1).plus(properties.getRetention())));
+      } else {
+        others.add(key);
+      }
+    }
+
+    keyMaterial.install(active, others);
+  }
+
+  private JwtSigningKeyEntity generate(Instant activatesAt) {
+    var algorithm = keyMaterial.getAlgorithm();
+    var keyPair = algorithm.generateKeyPair();
+    var signingKey = SigningKey.of(algorithm, keyPair.getPrivate(), keyPair.getPublic());
+
+    return JwtSigningKeyEntity.builder()
+        .kid(signingKey.kid())
+        .algorithm(algorithm.getJwsName())
+        .publicKey(Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()))
+        .privateKey(encryptor.encrypt(keyPair.getPrivate().getEncoded()))
+        .activatesAt(activatesAt)
+        .createdAt(clock.instant())
+        .build();
+  }
+
+  private SigningKey toSigningKey(JwtSigningKeyEntity entity) {
+    try {
+      var algorithm = JwtSigningAlgorithm.fromJwsName(entity.getAlgorithm());
+      var keyFactory = KeyFactory.getInstance(algorithm.getKeyAlgorithm());
+      var publicKey = keyFactory.generatePublic(
+          new X509EncodedKeySpec(Base64.getDecoder().decode(entity.getPublicKey())));
+      var privateKey = keyFactory.generatePrivate(
+          new PKCS8EncodedKeySpec(encryptor.decrypt(entity.getPrivateKey())));
+      return SigningKey.of(algorithm, privateKey, publicKey);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Failed to load signing key " + entity.getKid(), e);
+    }
+  }
+}
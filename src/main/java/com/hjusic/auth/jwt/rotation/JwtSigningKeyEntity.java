@@ -0,0 +1,44 @@
+package com.hjusic.auth.jwt.rotation;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A generated signing key. The private key is stored encrypted; the public key as base64 DER.
+ */
+@Entity
+@Table(name = "jwt_signing_keys")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JwtSigningKeyEntity {
+
+  @Id
+  @Column(length = 64)
+  private String kid;
+
+  @Column(nullable = false, length = 16)
+  private String algorithm;
+
+  @Column(name = "public_key", nullable = false, columnDefinition = "TEXT")
+  private String publicKey;
+
+  @Column(name = "private_key", nullable = false, columnDefinition = "TEXT")
+  private String privateKey;
+
+  @Column(name = "activates_at", nullable = false)
+  private Instant activatesAt;
+
+  @Column(name = "created_at", nullable = false)
+  private Instant createdAt;
+}
@@ -0,0 +1,11 @@
+package com.hjusic.auth.jwt.rotation;
+
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface JwtSigningKeyRepository extends JpaRepository<JwtSigningKeyEntity, String> {
+
+  List<JwtSigningKeyEntity> findAllByOrderByActivatesAtAsc();
+}
@@ -0,0 +1,65 @@
+package com.hjusic.auth.jwt.rotation;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * AES-GCM encryption of stored private keys, keyed by a SHA-256 digest of the configured secret.
+ * The output is base64 of the 12-byte nonce followed by the ciphertext and tag.
+ */
+class PrivateKeyEncryptor {
+
+  private static final int NONCE_LENGTH = 12;
+  private static final int TAG_BITS = 128;
+
+  private final SecretKeySpec key;
+  private final SecureRandom random = new SecureRandom();
+
+  PrivateKeyEncryptor(String secret) {
+    if (secret == null || secret.isBlank()) {
+      throw new IllegalStateException("jwt.rotation.encryption-secret must be set");
+    }
+    try {
+      var digest = MessageDigest.getInstance("SHA-256")
+          .digest(secret.getBytes(StandardCharsets.UTF_8));
+      this.key = new SecretKeySpec(digest, "AES");
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+
+  String encrypt(byte[] plaintext) {
+    try {
+      var nonce = new byte[NONCE_LENGTH];
+      random.nextBytes(nonce);
+      var cipher = Cipher.getInstance("AES/GCM/NoPadding");
+      cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, nonce));
+      var ciphertext = cipher.doFinal(plaintext);
+      return Base64.getEncoder().encodeToString(
+          ByteBuffer.allocate(nonce.length + ciphertext.length)
+              .put(nonce)
+              .put(ciphertext)
+              .array());
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Failed to encrypt private key", e);
+    }
+  }
+
+  byte[] decrypt(String encoded) {
+    try {
+      var bytes = Base64.getDecoder().decode(encoded);
+      var cipher = Cipher.getInstance("AES/GCM/NoPadding");
+      cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, bytes, 0, NONCE_LENGTH));
+      return cipher.doFinal(bytes, NONCE_LENGTH, bytes.length - NONCE_LENGTH);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Failed to decrypt private key", e);
+    }
+  }
+}
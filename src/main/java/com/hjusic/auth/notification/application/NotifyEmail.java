@@ -5,19 +5,44 @@ import com.hjusic.auth.notification.model.NotificationError;
 import com.hjusic.auth.notification.model.NotificationErrorCode;
 import com.hjusic.auth.notification.model.NotificationType;
 import com.hjusic.auth.notification.model.Notifications;
+import com.hjusic.auth.notification.model.event.NotificationSent;
 import io.vavr.control.Either;
+import java.util.ArrayList;
+import java.util.List;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Service
 @RequiredArgsConstructor
+@Log4j2
 public class NotifyEmail {
 
   private final Notifications notifications;
 
   public Either<NotificationError, Notification> sendNotification(String recipient, String content) {
+    return create(recipient, content)
+        .map(notification -> notifications.publish(notification.send()));
+  }
 
+  /**
+   * Inside a transaction, send the notification once it has committed, in one batch with every
+   * other notification sent this way in that transaction. Their events are recorded just before
+   * the commit, so a transaction that rolls back, including one whose outbox write fails, sends
+   * nothing. Without a transaction the notification is sent at once.
+   */
+  public Either<NotificationError, Notification> sendOnCommit(String recipient, String content) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      return sendNotification(recipient, content);
+    }
+    return create(recipient, content)
+        .peek(notification -> batchOfCurrentTransaction().add(notification.send()));
+  }
+
+  private Either<NotificationError, Notification> create(String recipient, String content) {
     if (StringUtils.isBlank(recipient)) {
       return Either.left(NotificationError.of("Recipient cannot be blank", NotificationErrorCode.RECIPIENT_INVALID));
     }
@@ -26,9 +51,41 @@ public class NotifyEmail {
       return Either.left(NotificationError.of("Content cannot be blank", NotificationErrorCode.BODY_EMPTY));
     }
 
-    var notification = Notification.of(NotificationType.EMAIL, recipient, "noreply@mail.com", "notify", content);
+    return Either.right(
+        Notification.of(NotificationType.EMAIL, recipient, "noreply@mail.com", "notify", content));
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<NotificationSent> batchOfCurrentTransaction() {
+    var batch = (List<NotificationSent>) TransactionSynchronizationManager.getResource(this);
+    if (batch != null) {
+      return batch;
+    }
+
+    List<NotificationSent> created = new ArrayList<>();
+    TransactionSynchronizationManager.bindResource(this, created);
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void beforeCommit(boolean readOnly) {
+        notifications.recordAll(created);
+      }
+
+      @Override
+      public void afterCommit() {
+        try {
+          notifications.sendAll(created);
+        } catch (RuntimeException e) {
+          // The transaction has committed; failing the caller now would only make it retry
+          log.error("Failed to send {} committed notification(s)", created.size(), e);
+        }
+      }
 
-    return Either.right(notifications.publish(notification.send()));
+      @Override
+      public void afterCompletion(int status) {
+        TransactionSynchronizationManager.unbindResourceIfPossible(NotifyEmail.this);
+      }
+    });
+    return created;
   }
 
 }
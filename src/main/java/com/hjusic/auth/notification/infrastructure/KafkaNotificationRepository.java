@@ -1,9 +1,11 @@
 package com.hjusic.auth.notification.infrastructure;
 
+import com.hjusic.auth.event.model.DomainEvent;
 import com.hjusic.auth.event.model.DomainEventPublisher;
 import com.hjusic.auth.notification.model.Notification;
 import com.hjusic.auth.notification.model.Notifications;
 import com.hjusic.auth.notification.model.event.NotificationEvent;
+import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
@@ -18,9 +20,31 @@ public class KafkaNotificationRepository implements Notifications {
 
   @Override
   public Notification publish(NotificationEvent notification) {
-    kafkaTemplate.send(TOPIC_NAME, notification.getNotification());
+    // Keyed by recipient so notifications to the same address stay in order
+    kafkaTemplate.send(TOPIC_NAME, notification.getNotification().getRecipient(),
+        notification.getNotification());
     publisher.publish(notification);
 
     return notification.getNotification();
   }
+
+  /**
+   * Record the events of every notification with a single outbox write.
+   */
+  @Override
+  public void recordAll(List<? extends NotificationEvent> notifications) {
+    publisher.publishAll(List.<DomainEvent>copyOf(notifications));
+  }
+
+  @Override
+  public List<Notification> sendAll(List<? extends NotificationEvent> notifications) {
+    for (var notification : notifications) {
+      kafkaTemplate.send(TOPIC_NAME, notification.getNotification().getRecipient(),
+          notification.getNotification());
+    }
+
+    return notifications.stream()
+        .map(NotificationEvent::getNotification)
+        .toList();
+  }
 }
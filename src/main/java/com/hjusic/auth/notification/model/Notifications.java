@@ -1,7 +1,19 @@
 package com.hjusic.auth.notification.model;
 
 import com.hjusic.auth.notification.model.event.NotificationEvent;
+import java.util.List;
 
 public interface Notifications {
   Notification publish(NotificationEvent notification);
+
+  /**
+   * Record the events of the notifications as part of the caller's transaction, without sending
+   * anything yet.
+   */
+  void recordAll(List<? extends NotificationEvent> notifications);
+
+  /**
+   * Send notifications whose events were recorded by {@link #recordAll} and committed.
+   */
+  List<Notification> sendAll(List<? extends NotificationEvent> notifications);
 }
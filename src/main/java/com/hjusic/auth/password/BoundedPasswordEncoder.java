@@ -0,0 +1,161 @@
+package com.hjusic.auth.password;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Runs {@link #encode} and {@link #matches} of the wrapped encoder on a fixed-size pool with a
+ * bounded queue, so a burst of logins cannot run more expensive hashes at once than the pool
+ * allows. When the queue is full the call is rejected at once; when the hash does not finish
+ * within the configured wait it is cancelled. Either way the caller gets a
+ * {@link PasswordHashingRejectedException}.
+ */
+@Log4j2
+public class BoundedPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+  private static final String UNKNOWN_SCHEME = "unknown";
+  private static final int MAX_SCHEME_LENGTH = 16;
+
+  private final PasswordEncoder delegate;
+  private final PasswordHashingProperties properties;
+  private final ThreadPoolExecutor executor;
+  private final MeterRegistry meterRegistry;
+  private final Map<String, Timer> encodeTimers = new ConcurrentHashMap<>();
+  private final Map<String, Timer> matchesTimers = new ConcurrentHashMap<>();
+  private final Counter rejected;
+
+  public BoundedPasswordEncoder(PasswordEncoder delegate, PasswordHashingProperties properties,
+      MeterRegistry meterRegistry) {
+    this.delegate = delegate;
+    this.properties = properties;
+    this.executor = new ThreadPoolExecutor(
+        properties.getPoolSize(),
+        properties.getPoolSize(),
+        0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+        namedThreads(),
+        new ThreadPoolExecutor.AbortPolicy());
+
+    this.meterRegistry = meterRegistry;
+    this.rejected = Counter.builder("auth.password.hashing.rejected")
+        .description("Hash requests rejected because the hashing pool was saturated")
+        .register(meterRegistry);
+    Gauge.builder("auth.password.hashing.queue.depth", executor, e -> e.getQueue().size())
+        .description("Hash requests waiting for a hashing thread")
+        .register(meterRegistry);
+    Gauge.builder("auth.password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+        .description("Hashing threads currently busy")
+        .register(meterRegistry);
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return submit(() -> {
+      long start = System.nanoTime();
+      var encoded = delegate.encode(rawPassword);
+      timer(encodeTimers, "encode", scheme(encoded))
+          .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      return encoded;
+    });
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return submit(() -> timer(matchesTimers, "matches", scheme(encodedPassword))
+        .record(() -> delegate.matches(rawPassword, encodedPassword)));
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    return delegate.upgradeEncoding(encodedPassword);
+  }
+
+  private <T> T submit(Callable<T> task) {
+    Future<T> future;
+    try {
+      future = executor.submit(task);
+    } catch (RejectedExecutionException e) {
+      throw reject("Password hashing queue is full");
+    }
+
+    try {
+      return future.get(properties.getMaxWait().toMillis(), TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      future.cancel(true);
+      throw reject("Password hashing did not complete in time");
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw reject("Interrupted while waiting for password hashing");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw new IllegalStateException("Password hashing failed", e.getCause());
+    }
+  }
+
+  private Timer timer(Map<String, Timer> timers, String operation, String scheme) {
+    return timers.computeIfAbsent(scheme, key -> Timer.builder("auth.password.hashing")
+        .description("Time spent hashing passwords, excluding the wait for a thread")
+        .tag("operation", operation)
+        .tag("scheme", key)
+        .register(meterRegistry));
+  }
+
+  /**
+   * The encoder id of a {@code {id}hash} value, or {@code unknown}. Only short lowercase ids are
+   * used as tag values, so the tag stays low-cardinality whatever is stored.
+   */
+  static String scheme(String encodedPassword) {
+    if (encodedPassword == null || !encodedPassword.startsWith("{")) {
+      return UNKNOWN_SCHEME;
+    }
+    int end = encodedPassword.indexOf('}');
+    if (end < 2 || end > MAX_SCHEME_LENGTH + 1) {
+      return UNKNOWN_SCHEME;
+    }
+    var id = encodedPassword.substring(1, end);
+    return id.chars().allMatch(c -> (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9'))
+        ? id
+        : UNKNOWN_SCHEME;
+  }
+
+  private PasswordHashingRejectedException reject(String message) {
+    rejected.increment();
+    log.warn("{} (queued: {}, active: {})", message, executor.getQueue().size(),
+        executor.getActiveCount());
+    return new PasswordHashingRejectedException(message, properties.getRetryAfter());
+  }
+
+  private static ThreadFactory namedThreads() {
+    var counter = new AtomicInteger();
+    return runnable -> {
+      var thread = new Thread(runnable, "password-hashing-" + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdownNow();
+  }
+}
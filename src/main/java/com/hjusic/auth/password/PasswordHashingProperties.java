@@ -0,0 +1,68 @@
+package com.hjusic.auth.password;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "auth.password-hashing")
+public class PasswordHashingProperties {
+
+  /**
+   * Threads that may hash at the same time. Each Argon2 hash holds its memory cost while it runs,
+   * so this also bounds the heap used for hashing.
+   */
+  private int poolSize = Runtime.getRuntime().availableProcessors();
+
+  /**
+   * Hash requests allowed to wait for a thread. Requests beyond this are rejected at once.
+   */
+  private int queueCapacity = 64;
+
+  /**
+   * Longest a caller waits for its hash, time in the queue included, before the request is
+   * rejected.
+   */
+  private Duration maxWait = Duration.ofSeconds(5);
+
+  /**
+   * Sent as {@code Retry-After} when a request is rejected.
+   */
+  private Duration retryAfter = Duration.ofSeconds(1);
+
+  /**
+   * Parameters for new Argon2 hashes. Raising memory or iterations rehashes stored Argon2
+   * passwords on the next successful login; hashes from other encoders are always rehashed.
+   */
+  private Argon2 argon2 = new Argon2();
+
+  /**
+   * Delay after start-up before the per-scheme hash counts are first refreshed.
+   */
+  private Duration schemeMetricsInitialDelay = Duration.ofSeconds(30);
+
+  /**
+   * How often the per-scheme hash counts are refreshed. One node at a time counts, under a lease
+   * that it keeps for as long as it goes on counting.
+   */
+  private Duration schemeMetricsInterval = Duration.ofMinutes(10);
+
+  @Data
+  public static class Argon2 {
+
+    private int saltLength = 16;
+
+    private int hashLength = 32;
+
+    private int parallelism = 1;
+
+    /**
+     * Memory cost in KiB.
+     */
+    private int memory = 19456;
+
+    private int iterations = 2;
+  }
+}
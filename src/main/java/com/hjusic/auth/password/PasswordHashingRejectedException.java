@@ -0,0 +1,15 @@
+package com.hjusic.auth.password;
+
+import com.hjusic.auth.rejection.RetryableRejectionException;
+import java.time.Duration;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Thrown when the password hashing pool is saturated. Answered with 503.
+ */
+public class PasswordHashingRejectedException extends RetryableRejectionException {
+
+  public PasswordHashingRejectedException(String message, Duration retryAfter) {
+    super(message, HttpStatus.SERVICE_UNAVAILABLE, retryAfter, "Service temporarily overloaded");
+  }
+}
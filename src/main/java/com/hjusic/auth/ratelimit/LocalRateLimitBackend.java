@@ -0,0 +1,84 @@
+package com.hjusic.auth.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory sliding-window counters. Each key holds the counts of the current and the previous
+ * fixed window, and the previous count is weighted by how much of it still overlaps the sliding
+ * window. Counters are updated with compare-and-set, so concurrent attempts never block. The map
+ * is bounded; idle keys expire and the least recently used are evicted first under pressure.
+ */
+@Component
+public class LocalRateLimitBackend implements RateLimitBackend {
+
+  private final Cache<String, SlidingWindow> windows;
+
+  public LocalRateLimitBackend(LoginRateLimitProperties properties) {
+    this.windows = Caffeine.newBuilder()
+        .maximumSize(properties.getMaximumKeys())
+        .expireAfterAccess(properties.getWindow().multipliedBy(2))
+        .build();
+  }
+
+  @Override
+  public boolean tryAcquire(String key, int limit, Duration window) {
+    return tryAcquire(key, limit, window, System.currentTimeMillis());
+  }
+
+  boolean tryAcquire(String key, int limit, Duration window, long nowMillis) {
+    return windows.get(key, k -> new SlidingWindow())
+        .tryAcquire(limit, window.toMillis(), nowMillis);
+  }
+
+  @Override
+  public long trackedKeys() {
+    return windows.estimatedSize();
+  }
+
+  static final class SlidingWindow {
+
+    private final AtomicReference<Counts> counts = new AtomicReference<>(new Counts(0, 0, 0));
+
+    boolean tryAcquire(int limit, long windowMillis, long nowMillis) {
+      while (true) {
+        var current = counts.get();
+        var rolled = current.rollTo(nowMillis, windowMillis);
+        if (rolled.estimate(nowMillis, windowMillis) >= limit) {
+          // Persist the roll-over only so later reads need not recompute it; losing it is fine
+          counts.compareAndSet(current, rolled);
+          return false;
+        }
+        if (counts.compareAndSet(current, rolled.increment())) {
+          return true;
+        }
+      }
+    }
+  }
+
+  record Counts(long windowStart, long previous, long current) {
+
+    Counts rollTo(long nowMillis, long windowMillis) {
+      long elapsed = nowMillis - windowStart;
+      if (elapsed < windowMillis) {
+        return this;
+      }
+      long start = nowMillis - Math.floorMod(nowMillis, windowMillis);
+      // Only the window directly before the new one still overlaps the sliding window
+      long carried = elapsed < 2 * windowMillis ? current : 0;
+      return new Counts(start, carried, 0);
+    }
+
+    double estimate(long nowMillis, long windowMillis) {
+      double overlap = 1 - (double) (nowMillis - windowStart) / windowMillis;
+      return previous * overlap + current;
+    }
+
+    Counts increment() {
+      return new Counts(windowStart, previous, current + 1);
+    }
+  }
+}
@@ -0,0 +1,15 @@
+package com.hjusic.auth.ratelimit;
+
+import com.hjusic.auth.rejection.RetryableRejectionException;
+import java.time.Duration;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Thrown before any password is checked when a login exceeds its rate limit. Answered with 429.
+ */
+public class LoginRateLimitExceededException extends RetryableRejectionException {
+
+  public LoginRateLimitExceededException(String message, Duration retryAfter) {
+    super(message, HttpStatus.TOO_MANY_REQUESTS, retryAfter, "Too many requests");
+  }
+}
@@ -0,0 +1,31 @@
+package com.hjusic.auth.ratelimit;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "auth.rate-limit.login")
+public class LoginRateLimitProperties {
+
+  private boolean enabled = true;
+
+  private Duration window = Duration.ofMinutes(1);
+
+  /**
+   * Login attempts allowed per username within the window, from any address.
+   */
+  private int maxAttemptsPerUsername = 10;
+
+  /**
+   * Login attempts allowed per client address within the window, for any username.
+   */
+  private int maxAttemptsPerIp = 100;
+
+  /**
+   * Upper bound on tracked usernames and addresses together.
+   */
+  private long maximumKeys = 100_000;
+}
@@ -0,0 +1,65 @@
+package com.hjusic.auth.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Locale;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Component;
+
+/**
+ * Applies the login limits per client address and per username. The address is checked first,
+ * so a flood from one address does not use up the budget of the usernames it targets.
+ */
+@Component
+@Log4j2
+public class LoginRateLimiter {
+
+  private final RateLimitBackend backend;
+  private final LoginRateLimitProperties properties;
+  private final Counter rejectedByIp;
+  private final Counter rejectedByUsername;
+
+  public LoginRateLimiter(RateLimitBackend backend, LoginRateLimitProperties properties,
+      MeterRegistry meterRegistry) {
+    this.backend = backend;
+    this.properties = properties;
+    this.rejectedByIp = Counter.builder("auth.rate-limit.rejected")
+        .description("Login attempts rejected by the rate limiter")
+        .tag("key", "ip")
+        .register(meterRegistry);
+    this.rejectedByUsername = Counter.builder("auth.rate-limit.rejected")
+        .description("Login attempts rejected by the rate limiter")
+        .tag("key", "username")
+        .register(meterRegistry);
+    Gauge.builder("auth.rate-limit.keys", backend, RateLimitBackend::trackedKeys)
+        .description("Usernames and addresses currently tracked by the rate limiter")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Record a login attempt.
+   *
+   * @throws LoginRateLimitExceededException if the address or the username is over its limit
+   */
+  public void check(String username, String remoteAddress) {
+    if (!properties.isEnabled()) {
+      return;
+    }
+
+    if (remoteAddress != null && !backend.tryAcquire("ip:" + remoteAddress,
+        properties.getMaxAttemptsPerIp(), properties.getWindow())) {
+      rejectedByIp.increment();
+      log.debug("Login rate limit exceeded for address {}", remoteAddress);
+      throw new LoginRateLimitExceededException("Too many login attempts", properties.getWindow());
+    }
+
+    if (username != null && !backend.tryAcquire(
+        "user:" + username.trim().toLowerCase(Locale.ROOT),
+        properties.getMaxAttemptsPerUsername(), properties.getWindow())) {
+      rejectedByUsername.increment();
+      log.debug("Login rate limit exceeded for user {}", username);
+      throw new LoginRateLimitExceededException("Too many login attempts", properties.getWindow());
+    }
+  }
+}
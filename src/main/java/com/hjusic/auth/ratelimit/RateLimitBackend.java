@@ -0,0 +1,24 @@
+package com.hjusic.auth.ratelimit;
+
+import java.time.Duration;
+
+/**
+ * Storage for rate-limit counters. {@link LocalRateLimitBackend} keeps them in memory, so each
+ * node enforces its own limits; a shared implementation can replace it to enforce limits across
+ * the cluster.
+ */
+public interface RateLimitBackend {
+
+  /**
+   * Record an attempt for the key if fewer than {@code limit} attempts were seen in the sliding
+   * window ending now.
+   *
+   * @return whether the attempt is allowed
+   */
+  boolean tryAcquire(String key, int limit, Duration window);
+
+  /**
+   * Number of keys currently tracked.
+   */
+  long trackedKeys();
+}
@@ -0,0 +1,44 @@
+package com.hjusic.auth.ratelimit;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Checks the login rate limits before the wrapped provider loads the user or hashes the
+ * password, so rejected attempts cost no hashing work.
+ */
+@RequiredArgsConstructor
+public class RateLimitingAuthenticationProvider implements AuthenticationProvider {
+
+  private final AuthenticationProvider delegate;
+  private final LoginRateLimiter rateLimiter;
+
+  @Override
+  public Authentication authenticate(Authentication authentication)
+      throws AuthenticationException {
+    rateLimiter.check(authentication.getName(), remoteAddress(authentication));
+    return delegate.authenticate(authentication);
+  }
+
+  @Override
+  public boolean supports(Class<?> authentication) {
+    return delegate.supports(authentication);
+  }
+
+  private static String remoteAddress(Authentication authentication) {
+    if (authentication.getDetails() instanceof WebAuthenticationDetails details) {
+      return details.getRemoteAddress();
+    }
+    // The API login builds its token without details
+    var attributes = RequestContextHolder.getRequestAttributes();
+    if (attributes instanceof ServletRequestAttributes servletAttributes) {
+      return servletAttributes.getRequest().getRemoteAddr();
+    }
+    return null;
+  }
+}
@@ -0,0 +1,30 @@
+package com.hjusic.auth.rejection;
+
+import java.time.Duration;
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+/**
+ * A request turned away before any work was done on it, which the client may retry after
+ * {@link #getRetryAfter()}. Mapped to its status with {@code Retry-After} by
+ * {@link com.hjusic.auth.rejection.filter.RetryableRejectionFilter}.
+ */
+@Getter
+public abstract class RetryableRejectionException extends RuntimeException {
+
+  private final HttpStatus status;
+  private final Duration retryAfter;
+
+  /**
+   * Error text sent to the client; the exception message stays in the logs.
+   */
+  private final String error;
+
+  protected RetryableRejectionException(String message, HttpStatus status, Duration retryAfter,
+      String error) {
+    super(message);
+    this.status = status;
+    this.retryAfter = retryAfter;
+    this.error = error;
+  }
+}
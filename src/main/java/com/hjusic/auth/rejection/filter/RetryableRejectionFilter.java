@@ -0,0 +1,64 @@
+package com.hjusic.auth.rejection.filter;
+
+import com.hjusic.auth.rejection.RetryableRejectionException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Turns a {@link RetryableRejectionException} into its status with {@code Retry-After}. Runs ahead
+ * of the security filter chain because rejections are raised from authentication filters as well
+ * as from controllers, and may arrive wrapped in another exception.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Log4j2
+public class RetryableRejectionFilter extends OncePerRequestFilter {
+
+  @Override
+  protected void doFilterInternal(
+      @NonNull HttpServletRequest request,
+      @NonNull HttpServletResponse response,
+      @NonNull FilterChain filterChain
+  ) throws ServletException, IOException {
+    try {
+      filterChain.doFilter(request, response);
+    } catch (ServletException | RuntimeException e) {
+      var rejection = findRejection(e);
+      if (rejection == null || response.isCommitted()) {
+        throw e;
+      }
+
+      log.debug("Rejected {} {}: {}", request.getMethod(), request.getRequestURI(),
+          rejection.getMessage());
+      response.resetBuffer();
+      response.setStatus(rejection.getStatus().value());
+      response.setHeader(HttpHeaders.RETRY_AFTER,
+          String.valueOf(Math.max(1, rejection.getRetryAfter().toSeconds())));
+      response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+      response.getWriter().write("{\"error\":\"" + rejection.getError() + "\"}");
+    }
+  }
+
+  private static RetryableRejectionException findRejection(Throwable throwable) {
+    for (var current = throwable; current != null; current = current.getCause()) {
+      if (current instanceof RetryableRejectionException rejection) {
+        return rejection;
+      }
+      if (current.getCause() == current) {
+        break;
+      }
+    }
+    return null;
+  }
+}
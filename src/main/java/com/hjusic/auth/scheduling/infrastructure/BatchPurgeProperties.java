@@ -0,0 +1,28 @@
+package com.hjusic.auth.scheduling.infrastructure;
+
+import java.time.Duration;
+import lombok.Data;
+
+/**
+ * Settings shared by the purge jobs run through {@link LeasedBatchPurge}. Each job binds its own
+ * subclass under its own prefix.
+ */
+@Data
+public class BatchPurgeProperties {
+
+  private boolean enabled = true;
+
+  private int batchSize = 500;
+
+  /**
+   * Upper bound on batches per run, so a large backlog is worked off over several runs.
+   */
+  private int maxBatchesPerRun = 20;
+
+  private Duration pauseBetweenBatches = Duration.ofMillis(200);
+
+  /**
+   * How long a node may hold the purge lease before another node can take over.
+   */
+  private Duration leaseDuration = Duration.ofMinutes(10);
+}
@@ -0,0 +1,122 @@
+package com.hjusic.auth.scheduling.infrastructure;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Cluster-wide lease backed by a row in {@code scheduler_leases}. A node runs a scheduled job
+ * only while it holds the lease for that job; a crashed holder loses it once the lease runs out.
+ */
+@Component
+@Log4j2
+public class DatabaseLease {
+
+  private final SchedulerLeaseRepository leaseRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final String owner;
+  private final Map<String, Instant> heldUntil = new ConcurrentHashMap<>();
+
+  public DatabaseLease(SchedulerLeaseRepository leaseRepository,
+      TransactionTemplate transactionTemplate) {
+    this.leaseRepository = leaseRepository;
+    this.transactionTemplate = transactionTemplate;
+    this.owner = hostName() + "/" + UUID.randomUUID();
+  }
+
+  /**
+   * Run the task if the named lease can be acquired for the given duration.
+   *
+   * @return whether the task ran
+   */
+  public boolean runExclusively(String name, Duration leaseDuration, Runnable task) {
+    var now = Instant.now();
+    Integer acquired = transactionTemplate.execute(status ->
+        leaseRepository.tryAcquire(name, owner, now.plus(leaseDuration), now));
+
+    if (acquired == null || acquired == 0) {
+      log.debug("Lease {} is held by another node", name);
+      return false;
+    }
+
+    try {
+      task.run();
+      return true;
+    } finally {
+      transactionTemplate.executeWithoutResult(status ->
+          leaseRepository.release(name, owner, Instant.now()));
+    }
+  }
+
+  /**
+   * Extend a lease this node holds, for tasks that run longer than one lease duration. Called
+   * from inside the task passed to {@link #runExclusively}.
+   *
+   * @return whether the lease is still held; once it is not, the task must stop
+   */
+  public boolean renew(String name, Duration leaseDuration) {
+    var now = Instant.now();
+    Integer renewed = transactionTemplate.execute(status ->
+        leaseRepository.extend(name, owner, now.plus(leaseDuration), now));
+
+    if (renewed == null || renewed == 0) {
+      heldUntil.remove(name);
+      log.warn("Lease {} ran out before it was renewed", name);
+      return false;
+    }
+    heldUntil.computeIfPresent(name, (key, until) -> now.plus(leaseDuration));
+    return true;
+  }
+
+  /**
+   * Take the named lease, or extend it if this node holds it already, and keep it after the
+   * call. For jobs that run every few hundred milliseconds, where taking and releasing the lease
+   * on every run would only churn the table: the row is written at most once per half lease, and
+   * a node that stops calling loses the lease once it runs out.
+   *
+   * @return whether this node holds the lease for at least half the given duration
+   */
+  public boolean hold(String name, Duration leaseDuration) {
+    var now = Instant.now();
+    var until = heldUntil.get(name);
+    if (until != null && now.isBefore(until.minus(leaseDuration.dividedBy(2)))) {
+      return true;
+    }
+
+    var lockedUntil = now.plus(leaseDuration);
+    Integer acquired = transactionTemplate.execute(status ->
+        leaseRepository.tryAcquire(name, owner, lockedUntil, now));
+
+    if (acquired == null || acquired == 0) {
+      heldUntil.remove(name);
+      log.debug("Lease {} is held by another node", name);
+      return false;
+    }
+    heldUntil.put(name, lockedUntil);
+    return true;
+  }
+
+  /**
+   * Give up a lease taken with {@link #hold}, so another node can take over at once.
+   */
+  public void release(String name) {
+    if (heldUntil.remove(name) != null) {
+      transactionTemplate.executeWithoutResult(status ->
+          leaseRepository.release(name, owner, Instant.now()));
+    }
+  }
+
+  private static String hostName() {
+    try {
+      return InetAddress.getLocalHost().getHostName();
+    } catch (Exception e) {
+      return "unknown";
+    }
+  }
+}
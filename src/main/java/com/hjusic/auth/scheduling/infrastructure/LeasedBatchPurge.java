@@ -0,0 +1,64 @@
+package com.hjusic.auth.scheduling.infrastructure;
+
+import java.util.function.ToIntFunction;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs purge jobs in bounded batches, each in its own transaction, and only on the node holding
+ * the job's lease. A job supplies the query that deletes one batch; the batch size, the cap on
+ * batches per run and the pause between them come from its {@link BatchPurgeProperties}.
+ */
+@Component
+public class LeasedBatchPurge {
+
+  private final DatabaseLease lease;
+  private final TransactionTemplate transactionTemplate;
+
+  public LeasedBatchPurge(DatabaseLease lease, TransactionTemplate transactionTemplate) {
+    this.lease = lease;
+    this.transactionTemplate = transactionTemplate;
+  }
+
+  /**
+   * Run the purge if it is enabled and the named lease can be acquired.
+   */
+  public void run(String leaseName, BatchPurgeProperties properties, Runnable purge) {
+    if (!properties.isEnabled()) {
+      return;
+    }
+
+    lease.runExclusively(leaseName, properties.getLeaseDuration(), purge);
+  }
+
+  /**
+   * Call {@code batch} with the first page of {@code batchSize} rows until it reports no rows,
+   * the thread is interrupted or the per-run cap is reached.
+   *
+   * @param batch finds and deletes one page of rows, returning how many it deleted
+   * @return the number of rows deleted
+   */
+  public long inBatches(BatchPurgeProperties properties, ToIntFunction<Pageable> batch) {
+    var page = PageRequest.of(0, properties.getBatchSize());
+    long total = 0;
+    for (int i = 0; i < properties.getMaxBatchesPerRun(); i++) {
+      Integer deleted = transactionTemplate.execute(status -> batch.applyAsInt(page));
+      if (deleted == null || deleted == 0 || Thread.currentThread().isInterrupted()) {
+        break;
+      }
+      total += deleted;
+      pause(properties);
+    }
+    return total;
+  }
+
+  private static void pause(BatchPurgeProperties properties) {
+    try {
+      Thread.sleep(properties.getPauseBetweenBatches());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package com.hjusic.auth.scheduling.infrastructure;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "scheduler_leases")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SchedulerLeaseEntity {
+
+  @Id
+  @Column(name = "name", length = 100)
+  private String name;
+
+  @Column(name = "owner", length = 200, nullable = false)
+  private String owner;
+
+  @Column(name = "locked_until", nullable = false)
+  private Instant lockedUntil;
+}
@@ -0,0 +1,45 @@
+package com.hjusic.auth.scheduling.infrastructure;
+
+import java.time.Instant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SchedulerLeaseRepository extends JpaRepository<SchedulerLeaseEntity, String> {
+
+  /**
+   * Take the lease if nobody holds it, it has run out, or the caller already owns it.
+   * Returns the number of rows written, so 1 means the lease was acquired.
+   */
+  @Modifying
+  @Query(value = "INSERT INTO scheduler_leases (name, owner, locked_until)"
+      + " VALUES (:name, :owner, :lockedUntil)"
+      + " ON CONFLICT (name) DO UPDATE SET owner = EXCLUDED.owner, locked_until = EXCLUDED.locked_until"
+      + " WHERE scheduler_leases.locked_until < :now OR scheduler_leases.owner = EXCLUDED.owner",
+      nativeQuery = true)
+  int tryAcquire(
+      @Param("name") String name,
+      @Param("owner") String owner,
+      @Param("lockedUntil") Instant lockedUntil,
+      @Param("now") Instant now);
+
+  /**
+   * Push back the end of a lease the owner still holds. Returns 0 once the lease has run out,
+   * since another node may have taken it over by then.
+   */
+  @Modifying
+  @Query("UPDATE SchedulerLeaseEntity l SET l.lockedUntil = :lockedUntil"
+      + " WHERE l.name = :name AND l.owner = :owner AND l.lockedUntil >= :now")
+  int extend(
+      @Param("name") String name,
+      @Param("owner") String owner,
+      @Param("lockedUntil") Instant lockedUntil,
+      @Param("now") Instant now);
+
+  @Modifying
+  @Query("UPDATE SchedulerLeaseEntity l SET l.lockedUntil = :now WHERE l.name = :name AND l.owner = :owner")
+  int release(@Param("name") String name, @Param("owner") String owner, @Param("now") Instant now);
+}
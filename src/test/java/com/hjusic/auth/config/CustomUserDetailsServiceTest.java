@@ -0,0 +1,69 @@
+package com.hjusic.auth.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.hjusic.auth.domain.user.infrastructure.UserDatabaseEntity;
+import com.hjusic.auth.domain.user.infrastructure.UserDatabaseRepository;
+import com.hjusic.auth.domain.user.infrastructure.UserDetailsCache;
+import java.util.HashSet;
+import java.util.Optional;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CustomUserDetailsService Tests")
+class CustomUserDetailsServiceTest {
+
+  @Mock
+  private UserDetailsCache userDetailsCache;
+
+  @Mock
+  private UserDatabaseRepository userRepository;
+
+  @InjectMocks
+  private CustomUserDetailsService service;
+
+  @Test
+  @DisplayName("should store the upgraded hash and return the reloaded user")
+  void shouldStoreUpgradedHash() {
+    var stale = user("{bcrypt}old");
+    var upgraded = user("{argon2}new");
+    when(userRepository.updatePasswordByUsername("alice", "{argon2}new")).thenReturn(1);
+    when(userDetailsCache.findByUsername("alice")).thenReturn(Optional.of(upgraded));
+
+    var result = service.updatePassword(stale, "{argon2}new");
+
+    verify(userDetailsCache).evict("alice");
+    assertThat(result.getPassword()).isEqualTo("{argon2}new");
+  }
+
+  @Test
+  @DisplayName("should return the user unchanged when it no longer exists")
+  void shouldReturnUserWhenMissing() {
+    var stale = user("{bcrypt}old");
+    when(userRepository.updatePasswordByUsername("alice", "{argon2}new")).thenReturn(0);
+
+    var result = service.updatePassword(stale, "{argon2}new");
+
+    assertThat(result).isSameAs(stale);
+    verify(userDetailsCache, never()).evict(anyString());
+  }
+
+  private static UserDatabaseEntity user(String password) {
+    return UserDatabaseEntity.builder()
+        .username("alice")
+        .email("alice@example.com")
+        .password(password)
+        .roles(new HashSet<>())
+        .enabled(true)
+        .build();
+  }
+}
@@ -28,6 +28,7 @@ import java.util.Set;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -198,9 +199,30 @@ public class OidcAuthenticationFlowIntegrationTest extends OidcClientApiIntegrat
     mockMvc.perform(get("/oauth2/jwks"))
         .andDo(print())
         .andExpect(status().isOk())
+        .andExpect(header().exists("ETag"))
         .andExpect(jsonPath("$.keys").isArray());
   }
 
+  @Test
+  @DisplayName("JWKS endpoints share one document and answer 304 to a matching ETag")
+  void jwksEndpointsShareDocument() throws Exception {
+    var oauth2 = mockMvc.perform(get("/oauth2/jwks"))
+        .andExpect(status().isOk())
+        .andReturn().getResponse();
+    var wellKnown = mockMvc.perform(get("/.well-known/jwks.json"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Cache-Control", containsString("max-age")))
+        .andReturn().getResponse();
+
+    assertThat(wellKnown.getContentAsString()).isEqualTo(oauth2.getContentAsString());
+    assertThat(wellKnown.getHeader("ETag")).isEqualTo(oauth2.getHeader("ETag"));
+
+    mockMvc.perform(get("/oauth2/jwks").header("If-None-Match", oauth2.getHeader("ETag")))
+        .andExpect(status().isNotModified());
+    mockMvc.perform(get("/.well-known/jwks.json").header("If-None-Match", oauth2.getHeader("ETag")))
+        .andExpect(status().isNotModified());
+  }
+
 
   @Test
   @DisplayName("Login endpoint redirects to /oauth2/authorize?continue after valid credentials")
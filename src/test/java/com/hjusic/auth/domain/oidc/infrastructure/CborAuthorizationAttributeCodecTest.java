@@ -0,0 +1,94 @@
+package com.hjusic.auth.domain.oidc.infrastructure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+class CborAuthorizationAttributeCodecTest {
+
+  private JsonAuthorizationAttributeCodec jsonCodec;
+  private CborAuthorizationAttributeCodec cborCodec;
+
+  @BeforeEach
+  void setUp() {
+    var config = new OAuth2JacksonConfig();
+    jsonCodec = new JsonAuthorizationAttributeCodec(config.oauth2ObjectMapper());
+    cborCodec = new CborAuthorizationAttributeCodec(config.oauth2CborMapper(), jsonCodec);
+  }
+
+  @Test
+  @DisplayName("Should round-trip token metadata through the binary format")
+  void shouldRoundTripMetadata() {
+    Map<String, Object> claims = new HashMap<>();
+    claims.put("sub", "alice");
+    claims.put("scope", List.of("openid", "profile"));
+    claims.put("iat", Instant.parse("2025-01-01T00:00:00Z"));
+
+    Map<String, Object> metadata = new HashMap<>();
+    metadata.put("metadata.token.invalidated", false);
+    metadata.put("metadata.token.claims", claims);
+
+    var encoded = cborCodec.encode(metadata);
+    var decoded = cborCodec.decode(encoded);
+
+    assertThat(encoded).startsWith(CborAuthorizationAttributeCodec.VERSION_PREFIX);
+    assertThat(decoded.get("metadata.token.invalidated")).isEqualTo(false);
+    @SuppressWarnings("unchecked")
+    var decodedClaims = (Map<String, Object>) decoded.get("metadata.token.claims");
+    assertThat(decodedClaims.get("sub")).isEqualTo("alice");
+    assertThat(decodedClaims.get("scope")).isEqualTo(List.of("openid", "profile"));
+  }
+
+  @Test
+  @DisplayName("Should round-trip the authenticated principal attribute")
+  void shouldRoundTripPrincipal() {
+    var principal = UsernamePasswordAuthenticationToken.authenticated("alice", null,
+        List.of(new SimpleGrantedAuthority("ROLE_GUEST")));
+    Map<String, Object> attributes = new HashMap<>();
+    attributes.put("java.security.Principal", principal);
+
+    var decoded = cborCodec.decode(cborCodec.encode(attributes));
+
+    var restored = (UsernamePasswordAuthenticationToken) decoded.get("java.security.Principal");
+    assertThat(restored.getName()).isEqualTo("alice");
+    assertThat(restored.getAuthorities()).extracting("authority").containsExactly("ROLE_GUEST");
+  }
+
+  @Test
+  @DisplayName("Should read rows written by the legacy JSON codec")
+  void shouldReadLegacyJson() {
+    Map<String, Object> metadata = new HashMap<>();
+    metadata.put("metadata.token.invalidated", true);
+
+    var legacy = jsonCodec.encode(metadata);
+
+    assertThat(cborCodec.decode(legacy)).containsEntry("metadata.token.invalidated", true);
+  }
+
+  @Test
+  @DisplayName("Should produce a smaller encoding than the legacy JSON codec")
+  void shouldBeSmallerThanJson() {
+    Map<String, Object> claims = new HashMap<>();
+    claims.put("scope", List.of("openid", "profile", "email"));
+    claims.put("aud", List.of("client"));
+    Map<String, Object> metadata = new HashMap<>();
+    metadata.put("metadata.token.claims", claims);
+
+    assertThat(cborCodec.encode(metadata).length()).isLessThan(jsonCodec.encode(metadata).length());
+  }
+
+  @Test
+  @DisplayName("Should decode empty values to an empty map")
+  void shouldDecodeEmpty() {
+    assertThat(cborCodec.decode(null)).isEmpty();
+    assertThat(cborCodec.decode("")).isEmpty();
+  }
+}
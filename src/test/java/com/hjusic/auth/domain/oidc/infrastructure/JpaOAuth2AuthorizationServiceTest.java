@@ -0,0 +1,353 @@
+package com.hjusic.auth.domain.oidc.infrastructure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.hjusic.auth.scheduling.infrastructure.DatabaseLease;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.security.Principal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.OidcScopes;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationCode;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.security.oauth2.server.authorization.client.InMemoryRegisteredClientRepository;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs the service against in-memory stand-ins for the authorization and token lookup tables,
+ * with the real token index and attribute codec.
+ */
+class JpaOAuth2AuthorizationServiceTest {
+
+  private static final String ISSUER = "http://localhost:8081";
+
+  private final Map<String, OAuth2AuthorizationEntity> rows = new HashMap<>();
+  private final Map<String, OAuth2AuthorizationTokenEntity> tokenRows = new HashMap<>();
+
+  private RegisteredClient registeredClient;
+  private OAuth2AuthorizationJpaRepository authorizationRepository;
+  private OAuth2AuthorizationTokenIndex tokenIndex;
+  private AuthorizationAttributeCodec attributeCodec;
+  private JpaOAuth2AuthorizationService service;
+
+  @BeforeEach
+  void setUp() {
+    registeredClient = RegisteredClient.withId(UUID.randomUUID().toString())
+        .clientId("test-client")
+        .clientSecret("{noop}secret")
+        .clientAuthenticationMethod(ClientAuthenticationMethod.CLIENT_SECRET_BASIC)
+        .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+        .authorizationGrantType(AuthorizationGrantType.REFRESH_TOKEN)
+        .redirectUri("http://localhost:3000/callback")
+        .scope(OidcScopes.OPENID)
+        .build();
+
+    authorizationRepository = mock(OAuth2AuthorizationJpaRepository.class);
+    when(authorizationRepository.save(any())).thenAnswer(invocation -> {
+      OAuth2AuthorizationEntity entity = invocation.getArgument(0);
+      rows.put(entity.getId(), entity);
+      return entity;
+    });
+    when(authorizationRepository.findById(anyString())).thenAnswer(invocation ->
+        Optional.ofNullable(rows.get(invocation.<String>getArgument(0))));
+    when(authorizationRepository.getReferenceById(anyString())).thenAnswer(invocation ->
+        rows.get(invocation.<String>getArgument(0)));
+
+    var tokenRepository = mock(OAuth2AuthorizationTokenJpaRepository.class);
+    doAnswer(invocation -> tokenRows.values().removeIf(row ->
+        row.getAuthorization().getId().equals(invocation.getArgument(0))))
+        .when(tokenRepository).deleteByAuthorizationId(anyString());
+    when(tokenRepository.saveAll(any())).thenAnswer(invocation -> {
+      List<OAuth2AuthorizationTokenEntity> saved = invocation.getArgument(0);
+      saved.forEach(row -> tokenRows.put(row.getTokenHash(), row));
+      return saved;
+    });
+    when(tokenRepository.findAuthorizationByTokenHash(anyString())).thenAnswer(invocation ->
+        Optional.ofNullable(tokenRows.get(invocation.<String>getArgument(0)))
+            .map(OAuth2AuthorizationTokenEntity::getAuthorization));
+    when(tokenRepository.findAuthorizationByTokenHashAndType(anyString(), anyString()))
+        .thenAnswer(invocation ->
+            Optional.ofNullable(tokenRows.get(invocation.<String>getArgument(0)))
+                .filter(row -> row.getTokenType().equals(invocation.getArgument(1)))
+                .map(OAuth2AuthorizationTokenEntity::getAuthorization));
+
+    tokenIndex = new OAuth2AuthorizationTokenIndex(tokenRepository, authorizationRepository,
+        mock(TransactionTemplate.class), mock(DatabaseLease.class), true);
+    var jacksonConfig = new OAuth2JacksonConfig();
+    attributeCodec = jacksonConfig.authorizationAttributeCodec(
+        jacksonConfig.oauth2ObjectMapper(), jacksonConfig.oauth2CborMapper(), "cbor");
+    service = service(false);
+  }
+
+  @Test
+  @DisplayName("Should store the latest token expiry for the purge index")
+  void shouldStoreLatestExpiry() {
+    var authorization = authorization();
+
+    service.save(authorization);
+
+    assertThat(rows.get(authorization.getId()).getLatestExpiresAt())
+        .isEqualTo(authorization.getRefreshToken().getToken().getExpiresAt());
+  }
+
+  @Test
+  @DisplayName("Should write back blobs a lookup by access token left encoded byte for byte")
+  void shouldPreserveUndecodedBlobsOnSave() {
+    var authorization = authorization();
+    service.save(authorization);
+    var stored = rows.get(authorization.getId());
+
+    var found = service.findByToken(accessTokenValue(authorization), OAuth2TokenType.ACCESS_TOKEN);
+    assertThat(found.getAttributes()).containsKey(JpaOAuth2AuthorizationService.ENCODED_KEY);
+    service.save(found);
+    var saved = rows.get(authorization.getId());
+
+    assertThat(saved).isNotSameAs(stored);
+    assertThat(saved.getAttributes()).isEqualTo(stored.getAttributes());
+    assertThat(saved.getAuthorizationCodeMetadata())
+        .isEqualTo(stored.getAuthorizationCodeMetadata());
+    assertThat(saved.getRefreshTokenMetadata()).isEqualTo(stored.getRefreshTokenMetadata());
+    assertThat(saved.getOidcIdTokenMetadata()).isEqualTo(stored.getOidcIdTokenMetadata());
+    assertThat(saved.getAccessTokenValue()).isEqualTo(stored.getAccessTokenValue());
+
+    var reloaded = service.findById(authorization.getId());
+    assertThat(reloaded.getAttributes())
+        .doesNotContainKey(JpaOAuth2AuthorizationService.ENCODED_KEY);
+    assertThat((Principal) reloaded.getAttribute(Principal.class.getName()))
+        .extracting(Principal::getName).isEqualTo("alice");
+    assertThat(reloaded.getToken(OAuth2AuthorizationCode.class).isInvalidated()).isTrue();
+  }
+
+  @Test
+  @DisplayName("Should invalidate one token without touching the others")
+  void shouldInvalidateOneToken() {
+    var authorization = authorization();
+    service.save(authorization);
+    var stored = rows.get(authorization.getId());
+
+    var found = service.findByToken(accessTokenValue(authorization), OAuth2TokenType.ACCESS_TOKEN);
+    service.save(OAuth2Authorization.from(found)
+        .token(found.getAccessToken().getToken(), metadata -> metadata.put(
+            OAuth2Authorization.Token.INVALIDATED_METADATA_NAME, true))
+        .build());
+    var saved = rows.get(authorization.getId());
+
+    assertThat(saved.getAccessTokenInvalidated()).isTrue();
+    assertThat(saved.getRefreshTokenInvalidated()).isFalse();
+    assertThat(saved.getOidcIdTokenInvalidated()).isFalse();
+    assertThat(saved.getRefreshTokenMetadata()).isEqualTo(stored.getRefreshTokenMetadata());
+    assertThat(saved.getAttributes()).isEqualTo(stored.getAttributes());
+
+    var byRefreshToken = service.findByToken(
+        authorization.getRefreshToken().getToken().getTokenValue(),
+        OAuth2TokenType.REFRESH_TOKEN);
+    assertThat(byRefreshToken.getAccessToken().isActive()).isFalse();
+    assertThat(byRefreshToken.getRefreshToken().isActive()).isTrue();
+    assertThat(service.findById(authorization.getId()).getAccessToken().isInvalidated()).isTrue();
+  }
+
+  @Test
+  @DisplayName("Should read the invalidated flag from metadata on rows without the new columns")
+  void shouldDecodeLegacyRowsWithoutInvalidatedColumns() {
+    var original = authorization();
+    var authorization = OAuth2Authorization.from(original)
+        .token(original.getRefreshToken().getToken(), metadata -> metadata.put(
+            OAuth2Authorization.Token.INVALIDATED_METADATA_NAME, true))
+        .build();
+    service.save(authorization);
+    var legacy = rows.get(authorization.getId());
+    legacy.setAuthorizationCodeInvalidated(null);
+    legacy.setAccessTokenInvalidated(null);
+    legacy.setRefreshTokenInvalidated(null);
+    legacy.setOidcIdTokenInvalidated(null);
+
+    var found = service.findByToken(accessTokenValue(authorization), OAuth2TokenType.ACCESS_TOKEN);
+
+    var refreshToken = found.getRefreshToken();
+    assertThat(refreshToken.getMetadata())
+        .doesNotContainKey(JpaOAuth2AuthorizationService.ENCODED_KEY);
+    assertThat(refreshToken.isInvalidated()).isTrue();
+    assertThat(found.getToken(OAuth2AuthorizationCode.class).isInvalidated()).isTrue();
+    assertThat(found.getToken(OidcIdToken.class).isInvalidated()).isFalse();
+
+    service.save(found);
+    var saved = rows.get(authorization.getId());
+    assertThat(saved.getRefreshTokenInvalidated()).isTrue();
+    assertThat(saved.getAuthorizationCodeInvalidated()).isTrue();
+    assertThat(saved.getOidcIdTokenInvalidated()).isFalse();
+  }
+
+  @Test
+  @DisplayName("Should store digests only and restore the presented value on lookup")
+  void shouldFindDigestRowByRawToken() {
+    var digestService = service(true);
+    var authorization = authorization();
+    var accessToken = accessTokenValue(authorization);
+    digestService.save(authorization);
+
+    var stored = rows.get(authorization.getId());
+    assertThat(List.of(stored.getAuthorizationCodeValue(), stored.getAccessTokenValue(),
+        stored.getRefreshTokenValue(), stored.getOidcIdTokenValue()))
+        .allMatch(OAuth2AuthorizationTokenIndex::isDigest);
+    assertThat(stored.getAccessTokenValue())
+        .isEqualTo(OAuth2AuthorizationTokenIndex.digest(accessToken));
+
+    var found = digestService.findByToken(accessToken, OAuth2TokenType.ACCESS_TOKEN);
+    assertThat(found.getAccessToken().getToken().getTokenValue()).isEqualTo(accessToken);
+    assertThat(found.getToken(accessToken)).isNotNull();
+    assertThat(found.getRefreshToken().getToken().getTokenValue())
+        .isEqualTo(stored.getRefreshTokenValue());
+    assertThat(digestService.findByToken(accessToken, null).getId())
+        .isEqualTo(authorization.getId());
+    assertThat(digestService.findByToken(stored.getAccessTokenValue(), null)).isNull();
+  }
+
+  @Test
+  @DisplayName("Should issue a new access token from a refresh token stored as a digest")
+  void shouldRefreshAgainstDigestRow() {
+    var digestService = service(true);
+    var authorization = authorization();
+    var refreshToken = authorization.getRefreshToken().getToken().getTokenValue();
+    digestService.save(authorization);
+
+    var found = digestService.findByToken(refreshToken, OAuth2TokenType.REFRESH_TOKEN);
+    assertThat(found.getRefreshToken().getToken().getTokenValue()).isEqualTo(refreshToken);
+    assertThat(found.getRefreshToken().isActive()).isTrue();
+
+    var now = Instant.now();
+    var newAccessToken = new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER,
+        "access-" + UUID.randomUUID(), now, now.plus(1, ChronoUnit.HOURS),
+        Set.of(OidcScopes.OPENID));
+    digestService.save(OAuth2Authorization.from(found).token(newAccessToken).build());
+
+    var stored = rows.get(authorization.getId());
+    assertThat(stored.getRefreshTokenValue())
+        .isEqualTo(OAuth2AuthorizationTokenIndex.digest(refreshToken));
+    assertThat(stored.getAccessTokenValue())
+        .isEqualTo(OAuth2AuthorizationTokenIndex.digest(newAccessToken.getTokenValue()));
+    assertThat(digestService.findByToken(newAccessToken.getTokenValue(),
+        OAuth2TokenType.ACCESS_TOKEN)).isNotNull();
+    assertThat(digestService.findByToken(accessTokenValue(authorization),
+        OAuth2TokenType.ACCESS_TOKEN)).isNull();
+    assertThat(digestService.findByToken(refreshToken, OAuth2TokenType.REFRESH_TOKEN))
+        .isNotNull();
+  }
+
+  @Test
+  @DisplayName("Should revoke a refresh token stored as a digest")
+  void shouldRevokeDigestRow() {
+    var digestService = service(true);
+    var authorization = authorization();
+    var refreshToken = authorization.getRefreshToken().getToken().getTokenValue();
+    digestService.save(authorization);
+
+    // Revocation without a token type hint, invalidating the access token along with it
+    var found = digestService.findByToken(refreshToken, null);
+    digestService.save(OAuth2Authorization.from(found)
+        .token(found.getRefreshToken().getToken(), metadata -> metadata.put(
+            OAuth2Authorization.Token.INVALIDATED_METADATA_NAME, true))
+        .token(found.getAccessToken().getToken(), metadata -> metadata.put(
+            OAuth2Authorization.Token.INVALIDATED_METADATA_NAME, true))
+        .build());
+
+    var stored = rows.get(authorization.getId());
+    assertThat(stored.getRefreshTokenInvalidated()).isTrue();
+    assertThat(stored.getAccessTokenInvalidated()).isTrue();
+    assertThat(stored.getAccessTokenValue())
+        .isEqualTo(OAuth2AuthorizationTokenIndex.digest(accessTokenValue(authorization)));
+    var revoked = digestService.findByToken(refreshToken, OAuth2TokenType.REFRESH_TOKEN);
+    assertThat(revoked.getRefreshToken().isActive()).isFalse();
+    assertThat(digestService.findByToken(accessTokenValue(authorization),
+        OAuth2TokenType.ACCESS_TOKEN).getAccessToken().isActive()).isFalse();
+  }
+
+  @Test
+  @DisplayName("Should keep resolving rows written with plaintext token values")
+  void shouldResolvePlaintextRowsInDigestMode() {
+    var authorization = authorization();
+    var accessToken = accessTokenValue(authorization);
+    service.save(authorization);
+    assertThat(rows.get(authorization.getId()).getAccessTokenValue()).isEqualTo(accessToken);
+
+    var digestService = service(true);
+    var found = digestService.findByToken(accessToken, OAuth2TokenType.ACCESS_TOKEN);
+    assertThat(found.getAccessToken().getToken().getTokenValue()).isEqualTo(accessToken);
+    assertThat(found.getRefreshToken().getToken().getTokenValue())
+        .isEqualTo(authorization.getRefreshToken().getToken().getTokenValue());
+
+    digestService.save(found);
+    assertThat(rows.get(authorization.getId()).getAccessTokenValue())
+        .isEqualTo(OAuth2AuthorizationTokenIndex.digest(accessToken));
+    assertThat(digestService.findByToken(accessToken, OAuth2TokenType.ACCESS_TOKEN)
+        .getAccessToken().getToken().getTokenValue()).isEqualTo(accessToken);
+  }
+
+  private JpaOAuth2AuthorizationService service(boolean storeTokenDigests) {
+    return new JpaOAuth2AuthorizationService(authorizationRepository, tokenIndex,
+        new InMemoryRegisteredClientRepository(registeredClient), attributeCodec,
+        storeTokenDigests, new SimpleMeterRegistry());
+  }
+
+  private static String accessTokenValue(OAuth2Authorization authorization) {
+    return authorization.getAccessToken().getToken().getTokenValue();
+  }
+
+  private OAuth2Authorization authorization() {
+    var now = Instant.now();
+    var scopes = Set.of(OidcScopes.OPENID);
+    var principal = UsernamePasswordAuthenticationToken.authenticated("alice", null,
+        List.of(new SimpleGrantedAuthority("ROLE_GUEST")));
+
+    var code = new OAuth2AuthorizationCode("code-" + UUID.randomUUID(), now,
+        now.plus(5, ChronoUnit.MINUTES));
+    var accessToken = new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER,
+        "access-" + UUID.randomUUID(), now, now.plus(1, ChronoUnit.HOURS), scopes);
+    var refreshToken = new OAuth2RefreshToken("refresh-" + UUID.randomUUID(), now,
+        now.plus(7, ChronoUnit.DAYS));
+    var idToken = OidcIdToken.withTokenValue("id-" + UUID.randomUUID())
+        .issuer(ISSUER)
+        .subject("alice")
+        .audience(List.of(registeredClient.getClientId()))
+        .issuedAt(now)
+        .expiresAt(now.plus(1, ChronoUnit.HOURS))
+        .build();
+
+    return OAuth2Authorization.withRegisteredClient(registeredClient)
+        .id("authorization-" + UUID.randomUUID())
+        .principalName("alice")
+        .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+        .authorizedScopes(scopes)
+        .attribute(Principal.class.getName(), principal)
+        .token(code, metadata -> metadata.put(
+            OAuth2Authorization.Token.INVALIDATED_METADATA_NAME, true))
+        .token(accessToken, metadata -> metadata.put(
+            OAuth2Authorization.Token.CLAIMS_METADATA_NAME, Map.of("sub", "alice")))
+        .refreshToken(refreshToken)
+        .token(idToken, metadata -> metadata.put(
+            OAuth2Authorization.Token.CLAIMS_METADATA_NAME, idToken.getClaims()))
+        .build();
+  }
+}
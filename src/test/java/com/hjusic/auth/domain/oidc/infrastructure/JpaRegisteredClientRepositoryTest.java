@@ -0,0 +1,84 @@
+package com.hjusic.auth.domain.oidc.infrastructure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.hjusic.auth.domain.oidc.model.OidcClient;
+import com.hjusic.auth.domain.oidc.model.events.OAuthClientDeletedEvent;
+import com.hjusic.auth.domain.oidc.model.valueObjects.ClientId;
+import com.hjusic.auth.domain.oidc.model.valueObjects.OAuthClientId;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class JpaRegisteredClientRepositoryTest {
+
+  private static final String ID = "550e8400-e29b-41d4-a716-446655440000";
+
+  private OidcClientDatabaseRepository databaseRepository;
+  private JpaRegisteredClientRepository repository;
+
+  @BeforeEach
+  void setUp() {
+    databaseRepository = mock(OidcClientDatabaseRepository.class);
+    repository = new JpaRegisteredClientRepository(databaseRepository, new SimpleMeterRegistry(),
+        100, Duration.ofMinutes(10));
+  }
+
+  @Test
+  @DisplayName("Should serve repeated lookups by id and client id from the cache")
+  void shouldCacheLookups() {
+    when(databaseRepository.findById(ID)).thenReturn(Optional.of(entity()));
+    when(databaseRepository.findByClientId("my-client")).thenReturn(Optional.of(entity()));
+
+    repository.findById(ID);
+    var byId = repository.findById(ID);
+    repository.findByClientId("my-client");
+    var byClientId = repository.findByClientId("my-client");
+
+    assertThat(byId.getClientId()).isEqualTo("my-client");
+    assertThat(byClientId.getId()).isEqualTo(ID);
+    verify(databaseRepository, times(1)).findById(ID);
+    verify(databaseRepository, times(1)).findByClientId("my-client");
+  }
+
+  @Test
+  @DisplayName("Should reload a client after a client event")
+  void shouldEvictOnClientEvent() {
+    when(databaseRepository.findById(ID)).thenReturn(Optional.of(entity()));
+    when(databaseRepository.findByClientId("my-client")).thenReturn(Optional.of(entity()));
+    repository.findById(ID);
+    repository.findByClientId("my-client");
+
+    var client = mock(OidcClient.class);
+    when(client.getId()).thenReturn(OAuthClientId.of(ID).get());
+    when(client.getClientId()).thenReturn(ClientId.of("my-client").get());
+    repository.onClientChanged(OAuthClientDeletedEvent.of(client));
+
+    repository.findById(ID);
+    repository.findByClientId("my-client");
+
+    verify(databaseRepository, times(2)).findById(ID);
+    verify(databaseRepository, times(2)).findByClientId("my-client");
+  }
+
+  private OidcClientDatabaseEntity entity() {
+    return OidcClientDatabaseEntity.builder()
+        .id(ID)
+        .clientId("my-client")
+        .clientSecret("{noop}secret")
+        .clientName("My Client")
+        .clientIdIssuedAt(Instant.now())
+        .grantTypes(Set.of("client_credentials"))
+        .authenticationMethods(Set.of("client_secret_basic"))
+        .build();
+  }
+}
@@ -0,0 +1,79 @@
+package com.hjusic.auth.domain.oidc.infrastructure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.hjusic.auth.BaseIntegrationTest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+@DisplayName("OAuth2 Authorization Purge Integration Tests")
+class OAuth2AuthorizationPurgerIntegrationTest extends BaseIntegrationTest {
+
+  @Autowired
+  private OAuth2AuthorizationJpaRepository authorizationRepository;
+
+  @Autowired
+  private OAuth2AuthorizationPurger purger;
+
+  @BeforeEach
+  void setUp() {
+    authorizationRepository.deleteAll();
+  }
+
+  @Test
+  @DisplayName("Should purge expired and abandoned authorizations, keeping live ones")
+  void shouldPurgeExpiredAndAbandonedAuthorizations() {
+    var now = Instant.now();
+    var expired = now.minus(Duration.ofHours(2));
+    authorizationRepository.saveAll(List.of(
+        authorization("expired")
+            .accessTokenValue("access-1").accessTokenExpiresAt(expired)
+            .refreshTokenValue("refresh-1").refreshTokenExpiresAt(expired)
+            .build(),
+        authorization("refreshable")
+            .accessTokenValue("access-2").accessTokenExpiresAt(expired)
+            .refreshTokenValue("refresh-2").refreshTokenExpiresAt(now.plus(Duration.ofDays(1)))
+            .build(),
+        authorization("abandoned")
+            .state("state-1").updatedAt(now.minus(Duration.ofDays(2)))
+            .build(),
+        authorization("abandoned-before-upgrade")
+            .state("state-2")
+            .build(),
+        authorization("awaiting-consent")
+            .state("state-3").updatedAt(now)
+            .build(),
+        authorization("expired-after-upgrade")
+            .accessTokenValue("access-3").accessTokenExpiresAt(expired)
+            .latestExpiresAt(expired).updatedAt(now.minus(Duration.ofHours(3)))
+            .build(),
+        authorization("live-after-upgrade")
+            .accessTokenValue("access-4").accessTokenExpiresAt(now.plus(Duration.ofHours(1)))
+            .latestExpiresAt(now.plus(Duration.ofHours(1))).updatedAt(now)
+            .build()));
+
+    purger.purge();
+
+    assertThat(authorizationRepository.findAll())
+        .extracting(OAuth2AuthorizationEntity::getId)
+        .containsExactlyInAnyOrder("refreshable", "awaiting-consent", "live-after-upgrade");
+    assertThat(authorizationRepository.findById("refreshable"))
+        .get()
+        .extracting(OAuth2AuthorizationEntity::getLatestExpiresAt)
+        .isNotNull();
+  }
+
+  private static OAuth2AuthorizationEntity.OAuth2AuthorizationEntityBuilder authorization(
+      String id) {
+    return OAuth2AuthorizationEntity.builder()
+        .id(id)
+        .registeredClientId("client")
+        .principalName("alice")
+        .authorizationGrantType("authorization_code");
+  }
+}
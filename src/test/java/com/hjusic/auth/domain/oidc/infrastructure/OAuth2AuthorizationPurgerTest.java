@@ -0,0 +1,140 @@
+package com.hjusic.auth.domain.oidc.infrastructure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.hjusic.auth.scheduling.infrastructure.DatabaseLease;
+import com.hjusic.auth.scheduling.infrastructure.LeasedBatchPurge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class OAuth2AuthorizationPurgerTest {
+
+  private OAuth2AuthorizationJpaRepository authorizationRepository;
+  private OAuth2AuthorizationConsentJpaRepository consentRepository;
+  private DatabaseLease lease;
+  private OAuth2AuthorizationPurgeProperties properties;
+  private SimpleMeterRegistry meterRegistry;
+  private OAuth2AuthorizationPurger purger;
+
+  @BeforeEach
+  void setUp() {
+    authorizationRepository = mock(OAuth2AuthorizationJpaRepository.class);
+    consentRepository = mock(OAuth2AuthorizationConsentJpaRepository.class);
+    lease = mock(DatabaseLease.class);
+    var transactionTemplate = mock(TransactionTemplate.class);
+    when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+        invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    when(authorizationRepository.findOldestExpiryBefore(any())).thenReturn(Optional.empty());
+
+    properties = new OAuth2AuthorizationPurgeProperties();
+    properties.setBatchSize(2);
+    properties.setMaxBatchesPerRun(3);
+    properties.setPauseBetweenBatches(Duration.ZERO);
+    meterRegistry = new SimpleMeterRegistry();
+    purger = new OAuth2AuthorizationPurger(authorizationRepository, consentRepository,
+        properties, new LeasedBatchPurge(lease, transactionTemplate), meterRegistry);
+  }
+
+  @Test
+  @DisplayName("Should purge only while holding the purge lease")
+  void shouldPurgeUnderLease() {
+    purger.purge();
+
+    verify(lease).runExclusively(eq(OAuth2AuthorizationPurger.LEASE_NAME),
+        eq(properties.getLeaseDuration()), any());
+  }
+
+  @Test
+  @DisplayName("Should do nothing when disabled")
+  void shouldSkipWhenDisabled() {
+    properties.setEnabled(false);
+
+    purger.purge();
+
+    verify(lease, never()).runExclusively(any(), any(), any());
+  }
+
+  @Test
+  @DisplayName("Should look for expired and unfinished authorizations with their own cutoffs")
+  void shouldUseBothCutoffs() {
+    when(authorizationRepository.findIdsPurgeable(any(), any(), any())).thenReturn(List.of());
+    var before = Instant.now();
+
+    purger.purgeBatches();
+
+    var cutoff = ArgumentCaptor.forClass(Instant.class);
+    var unfinishedCutoff = ArgumentCaptor.forClass(Instant.class);
+    verify(authorizationRepository).findIdsPurgeable(cutoff.capture(),
+        unfinishedCutoff.capture(), any(Pageable.class));
+    assertThat(cutoff.getValue()).isBetween(
+        before.minus(properties.getRetention()), Instant.now().minus(properties.getRetention()));
+    assertThat(unfinishedCutoff.getValue()).isBetween(
+        before.minus(properties.getUnfinishedMaxAge()),
+        Instant.now().minus(properties.getUnfinishedMaxAge()));
+    verify(authorizationRepository, never()).deleteByIdIn(any());
+  }
+
+  @Test
+  @DisplayName("Should fill in the latest expiry of rows saved before the column existed")
+  void shouldFillLatestExpiryOfOldRows() {
+    when(authorizationRepository.findIdsWithoutLatestExpiry(any()))
+        .thenReturn(List.of("a", "b"), List.of());
+    when(authorizationRepository.fillLatestExpiry(List.of("a", "b"), Instant.EPOCH))
+        .thenReturn(2);
+    when(authorizationRepository.findIdsPurgeable(any(), any(), any())).thenReturn(List.of());
+
+    purger.purgeBatches();
+
+    verify(authorizationRepository).fillLatestExpiry(List.of("a", "b"), Instant.EPOCH);
+    verify(authorizationRepository, times(2)).findIdsWithoutLatestExpiry(any());
+  }
+
+  @Test
+  @DisplayName("Should delete in batches until nothing is left")
+  void shouldDeleteInBatches() {
+    when(authorizationRepository.findIdsPurgeable(any(), any(), any()))
+        .thenReturn(List.of("a", "b"), List.of("c"), List.of());
+    when(authorizationRepository.deleteByIdIn(List.of("a", "b"))).thenReturn(2);
+    when(authorizationRepository.deleteByIdIn(List.of("c"))).thenReturn(1);
+    when(consentRepository.findOrphanedRegisteredClientIds(any())).thenReturn(List.of());
+
+    purger.purgeBatches();
+
+    verify(authorizationRepository, times(3)).findIdsPurgeable(any(), any(), any());
+    assertThat(meterRegistry.get("auth.purge.authorizations").counter().count()).isEqualTo(3);
+  }
+
+  @Test
+  @DisplayName("Should stop after the maximum number of batches per run")
+  void shouldStopAfterMaxBatches() {
+    when(authorizationRepository.findIdsPurgeable(any(), any(), any()))
+        .thenReturn(List.of("a", "b"));
+    when(authorizationRepository.deleteByIdIn(any())).thenReturn(2);
+    when(consentRepository.findOrphanedRegisteredClientIds(any())).thenReturn(List.of("client"));
+    when(consentRepository.deleteByRegisteredClientIdIn(any())).thenReturn(1);
+
+    purger.purgeBatches();
+
+    verify(authorizationRepository, times(3)).deleteByIdIn(any());
+    verify(consentRepository, times(3)).deleteByRegisteredClientIdIn(any());
+    assertThat(meterRegistry.get("auth.purge.authorizations").counter().count()).isEqualTo(6);
+    assertThat(meterRegistry.get("auth.purge.consents").counter().count()).isEqualTo(3);
+  }
+}
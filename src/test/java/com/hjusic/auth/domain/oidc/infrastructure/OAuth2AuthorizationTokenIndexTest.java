@@ -0,0 +1,198 @@
+package com.hjusic.auth.domain.oidc.infrastructure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.hjusic.auth.scheduling.infrastructure.DatabaseLease;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class OAuth2AuthorizationTokenIndexTest {
+
+  private OAuth2AuthorizationTokenJpaRepository tokenRepository;
+  private OAuth2AuthorizationJpaRepository authorizationRepository;
+  private DatabaseLease lease;
+  private OAuth2AuthorizationTokenIndex tokenIndex;
+
+  @BeforeEach
+  void setUp() {
+    tokenRepository = mock(OAuth2AuthorizationTokenJpaRepository.class);
+    authorizationRepository = mock(OAuth2AuthorizationJpaRepository.class);
+    lease = mock(DatabaseLease.class);
+    var transactionTemplate = mock(TransactionTemplate.class);
+    when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+        invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    when(authorizationRepository.getReferenceById(anyString())).thenAnswer(invocation ->
+        OAuth2AuthorizationEntity.builder().id(invocation.getArgument(0)).build());
+
+    tokenIndex = new OAuth2AuthorizationTokenIndex(tokenRepository, authorizationRepository,
+        transactionTemplate, lease, true);
+  }
+
+  @Test
+  @DisplayName("Should replace the lookup rows with one row per token held")
+  @SuppressWarnings("unchecked")
+  void shouldIndexEveryToken() {
+    var entity = OAuth2AuthorizationEntity.builder()
+        .id("authorization-1")
+        .state("state-value")
+        .accessTokenValue("access-value")
+        .refreshTokenValue(OAuth2AuthorizationTokenIndex.digest("refresh-value"))
+        .build();
+
+    tokenIndex.index(entity);
+
+    verify(tokenRepository).deleteByAuthorizationId("authorization-1");
+    ArgumentCaptor<List<OAuth2AuthorizationTokenEntity>> rows =
+        ArgumentCaptor.forClass(List.class);
+    verify(tokenRepository).saveAll(rows.capture());
+    assertThat(rows.getValue())
+        .extracting(OAuth2AuthorizationTokenEntity::getTokenType,
+            OAuth2AuthorizationTokenEntity::getTokenHash)
+        .containsExactly(
+            tuple(OAuth2ParameterNames.STATE,
+                OAuth2AuthorizationTokenIndex.hash("state-value")),
+            tuple(OAuth2ParameterNames.ACCESS_TOKEN,
+                OAuth2AuthorizationTokenIndex.hash("access-value")),
+            tuple(OAuth2ParameterNames.REFRESH_TOKEN,
+                OAuth2AuthorizationTokenIndex.hash("refresh-value")));
+    assertThat(rows.getValue())
+        .allMatch(row -> row.getAuthorization().getId().equals("authorization-1"));
+  }
+
+  @Test
+  @DisplayName("Should look up by hash and type when a token type hint is given")
+  void shouldFindWithTypeHint() {
+    var entity = OAuth2AuthorizationEntity.builder().id("authorization-1").build();
+    var hash = OAuth2AuthorizationTokenIndex.hash("access-value");
+    when(tokenRepository.findAuthorizationByTokenHashAndType(hash,
+        OAuth2ParameterNames.ACCESS_TOKEN)).thenReturn(Optional.of(entity));
+
+    assertThat(tokenIndex.find("access-value", OAuth2ParameterNames.ACCESS_TOKEN))
+        .contains(entity);
+    verify(tokenRepository, never()).findAuthorizationByTokenHash(anyString());
+  }
+
+  @Test
+  @DisplayName("Should look up by hash alone without a token type hint")
+  void shouldFindWithoutTypeHint() {
+    var entity = OAuth2AuthorizationEntity.builder().id("authorization-1").build();
+    var hash = OAuth2AuthorizationTokenIndex.hash("access-value");
+    when(tokenRepository.findAuthorizationByTokenHash(hash)).thenReturn(Optional.of(entity));
+
+    assertThat(tokenIndex.find("access-value", null)).contains(entity);
+    verify(tokenRepository, never()).findAuthorizationByTokenHashAndType(anyString(), anyString());
+  }
+
+  @Test
+  @DisplayName("Should fall back to the token column when the index has no row yet")
+  void shouldFallBackToTokenColumn() {
+    var entity = OAuth2AuthorizationEntity.builder().id("authorization-1").build();
+    when(authorizationRepository.findByRefreshTokenValue("refresh-value"))
+        .thenReturn(Optional.of(entity));
+
+    assertThat(tokenIndex.find("refresh-value", OAuth2ParameterNames.REFRESH_TOKEN))
+        .contains(entity);
+  }
+
+  @Test
+  @DisplayName("Should fall back to all token columns without a token type hint")
+  void shouldFallBackToAnyTokenColumn() {
+    var entity = OAuth2AuthorizationEntity.builder().id("authorization-1").build();
+    when(authorizationRepository.findByAnyToken("access-value")).thenReturn(Optional.of(entity));
+
+    assertThat(tokenIndex.find("access-value", null)).contains(entity);
+  }
+
+  @Test
+  @DisplayName("Should not query the token columns when the index has the token")
+  void shouldSkipFallbackOnHit() {
+    var entity = OAuth2AuthorizationEntity.builder().id("authorization-1").build();
+    when(tokenRepository.findAuthorizationByTokenHash(anyString()))
+        .thenReturn(Optional.of(entity));
+
+    tokenIndex.find("access-value", null);
+
+    verify(authorizationRepository, never()).findByAnyToken(anyString());
+  }
+
+  @Test
+  @DisplayName("Should use only the index once the legacy lookup is turned off")
+  void shouldSkipFallbackWhenDisabled() {
+    tokenIndex = new OAuth2AuthorizationTokenIndex(tokenRepository, authorizationRepository,
+        mock(TransactionTemplate.class), lease, false);
+
+    assertThat(tokenIndex.find("access-value", null)).isEmpty();
+    tokenIndex.backfillLate();
+
+    verify(authorizationRepository, never()).findByAnyToken(anyString());
+    verify(lease, never()).runExclusively(any(), any(), any());
+  }
+
+  @Test
+  @DisplayName("Should backfill only while holding the backfill lease")
+  void shouldBackfillUnderLease() {
+    tokenIndex.backfill();
+
+    verify(lease).runExclusively(eq(OAuth2AuthorizationTokenIndex.BACKFILL_LEASE_NAME),
+        eq(OAuth2AuthorizationTokenIndex.BACKFILL_LEASE_DURATION), any());
+    verify(tokenRepository, never()).findUnindexedAuthorizations(anyString(), any());
+  }
+
+  @Test
+  @DisplayName("Should backfill in batches after the last indexed id, renewing the lease")
+  void shouldBackfillInBatches() {
+    var full = authorizations(0, OAuth2AuthorizationTokenIndex.BACKFILL_BATCH_SIZE);
+    var rest = authorizations(OAuth2AuthorizationTokenIndex.BACKFILL_BATCH_SIZE, 3);
+    when(tokenRepository.findUnindexedAuthorizations(eq(""), any(Pageable.class)))
+        .thenReturn(full);
+    when(tokenRepository.findUnindexedAuthorizations(eq(full.getLast().getId()),
+        any(Pageable.class))).thenReturn(rest);
+    when(lease.renew(OAuth2AuthorizationTokenIndex.BACKFILL_LEASE_NAME,
+        OAuth2AuthorizationTokenIndex.BACKFILL_LEASE_DURATION)).thenReturn(true);
+
+    tokenIndex.backfillBatches();
+
+    verify(tokenRepository, times(full.size() + rest.size())).saveAll(any());
+    verify(lease, times(1)).renew(OAuth2AuthorizationTokenIndex.BACKFILL_LEASE_NAME,
+        OAuth2AuthorizationTokenIndex.BACKFILL_LEASE_DURATION);
+  }
+
+  @Test
+  @DisplayName("Should stop backfilling once the lease is lost")
+  void shouldStopBackfillWhenLeaseIsLost() {
+    var full = authorizations(0, OAuth2AuthorizationTokenIndex.BACKFILL_BATCH_SIZE);
+    when(tokenRepository.findUnindexedAuthorizations(anyString(), any(Pageable.class)))
+        .thenReturn(full);
+
+    tokenIndex.backfillBatches();
+
+    verify(tokenRepository, times(1)).findUnindexedAuthorizations(anyString(), any());
+  }
+
+  private static List<OAuth2AuthorizationEntity> authorizations(int from, int count) {
+    return IntStream.range(from, from + count)
+        .mapToObj(i -> OAuth2AuthorizationEntity.builder()
+            .id("authorization-%05d".formatted(i))
+            .accessTokenValue("access-" + i)
+            .build())
+        .toList();
+  }
+}
@@ -1,6 +1,7 @@
 package com.hjusic.auth.domain.user.api;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -9,8 +10,12 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hjusic.auth.domain.user.api.dto.CompleteResetPasswordRequest;
 import com.hjusic.auth.domain.user.api.dto.CreateUserRequest;
 import com.hjusic.auth.domain.user.api.dto.InitiateResetPasswordRequest;
+import com.hjusic.auth.domain.user.application.ResetPasswordInitiationQueue;
 import com.hjusic.auth.domain.user.infrastructure.ResetPasswordProcessDatabaseEntity;
 import com.hjusic.auth.domain.user.infrastructure.ResetPasswordProcessDatabaseRepository;
+import com.hjusic.auth.domain.user.infrastructure.ResetPasswordProcessPurger;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -26,6 +31,12 @@ class PasswordResetIntegrationTest extends UserApiIntegrationTestBase {
   @Autowired
   private ObjectMapper objectMapper;
 
+  @Autowired
+  private ResetPasswordProcessPurger purger;
+
+  @Autowired
+  private ResetPasswordInitiationQueue initiationQueue;
+
   @Test
   @DisplayName("Should initiate reset and create database entry")
   void shouldInitiatePasswordReset() throws Exception {
@@ -39,7 +50,8 @@ class PasswordResetIntegrationTest extends UserApiIntegrationTestBase {
             .content(objectMapper.writeValueAsString(request)))
         .andExpect(status().isOk());
 
-    // Then
+    // Then - the reset is started in the background
+    awaitInitiationQueue();
     var resetProcesses = resetProcessRepository.findAllWithUser();
     assertThat(resetProcesses).hasSize(1);
     assertThat(resetProcesses.get(0).getUser().getUsername()).isEqualTo("user");
@@ -61,6 +73,7 @@ class PasswordResetIntegrationTest extends UserApiIntegrationTestBase {
         .andExpect(jsonPath("$.message").exists());
 
     // Then - no reset process created
+    awaitInitiationQueue();
     assertThat(resetProcessRepository.findAll()).isEmpty();
   }
 
@@ -93,6 +106,8 @@ class PasswordResetIntegrationTest extends UserApiIntegrationTestBase {
             .contentType(MediaType.APPLICATION_JSON)
             .content(objectMapper.writeValueAsString(request)))
         .andExpect(status().isOk());
+
+    awaitInitiationQueue();
   }
 
   @Test
@@ -268,6 +283,52 @@ class PasswordResetIntegrationTest extends UserApiIntegrationTestBase {
         .isTrue();
   }
 
+  @Test
+  @DisplayName("Should purge expired reset processes, used or not")
+  void shouldPurgeExpiredAndUsedProcesses() {
+    var createdUser = userRepository.findByUsername("user").get();
+    var now = LocalDateTime.now();
+    resetPasswordProcessRepository.saveAll(List.of(
+        ResetPasswordProcessDatabaseEntity.builder()
+            .user(createdUser)
+            .tokenHash(hashToken("expired"))
+            .createdAt(now.minusHours(3))
+            .expiresAt(now.minusHours(2))
+            .build(),
+        ResetPasswordProcessDatabaseEntity.builder()
+            .user(createdUser)
+            .tokenHash(hashToken("used"))
+            .createdAt(now.minusHours(3))
+            .expiresAt(now.minusHours(3).plusMinutes(15))
+            .used(true)
+            .usedAt(now.minusHours(3).plusMinutes(5))
+            .build(),
+        ResetPasswordProcessDatabaseEntity.builder()
+            .user(createdUser)
+            .tokenHash(hashToken("pending"))
+            .createdAt(now)
+            .expiresAt(now.plusMinutes(15))
+            .build(),
+        ResetPasswordProcessDatabaseEntity.builder()
+            .user(createdUser)
+            .tokenHash(hashToken("recently-used"))
+            .createdAt(now.minusMinutes(10))
+            .expiresAt(now.plusMinutes(5))
+            .used(true)
+            .usedAt(now.minusMinutes(5))
+            .build()));
+
+    purger.purge();
+
+    assertThat(resetPasswordProcessRepository.findAll())
+        .extracting(ResetPasswordProcessDatabaseEntity::getTokenHash)
+        .containsExactlyInAnyOrder(hashToken("pending"), hashToken("recently-used"));
+  }
+
+  private void awaitInitiationQueue() {
+    await().atMost(Duration.ofSeconds(10)).until(initiationQueue::isIdle);
+  }
+
   private String hashToken(String rawToken) {
     try {
       java.security.MessageDigest digest = java.security.MessageDigest.getInstance("SHA-256");
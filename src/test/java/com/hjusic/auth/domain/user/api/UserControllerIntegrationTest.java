@@ -1,7 +1,11 @@
 package com.hjusic.auth.domain.user.api;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import org.junit.jupiter.api.DisplayName;
@@ -52,4 +56,75 @@ public class UserControllerIntegrationTest extends UserApiIntegrationTestBase {
         .andExpect(status().isUnauthorized());
   }
 
+  @Test
+  @DisplayName("GET /api/user pages by username and links the next page")
+  void getUsersPaged() throws Exception {
+    String adminToken = jwtService.generateToken(admin);
+
+    mockMvc.perform(get("/api/user")
+            .param("limit", "1")
+            .header("Authorization", "Bearer " + adminToken))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(1))
+        .andExpect(jsonPath("$[0].username.value").value("admin"))
+        .andExpect(header().string("Link", "<http://localhost/api/user?after=admin&limit=1>; "
+            + "rel=\"next\""));
+
+    mockMvc.perform(get("/api/user")
+            .param("limit", "1")
+            .param("after", "admin")
+            .header("Authorization", "Bearer " + adminToken))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(1))
+        .andExpect(jsonPath("$[0].username.value").value("user"))
+        .andExpect(header().doesNotExist("Link"));
+  }
+
+  @Test
+  @DisplayName("GET /api/user filters by role and username prefix")
+  void getUsersFiltered() throws Exception {
+    String adminToken = jwtService.generateToken(admin);
+
+    mockMvc.perform(get("/api/user")
+            .param("role", "ROLE_GUEST")
+            .header("Authorization", "Bearer " + adminToken))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(1))
+        .andExpect(jsonPath("$[0].username.value").value("user"));
+
+    mockMvc.perform(get("/api/user")
+            .param("prefix", "adm")
+            .header("Authorization", "Bearer " + adminToken))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(1))
+        .andExpect(jsonPath("$[0].username.value").value("admin"));
+
+    mockMvc.perform(get("/api/user")
+            .param("prefix", "_")
+            .header("Authorization", "Bearer " + adminToken))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(0));
+  }
+
+  @Test
+  @DisplayName("GET /api/user?format=ndjson streams one user per line")
+  void exportUsersAsNdjson() throws Exception {
+    String adminToken = jwtService.generateToken(admin);
+
+    var result = mockMvc.perform(get("/api/user")
+            .param("format", "ndjson")
+            .header("Authorization", "Bearer " + adminToken))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    var body = mockMvc.perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Content-Type", "application/x-ndjson"))
+        .andReturn().getResponse().getContentAsString();
+
+    var lines = body.lines().toList();
+    assertThat(lines).hasSize(2);
+    assertThat(lines.get(0)).contains("\"admin\"").contains("admin@example.com");
+    assertThat(lines.get(1)).contains("\"user\"").contains("user@example.com");
+  }
 }
@@ -0,0 +1,172 @@
+package com.hjusic.auth.domain.user.application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.hjusic.auth.domain.user.model.User;
+import com.hjusic.auth.domain.user.model.UserError;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vavr.control.Either;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ResetPasswordInitiationQueue Tests")
+class ResetPasswordInitiationQueueTest {
+
+  @Mock
+  private ResetPasswordProcess resetPasswordProcess;
+
+  @Mock
+  private TransactionTemplate transactionTemplate;
+
+  @Mock
+  private User user;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private ResetPasswordInitiationQueue queue;
+
+  @BeforeEach
+  void setUp() {
+    lenient().doAnswer(invocation -> {
+      invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+      return null;
+    }).when(transactionTemplate).executeWithoutResult(any());
+
+    queue = new ResetPasswordInitiationQueue(resetPasswordProcess,
+        new ResetPasswordInitiationProperties(), transactionTemplate, meterRegistry);
+  }
+
+  @Test
+  @DisplayName("should return before the reset is started and start it on drain")
+  void shouldStartResetOnDrain() {
+    when(resetPasswordProcess.initiateResetPasswordProcess("alice"))
+        .thenReturn(Either.<UserError, User>right(user));
+
+    queue.enqueue("alice");
+
+    verify(resetPasswordProcess, never()).initiateResetPasswordProcess(anyString());
+    assertThat(queue.isIdle()).isFalse();
+
+    queue.drain();
+
+    verify(resetPasswordProcess).initiateResetPasswordProcess("alice");
+    assertThat(queue.isIdle()).isTrue();
+  }
+
+  @Test
+  @DisplayName("should coalesce repeated requests for a user within the window")
+  void shouldCoalesceRepeatedRequests() {
+    when(resetPasswordProcess.initiateResetPasswordProcess(anyString()))
+        .thenReturn(Either.<UserError, User>right(user));
+
+    queue.enqueue("alice");
+    queue.enqueue("alice");
+    queue.enqueue("bob");
+    queue.drain();
+    queue.enqueue("alice");
+    queue.drain();
+
+    verify(resetPasswordProcess, times(1)).initiateResetPasswordProcess("alice");
+    verify(resetPasswordProcess, times(1)).initiateResetPasswordProcess("bob");
+    verify(transactionTemplate, times(1)).executeWithoutResult(any());
+  }
+
+  @Test
+  @DisplayName("should start at most max-batches-per-run batches per drain")
+  void shouldCapBatchesPerDrain() {
+    var properties = new ResetPasswordInitiationProperties();
+    properties.setBatchSize(1);
+    properties.setMaxBatchesPerRun(2);
+    queue = new ResetPasswordInitiationQueue(resetPasswordProcess, properties,
+        transactionTemplate, meterRegistry);
+    when(resetPasswordProcess.initiateResetPasswordProcess(anyString()))
+        .thenReturn(Either.<UserError, User>right(user));
+
+    queue.enqueue("alice");
+    queue.enqueue("bob");
+    queue.enqueue("carol");
+    queue.drain();
+
+    verify(transactionTemplate, times(2)).executeWithoutResult(any());
+    assertThat(queue.isIdle()).isFalse();
+
+    queue.drain();
+
+    verify(resetPasswordProcess).initiateResetPasswordProcess("carol");
+    assertThat(queue.isIdle()).isTrue();
+  }
+
+  @Test
+  @DisplayName("should start every queued request on shutdown")
+  void shouldDrainEverythingOnDestroy() {
+    var properties = new ResetPasswordInitiationProperties();
+    properties.setBatchSize(1);
+    properties.setMaxBatchesPerRun(1);
+    queue = new ResetPasswordInitiationQueue(resetPasswordProcess, properties,
+        transactionTemplate, meterRegistry);
+    when(resetPasswordProcess.initiateResetPasswordProcess(anyString()))
+        .thenReturn(Either.<UserError, User>right(user));
+
+    queue.enqueue("alice");
+    queue.enqueue("bob");
+    queue.enqueue("carol");
+    queue.destroy();
+
+    verify(transactionTemplate, times(3)).executeWithoutResult(any());
+    assertThat(queue.isIdle()).isTrue();
+  }
+
+  @Test
+  @DisplayName("should ignore invalid usernames without queueing them")
+  void shouldIgnoreInvalidUsernames() {
+    queue.enqueue("");
+    queue.enqueue(null);
+    queue.enqueue("not a username!");
+
+    assertThat(queue.isIdle()).isTrue();
+    queue.drain();
+    verify(transactionTemplate, never()).executeWithoutResult(any());
+  }
+
+  @Test
+  @DisplayName("should retry a failed batch one user at a time and lose only the bad request")
+  void shouldIsolateFailuresWithinBatch() {
+    when(resetPasswordProcess.initiateResetPasswordProcess(anyString()))
+        .thenReturn(Either.<UserError, User>right(user));
+    when(resetPasswordProcess.initiateResetPasswordProcess("bob"))
+        .thenThrow(new IllegalArgumentException("User does not exist"));
+
+    queue.enqueue("alice");
+    queue.enqueue("bob");
+    queue.enqueue("carol");
+    queue.drain();
+
+    verify(transactionTemplate, times(4)).executeWithoutResult(any());
+    verify(resetPasswordProcess, times(2)).initiateResetPasswordProcess("alice");
+    verify(resetPasswordProcess, times(1)).initiateResetPasswordProcess("carol");
+    assertThat(meterRegistry.get("auth.password-reset.requests").tag("outcome", "failed")
+        .counter().count()).isEqualTo(1);
+    assertThat(queue.isIdle()).isTrue();
+
+    queue.enqueue("alice");
+    queue.enqueue("bob");
+    queue.drain();
+
+    verify(resetPasswordProcess, times(2)).initiateResetPasswordProcess("alice");
+    verify(resetPasswordProcess, times(3)).initiateResetPasswordProcess("bob");
+  }
+}
@@ -0,0 +1,72 @@
+package com.hjusic.auth.domain.user.infrastructure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.hjusic.auth.password.PasswordHashingProperties;
+import com.hjusic.auth.scheduling.infrastructure.DatabaseLease;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class PasswordSchemeMetricsTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private UserDatabaseRepository userRepository;
+  private DatabaseLease lease;
+  private PasswordSchemeMetrics metrics;
+
+  @BeforeEach
+  void setUp() {
+    userRepository = mock(UserDatabaseRepository.class);
+    lease = mock(DatabaseLease.class);
+    metrics = new PasswordSchemeMetrics(userRepository, new PasswordHashingProperties(), lease,
+        meterRegistry);
+  }
+
+  @Test
+  @DisplayName("Should publish hash counts per scheme while holding the lease")
+  void shouldCountUnderLease() {
+    when(lease.hold(PasswordSchemeMetrics.LEASE_NAME, Duration.ofMinutes(20))).thenReturn(true);
+    when(userRepository.countByPasswordScheme()).thenReturn(List.of(
+        new Object[] {"{argon2@v2}", 3L},
+        new Object[] {"{bcrypt}", 2L},
+        new Object[] {null, 1L}));
+
+    metrics.refresh();
+
+    assertThat(meterRegistry.get("auth.password.hashes").tag("scheme", "argon2@v2").gauge()
+        .value()).isEqualTo(3);
+    assertThat(meterRegistry.get("auth.password.hashes").tag("scheme", "bcrypt").gauge()
+        .value()).isEqualTo(2);
+    assertThat(meterRegistry.get("auth.password.hashes").tag("scheme", "unknown").gauge()
+        .value()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Should neither count nor publish while another node holds the lease")
+  void shouldSkipWithoutLease() {
+    when(lease.hold(eq(PasswordSchemeMetrics.LEASE_NAME), any())).thenReturn(false);
+
+    metrics.refresh();
+
+    verify(userRepository, never()).countByPasswordScheme();
+    assertThat(meterRegistry.find("auth.password.hashes").gauges()).isEmpty();
+  }
+
+  @Test
+  @DisplayName("Should give up the lease on shutdown")
+  void shouldReleaseLeaseOnDestroy() {
+    metrics.destroy();
+
+    verify(lease).release(PasswordSchemeMetrics.LEASE_NAME);
+  }
+}
@@ -0,0 +1,90 @@
+package com.hjusic.auth.domain.user.infrastructure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class UserDetailsCacheTest {
+
+  private UserDatabaseRepository userRepository;
+  private UserDetailsCache cache;
+
+  @BeforeEach
+  void setUp() {
+    userRepository = mock(UserDatabaseRepository.class);
+    cache = new UserDetailsCache(userRepository, new SimpleMeterRegistry(), 100,
+        Duration.ofMinutes(5));
+  }
+
+  @Test
+  @DisplayName("Should load a user once and serve repeated lookups from the cache")
+  void shouldCacheLoadedUser() {
+    when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user("alice")));
+
+    var first = cache.findByUsername("alice");
+    var second = cache.findByUsername("alice");
+
+    assertThat(first).isPresent();
+    assertThat(second).isPresent();
+    assertThat(second.get().getUsername()).isEqualTo("alice");
+    verify(userRepository, times(1)).findByUsername("alice");
+  }
+
+  @Test
+  @DisplayName("Should not cache unknown users")
+  void shouldNotCacheMisses() {
+    when(userRepository.findByUsername("ghost")).thenReturn(Optional.empty());
+
+    assertThat(cache.findByUsername("ghost")).isEmpty();
+    assertThat(cache.findByUsername("ghost")).isEmpty();
+
+    verify(userRepository, times(2)).findByUsername("ghost");
+  }
+
+  @Test
+  @DisplayName("Should reload a user after eviction")
+  void shouldReloadAfterEviction() {
+    var original = user("alice");
+    var changed = user("alice");
+    changed.setPassword("new-hash");
+    when(userRepository.findByUsername("alice"))
+        .thenReturn(Optional.of(original))
+        .thenReturn(Optional.of(changed));
+
+    cache.findByUsername("alice");
+    cache.evict("alice");
+
+    assertThat(cache.findByUsername("alice").get().getPassword()).isEqualTo("new-hash");
+    verify(userRepository, times(2)).findByUsername("alice");
+  }
+
+  @Test
+  @DisplayName("Should return detached copies rather than the loaded entity")
+  void shouldReturnDetachedCopy() {
+    var loaded = user("alice");
+    when(userRepository.findByUsername("alice")).thenReturn(Optional.of(loaded));
+
+    var cached = cache.findByUsername("alice").get();
+
+    assertThat(cached).isNotSameAs(loaded);
+    assertThat(cached.getRoles()).isNotSameAs(loaded.getRoles());
+  }
+
+  private UserDatabaseEntity user(String username) {
+    return UserDatabaseEntity.builder()
+        .id(1L)
+        .username(username)
+        .email(username + "@example.com")
+        .password("hash")
+        .build();
+  }
+}
@@ -0,0 +1,216 @@
+package com.hjusic.auth.event.infrastructure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.hjusic.auth.scheduling.infrastructure.DatabaseLease;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.mapping.AbstractJavaTypeMapper;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("OutboxRelay Tests")
+class OutboxRelayTest {
+
+  @Mock
+  private OutboxEventRepository outboxEventRepository;
+
+  @Mock
+  private DatabaseLease lease;
+
+  @Mock
+  private TransactionTemplate transactionTemplate;
+
+  @Mock
+  private ProducerFactory<String, String> producerFactory;
+
+  private final OutboxProperties properties = new OutboxProperties();
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @BeforeEach
+  void setUp() {
+    properties.setBatchSize(2);
+    properties.setMaxBatchesPerRun(5);
+    lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+        invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    lenient().doAnswer(invocation -> {
+      invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+      return null;
+    }).when(transactionTemplate).executeWithoutResult(any());
+    lenient().when(outboxEventRepository.findOldest(any(Pageable.class)))
+        .thenAnswer(invocation -> batch());
+  }
+
+  @Test
+  @DisplayName("should renew the lease after every fully acknowledged batch")
+  void shouldRenewLeaseAfterEachBatch() {
+    when(lease.renew(OutboxRelay.LEASE_NAME, properties.getLeaseDuration())).thenReturn(true);
+    var relay = relayAcknowledgingEverything();
+
+    relay.relayBatches();
+
+    verify(lease, times(5)).renew(OutboxRelay.LEASE_NAME, properties.getLeaseDuration());
+    verify(outboxEventRepository, times(5)).deleteAllByIdInBatch(anyList());
+    assertThat(meterRegistry.get("auth.outbox.relayed").counter().count()).isEqualTo(10);
+  }
+
+  @Test
+  @DisplayName("should stop a long run once the lease can no longer be renewed")
+  void shouldStopWhenLeaseIsLost() {
+    when(lease.renew(OutboxRelay.LEASE_NAME, properties.getLeaseDuration()))
+        .thenReturn(true, false);
+    var relay = relayAcknowledgingEverything();
+
+    relay.relayBatches();
+
+    verify(relay, times(2)).send(anyList());
+    verify(outboxEventRepository, times(2)).findOldest(any(Pageable.class));
+  }
+
+  @Test
+  @DisplayName("should stop without renewing when a batch is only partly acknowledged")
+  void shouldStopOnPartialAcknowledgement() {
+    var relay = spy(relay());
+    doReturn(1).when(relay).send(anyList());
+
+    relay.relayBatches();
+
+    verify(outboxEventRepository).deleteAllByIdInBatch(List.of(1L));
+    verify(lease, never()).renew(any(), any());
+  }
+
+  @Test
+  @DisplayName("should not touch the lease while the outbox is empty")
+  void shouldSkipLeaseWhenOutboxIsEmpty() {
+    when(outboxEventRepository.findOldestIds(any(Pageable.class))).thenReturn(List.of());
+
+    relay().relay();
+
+    verify(lease, never()).hold(any(), any());
+    verify(outboxEventRepository, never()).findOldest(any(Pageable.class));
+  }
+
+  @Test
+  @DisplayName("should keep the lease between runs and release it on shutdown")
+  void shouldKeepLeaseBetweenRuns() throws Exception {
+    when(outboxEventRepository.findOldestIds(any(Pageable.class))).thenReturn(List.of(1L));
+    when(lease.hold(OutboxRelay.LEASE_NAME, properties.getLeaseDuration())).thenReturn(true);
+    var relay = relayAcknowledgingEverything();
+
+    relay.relay();
+    relay.relay();
+
+    verify(lease, times(2)).hold(OutboxRelay.LEASE_NAME, properties.getLeaseDuration());
+    verify(lease, never()).runExclusively(any(), any(), any());
+    verify(lease, never()).release(any());
+
+    relay.destroy();
+
+    verify(lease).release(OutboxRelay.LEASE_NAME);
+  }
+
+  @Test
+  @DisplayName("should relay nothing when another node holds the lease")
+  void shouldSkipWhenLeaseIsHeldElsewhere() {
+    when(outboxEventRepository.findOldestIds(any(Pageable.class))).thenReturn(List.of(1L));
+    var relay = relayAcknowledgingEverything();
+
+    relay.relay();
+
+    verify(relay, never()).send(anyList());
+  }
+
+  @Test
+  @DisplayName("should refuse a send timeout that does not fit into half the lease")
+  void shouldRejectSendTimeoutLongerThanLease() {
+    properties.setSendTimeout(Duration.ofSeconds(15));
+    properties.setLeaseDuration(Duration.ofSeconds(30));
+
+    assertThatThrownBy(this::relay).isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  @DisplayName("should send the stored type id as the JSON type header")
+  void shouldAddTypeHeader() {
+    var event = batch().getFirst();
+    event.setTypeId("com.hjusic.auth.domain.user.model.event.ChangePasswordEvent");
+
+    var record = relay().toRecord(event);
+
+    assertThat(record.key()).isEqualTo("alice");
+    assertThat(record.headers().lastHeader(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME))
+        .isNotNull()
+        .extracting(header -> new String(header.value(), StandardCharsets.UTF_8))
+        .isEqualTo(event.getTypeId());
+  }
+
+  @Test
+  @DisplayName("should leave out the type header when type headers are turned off")
+  void shouldOmitTypeHeaderWhenDisabled() {
+    var event = batch().getFirst();
+    event.setTypeId("com.hjusic.auth.domain.user.model.event.ChangePasswordEvent");
+    var relay = new OutboxRelay(outboxEventRepository, properties, lease, transactionTemplate,
+        producerFactory, false, meterRegistry);
+
+    assertThat(relay.toRecord(event).headers().toArray()).isEmpty();
+  }
+
+  @Test
+  @DisplayName("should follow the JSON serializer setting for type headers")
+  void shouldReadTypeHeaderSetting() {
+    assertThat(OutboxRelay.typeHeaders(Map.of())).isTrue();
+    assertThat(OutboxRelay.typeHeaders(
+        Map.of(JsonSerializer.ADD_TYPE_INFO_HEADERS, "false"))).isFalse();
+  }
+
+  private OutboxRelay relayAcknowledgingEverything() {
+    var relay = spy(relay());
+    doAnswer(invocation -> invocation.<List<?>>getArgument(0).size())
+        .when(relay).send(anyList());
+    return relay;
+  }
+
+  private OutboxRelay relay() {
+    return new OutboxRelay(outboxEventRepository, properties, lease, transactionTemplate,
+        producerFactory, meterRegistry);
+  }
+
+  private List<OutboxEventEntity> batch() {
+    return LongStream.rangeClosed(1, properties.getBatchSize())
+        .mapToObj(id -> OutboxEventEntity.builder()
+            .id(id)
+            .topic("auth-event")
+            .aggregateKey("alice")
+            .eventType("ChangePasswordEvent")
+            .payload("{}")
+            .build())
+        .toList();
+  }
+}
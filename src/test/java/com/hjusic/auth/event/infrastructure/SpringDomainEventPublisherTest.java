@@ -0,0 +1,115 @@
+package com.hjusic.auth.event.infrastructure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.hjusic.auth.domain.user.model.ValueObjects.Username;
+import com.hjusic.auth.domain.user.model.event.ChangePasswordEvent;
+import com.hjusic.auth.notification.model.Notification;
+import com.hjusic.auth.notification.model.NotificationType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SpringDomainEventPublisher Tests")
+class SpringDomainEventPublisherTest {
+
+  @Mock
+  private ApplicationEventPublisher applicationEventPublisher;
+
+  @Mock
+  private OutboxEventRepository outboxEventRepository;
+
+  @Spy
+  private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @InjectMocks
+  private SpringDomainEventPublisher publisher;
+
+  @Captor
+  private ArgumentCaptor<OutboxEventEntity> entryCaptor;
+
+  @Captor
+  private ArgumentCaptor<List<OutboxEventEntity>> entriesCaptor;
+
+  @Test
+  @DisplayName("should publish in-process and then write the event to the outbox")
+  void shouldPublishAndWriteOutbox() {
+    var event = ChangePasswordEvent.of(Username.of("alice").get(), null);
+
+    publisher.publish(event);
+
+    var order = inOrder(applicationEventPublisher, outboxEventRepository);
+    order.verify(applicationEventPublisher).publishEvent(event);
+    order.verify(outboxEventRepository).save(entryCaptor.capture());
+
+    var entry = entryCaptor.getValue();
+    assertThat(entry.getTopic()).isEqualTo("auth-event");
+    assertThat(entry.getEventType()).isEqualTo("ChangePasswordEvent");
+    assertThat(entry.getTypeId()).isEqualTo(ChangePasswordEvent.class.getName());
+    assertThat(entry.getPayload()).contains(event.getEventId()).contains("alice");
+    assertThat(entry.getCreatedAt()).isNotNull();
+  }
+
+  @Test
+  @DisplayName("should key user events by username")
+  void shouldKeyUserEventsByUsername() {
+    publisher.publish(ChangePasswordEvent.of(Username.of("alice").get(), null));
+
+    verify(outboxEventRepository).save(entryCaptor.capture());
+    assertThat(entryCaptor.getValue().getAggregateKey()).isEqualTo("alice");
+  }
+
+  @Test
+  @DisplayName("should key notification events by recipient")
+  void shouldKeyNotificationEventsByRecipient() {
+    var notification = Notification.of(
+        NotificationType.EMAIL, "test@example.com", "noreply@mail.com", "Subject", "Content");
+
+    publisher.publish(notification.send());
+
+    verify(outboxEventRepository).save(entryCaptor.capture());
+    assertThat(entryCaptor.getValue().getAggregateKey()).isEqualTo("test@example.com");
+  }
+
+  @Test
+  @DisplayName("should write a batch of events to the outbox in one call, in order")
+  void shouldWriteBatchInOneCall() {
+    var first = ChangePasswordEvent.of(Username.of("alice").get(), null);
+    var second = ChangePasswordEvent.of(Username.of("bob").get(), null);
+
+    publisher.publishAll(List.of(first, second));
+
+    verify(applicationEventPublisher).publishEvent(first);
+    verify(applicationEventPublisher).publishEvent(second);
+    verify(outboxEventRepository).saveAll(entriesCaptor.capture());
+    verify(outboxEventRepository, never()).save(any());
+    assertThat(entriesCaptor.getValue())
+        .extracting(OutboxEventEntity::getAggregateKey)
+        .containsExactly("alice", "bob");
+  }
+
+  @Test
+  @DisplayName("should time publishing per event type and the outbox write")
+  void shouldRecordPublishTimers() {
+    publisher.publish(ChangePasswordEvent.of(Username.of("alice").get(), null));
+
+    assertThat(meterRegistry.get("auth.events.publish").tag("event", "ChangePasswordEvent")
+        .timer().count()).isEqualTo(1);
+    assertThat(meterRegistry.get("auth.events.outbox.write").timer().count()).isEqualTo(1);
+  }
+}
@@ -0,0 +1,67 @@
+package com.hjusic.auth.jwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.nimbusds.jose.jwk.JWKSet;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest(classes = {JwtKeyMaterial.class, JwkSetDocument.class})
+@ActiveProfiles("jwt")
+class JwkSetDocumentTest {
+
+  @Autowired
+  private JwkSetDocument document;
+
+  @Autowired
+  private JwtKeyMaterial keyMaterial;
+
+  @Value("${jwt.private-key}")
+  private String privateKeyPem;
+
+  @Value("${jwt.public-key}")
+  private String publicKeyPem;
+
+  @Test
+  @DisplayName("should publish only the public key, under the key id used for signing")
+  void shouldPublishPublicKeyOnly() throws Exception {
+    var snapshot = document.current();
+    var published = JWKSet.parse(new String(snapshot.body(), StandardCharsets.UTF_8));
+
+    assertThat(published.getKeys()).hasSize(1);
+    var key = published.getKeys().getFirst();
+    assertThat(key.isPrivate()).isFalse();
+    assertThat(key.getKeyID()).isEqualTo(keyMaterial.getJwkSet().getKeys().getFirst().getKeyID());
+  }
+
+  @Test
+  @DisplayName("should reuse the serialized document until the keys change")
+  void shouldReuseUntilRotation() {
+    var first = document.current();
+
+    assertThat(document.current()).isSameAs(first);
+
+    keyMaterial.rotate(privateKeyPem, publicKeyPem);
+    var rotated = document.current();
+
+    assertThat(rotated).isNotSameAs(first);
+    assertThat(rotated.etag()).startsWith("\"").endsWith("\"");
+  }
+
+  @Test
+  @DisplayName("should match If-None-Match lists and wildcards")
+  void shouldMatchIfNoneMatch() {
+    var etag = document.current().etag();
+
+    assertThat(JwkSetDocument.matches(etag, etag)).isTrue();
+    assertThat(JwkSetDocument.matches("\"other\", " + etag, etag)).isTrue();
+    assertThat(JwkSetDocument.matches("*", etag)).isTrue();
+    assertThat(JwkSetDocument.matches("\"other\"", etag)).isFalse();
+    assertThat(JwkSetDocument.matches(null, etag)).isFalse();
+  }
+}
@@ -0,0 +1,160 @@
+package com.hjusic.auth.jwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class JwtKeyMaterialTest {
+
+  private static final long RETENTION_MILLIS = 60_000;
+
+  private KeyPair first;
+  private KeyPair second;
+  private JwtKeyMaterial keyMaterial;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    var generator = KeyPairGenerator.getInstance("RSA");
+    generator.initialize(2048);
+    first = generator.generateKeyPair();
+    second = generator.generateKeyPair();
+    keyMaterial = new JwtKeyMaterial(privatePem(first), publicPem(first), RETENTION_MILLIS);
+  }
+
+  @Test
+  @DisplayName("Key id is the JWK thumbprint and does not change across restarts")
+  void keyIdIsDeterministic() {
+    var again = new JwtKeyMaterial(privatePem(first), publicPem(first), RETENTION_MILLIS);
+
+    assertThat(keyMaterial.getActiveKey().kid())
+        .isEqualTo(again.getActiveKey().kid())
+        .isEqualTo(keyMaterial.getJwkSet().getKeys().getFirst().getKeyID());
+  }
+
+  @Test
+  @DisplayName("Rotation keeps the previous key accepted and signs with the new kid")
+  void rotationKeepsPreviousKeyAccepted() {
+    var oldKey = keyMaterial.getActiveKey();
+    var oldToken = sign(oldKey);
+
+    keyMaterial.rotate(privatePem(second), publicPem(second));
+    var newKey = keyMaterial.getActiveKey();
+
+    assertThat(newKey.kid()).isNotEqualTo(oldKey.kid());
+    assertThat(keyMaterial.getJwkSet().getKeys())
+        .extracting(jwk -> jwk.getKeyID())
+        .containsExactly(newKey.kid(), oldKey.kid());
+    assertThat(subject(oldToken)).isEqualTo("user");
+    assertThat(subject(sign(newKey))).isEqualTo("user");
+  }
+
+  @Test
+  @DisplayName("Tokens from a retired key are rejected")
+  void retiredKeyIsRejected() {
+    var oldKey = keyMaterial.getActiveKey();
+    var oldToken = sign(oldKey);
+
+    keyMaterial.rotate(privatePem(second), publicPem(second));
+    keyMaterial.install(keyMaterial.getActiveKey(),
+        List.of(oldKey.retiringAt(Instant.now().minusSeconds(1))));
+
+    assertThat(keyMaterial.getJwkSet().getKeys()).hasSize(1);
+    assertThatThrownBy(() -> subject(oldToken)).isInstanceOf(JwtException.class);
+  }
+
+  @Test
+  @DisplayName("Installing the same ring again keeps the published key set instance")
+  void unchangedRingIsIgnored() {
+    var jwkSet = keyMaterial.getJwkSet();
+
+    keyMaterial.install(keyMaterial.getActiveKey(), List.of());
+
+    assertThat(keyMaterial.getJwkSet()).isSameAs(jwkSet);
+  }
+
+  @ParameterizedTest
+  @EnumSource(value = JwtSigningAlgorithm.class, names = {"ES256", "EDDSA"})
+  @DisplayName("Generates a key for non-RSA algorithms and verifies the tokens it signs")
+  void generatesKeyForAlgorithm(JwtSigningAlgorithm algorithm) {
+    keyMaterial = new JwtKeyMaterial(privatePem(first), publicPem(first), RETENTION_MILLIS,
+        algorithm.getJwsName(), "", "", false, true);
+
+    var active = keyMaterial.getActiveKey();
+
+    assertThat(keyMaterial.isConfiguredKeyGenerated()).isTrue();
+    assertThat(active.algorithm()).isEqualTo(algorithm);
+    assertThat(active.jwk().getAlgorithm().getName()).isEqualTo(algorithm.getJwsName());
+    assertThat(subject(sign(active))).isEqualTo("user");
+  }
+
+  @ParameterizedTest
+  @EnumSource(value = JwtSigningAlgorithm.class, names = {"ES256", "EDDSA"})
+  @DisplayName("Refuses to start a non-RSA algorithm without a shared key")
+  void failsWithoutSharedKey(JwtSigningAlgorithm algorithm) {
+    assertThatThrownBy(() -> new JwtKeyMaterial(privatePem(first), publicPem(first),
+        RETENTION_MILLIS, algorithm.getJwsName(), "", "", false, false))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("jwt.signing.private-key");
+  }
+
+  @Test
+  @DisplayName("Generates a start-up key when rotation will replace it with a shared one")
+  void generatesKeyWhenRotationIsEnabled() {
+    keyMaterial = new JwtKeyMaterial(privatePem(first), publicPem(first), RETENTION_MILLIS,
+        "ES256", "", "", true, false);
+
+    assertThat(keyMaterial.isConfiguredKeyGenerated()).isTrue();
+  }
+
+  @Test
+  @DisplayName("Under EdDSA the authorization server keeps signing with the RSA key")
+  void authorizationServerFallsBackToRsaUnderEdDsa() {
+    keyMaterial = new JwtKeyMaterial(privatePem(first), publicPem(first), RETENTION_MILLIS,
+        "EdDSA", "", "", false, true);
+
+    var serverKey = keyMaterial.getAuthorizationServerKey();
+
+    assertThat(serverKey.algorithm()).isEqualTo(JwtSigningAlgorithm.RS256);
+    assertThat(keyMaterial.getJwkSet().getKeys())
+        .extracting(jwk -> jwk.getKeyID())
+        .containsExactly(keyMaterial.getActiveKey().kid(), serverKey.kid());
+  }
+
+  private String sign(SigningKey key) {
+    return Jwts.builder()
+        .header().keyId(key.kid()).and()
+        .subject("user")
+        .signWith(key.privateKey(), key.algorithm().getSignatureAlgorithm())
+        .compact();
+  }
+
+  private String subject(String token) {
+    return keyMaterial.getParser().parseSignedClaims(token).getPayload().getSubject();
+  }
+
+  private static String privatePem(KeyPair keyPair) {
+    return pem("PRIVATE KEY", keyPair.getPrivate().getEncoded());
+  }
+
+  private static String publicPem(KeyPair keyPair) {
+    return pem("PUBLIC KEY", keyPair.getPublic().getEncoded());
+  }
+
+  private static String pem(String type, byte[] der) {
+    return "-----BEGIN " + type + "-----\n"
+        + Base64.getMimeEncoder(64, new byte[]{'\n'}).encodeToString(der)
+        + "\n-----END " + type + "-----\n";
+  }
+}
@@ -3,6 +3,8 @@ package com.hjusic.auth.jwt;
 import com.hjusic.auth.jwt.JwtService;
 
 import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -21,13 +23,16 @@ import java.util.Map;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
-@SpringBootTest(classes = {JwtService.class})
+@SpringBootTest(classes = {JwtService.class, JwtKeyMaterial.class, SimpleMeterRegistry.class})
 @ActiveProfiles("jwt")
 class JwtServiceTest {
 
   @Autowired
   private JwtService jwtService;
 
+  @Autowired
+  private MeterRegistry meterRegistry;
+
   private UserDetails userDetails;
 
   @BeforeEach
@@ -314,6 +319,37 @@ class JwtServiceTest {
         .isInstanceOf(SignatureException.class);
   }
 
+  @Test
+  @DisplayName("Should return all verified claims from a single verification")
+  void shouldVerifyTokenOnce() {
+    // Given
+    String token = jwtService.generateToken(userDetails);
+
+    // When
+    VerifiedToken verified = jwtService.verify(token);
+
+    // Then
+    assertThat(verified.subject()).isEqualTo("testuser");
+    assertThat(verified.roles()).containsExactlyInAnyOrder("ROLE_USER", "ROLE_ADMIN");
+    assertThat(verified.issuer()).isEqualTo("http://localhost:8081");
+    assertThat(verified.jti()).isNotBlank();
+    assertThat(verified.expiresAt()).isAfter(verified.issuedAt());
+    assertThat(verified.isExpired()).isFalse();
+    assertThat(jwtService.isTokenValid(verified, userDetails)).isTrue();
+  }
+
+  @Test
+  @DisplayName("Should fail verification with tampered token")
+  void shouldFailVerificationWithTamperedToken() {
+    // Given
+    String token = jwtService.generateToken(userDetails);
+    String tamperedToken = token.substring(0, token.length() - 10) + "tampered12";
+
+    // When/Then
+    assertThatThrownBy(() -> jwtService.verify(tamperedToken))
+        .isInstanceOf(SignatureException.class);
+  }
+
   @Test
   @DisplayName("Should extract custom claim types correctly")
   void shouldExtractCustomClaimTypes() {
@@ -370,4 +406,30 @@ class JwtServiceTest {
     // Then
     assertThat(extractedUsername).isEqualTo("TestUser123");
   }
-}
\ No newline at end of file
+
+  @Test
+  @DisplayName("Should time signing by token type and verification by outcome")
+  void shouldRecordSignAndVerifyTimers() {
+    // Given
+    long accessBefore = timerCount("auth.jwt.sign", "type", "access");
+    long refreshBefore = timerCount("auth.jwt.sign", "type", "refresh");
+    long validBefore = timerCount("auth.jwt.verify", "outcome", "valid");
+    long invalidBefore = timerCount("auth.jwt.verify", "outcome", "invalid");
+
+    // When
+    String token = jwtService.generateToken(userDetails);
+    jwtService.generateRefreshToken(userDetails);
+    jwtService.verify(token);
+    assertThatThrownBy(() -> jwtService.verify(token + "x"));
+
+    // Then
+    assertThat(timerCount("auth.jwt.sign", "type", "access")).isEqualTo(accessBefore + 1);
+    assertThat(timerCount("auth.jwt.sign", "type", "refresh")).isEqualTo(refreshBefore + 1);
+    assertThat(timerCount("auth.jwt.verify", "outcome", "valid")).isEqualTo(validBefore + 1);
+    assertThat(timerCount("auth.jwt.verify", "outcome", "invalid")).isEqualTo(invalidBefore + 1);
+  }
+
+  private long timerCount(String name, String tagKey, String tagValue) {
+    return meterRegistry.get(name).tag(tagKey, tagValue).timer().count();
+  }
+}
@@ -0,0 +1,54 @@
+package com.hjusic.auth.jwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.hjusic.auth.domain.user.model.ValueObjects.Username;
+import com.hjusic.auth.domain.user.model.event.UserDeletedEvent;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class TokenRevocationRegistryTest {
+
+  private TokenRevocationRegistry registry;
+
+  @BeforeEach
+  void setUp() {
+    registry = new TokenRevocationRegistry();
+    ReflectionTestUtils.setField(registry, "refreshExpiration", 604800000L);
+  }
+
+  @Test
+  @DisplayName("Should not revoke tokens of users without revocation")
+  void shouldNotRevokeUnknownUser() {
+    assertThat(registry.isRevoked(token("alice", Instant.now()))).isFalse();
+  }
+
+  @Test
+  @DisplayName("Should revoke tokens issued before the user was deleted")
+  void shouldRevokeTokensIssuedBeforeDeletion() {
+    var issued = Instant.now().minus(1, ChronoUnit.MINUTES);
+
+    registry.onUserDeleted(UserDeletedEvent.of(Username.of("alice").get()));
+
+    assertThat(registry.isRevoked(token("alice", issued))).isTrue();
+    assertThat(registry.isRevoked(token("bob", issued))).isFalse();
+  }
+
+  @Test
+  @DisplayName("Should accept tokens issued after the revocation")
+  void shouldAcceptTokensIssuedAfterRevocation() {
+    registry.revoke("alice");
+
+    assertThat(registry.isRevoked(token("alice", Instant.now().plusSeconds(1)))).isFalse();
+  }
+
+  private VerifiedToken token(String subject, Instant issuedAt) {
+    return new VerifiedToken(subject, List.of("ROLE_GUEST"), issuedAt,
+        issuedAt.plus(1, ChronoUnit.HOURS), "jti", "http://localhost:8081");
+  }
+}
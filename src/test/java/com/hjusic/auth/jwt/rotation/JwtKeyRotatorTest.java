@@ -0,0 +1,198 @@
+package com.hjusic.auth.jwt.rotation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.hjusic.auth.jwt.JwtKeyMaterial;
+import com.hjusic.auth.jwt.JwtSigningAlgorithm;
+import com.hjusic.auth.jwt.SigningKey;
+import com.hjusic.auth.scheduling.infrastructure.DatabaseLease;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class JwtKeyRotatorTest {
+
+  private static final Instant START = Instant.parse("2026-01-01T00:00:00Z");
+
+  private final List<JwtSigningKeyEntity> stored = new ArrayList<>();
+  private JwtSigningKeyRepository repository;
+  private JwtKeyRotationProperties properties;
+  private JwtKeyMaterial keyMaterial;
+  private TransactionTemplate transactionTemplate;
+  private SigningKey configuredKey;
+
+  @BeforeEach
+  void setUp() {
+    repository = mock(JwtSigningKeyRepository.class);
+    when(repository.findAllByOrderByActivatesAtAsc()).thenAnswer(invocation -> stored.stream()
+        .sorted(Comparator.comparing(JwtSigningKeyEntity::getActivatesAt))
+        .toList());
+    when(repository.save(any(JwtSigningKeyEntity.class))).thenAnswer(invocation -> {
+      stored.add(invocation.getArgument(0));
+      return invocation.getArgument(0);
+    });
+    doAnswer(invocation -> stored.remove(invocation.<JwtSigningKeyEntity>getArgument(0)))
+        .when(repository).delete(any(JwtSigningKeyEntity.class));
+
+    transactionTemplate = mock(TransactionTemplate.class);
+    when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+        invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    doAnswer(invocation -> {
+      invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+      return null;
+    }).when(transactionTemplate).executeWithoutResult(any());
+
+    var keyPair = JwtSigningAlgorithm.ES256.generateKeyPair();
+    configuredKey = SigningKey.of(JwtSigningAlgorithm.ES256, keyPair.getPrivate(),
+        keyPair.getPublic());
+    keyMaterial = mock(JwtKeyMaterial.class);
+    when(keyMaterial.getAlgorithm()).thenReturn(JwtSigningAlgorithm.ES256);
+    when(keyMaterial.getConfiguredKey()).thenReturn(configuredKey);
+
+    properties = new JwtKeyRotationProperties();
+    properties.setEncryptionSecret("test-secret");
+  }
+
+  @Test
+  @DisplayName("Should publish the first key one prepublish period before it signs")
+  void shouldCreateFirstKey() {
+    rotatorAt(START).rotateIfDue();
+
+    assertThat(stored).singleElement().satisfies(entity -> {
+      assertThat(entity.getActivatesAt()).isEqualTo(START.plus(properties.getPrepublish()));
+      assertThat(entity.getCreatedAt()).isEqualTo(START);
+    });
+  }
+
+  @Test
+  @DisplayName("Should activate the first key at once when the configured key was generated")
+  void shouldReplaceGeneratedKeyAtOnce() {
+    when(keyMaterial.isConfiguredKeyGenerated()).thenReturn(true);
+
+    rotatorAt(START).rotateIfDue();
+
+    assertThat(stored).singleElement()
+        .extracting(JwtSigningKeyEntity::getActivatesAt)
+        .isEqualTo(START);
+  }
+
+  @Test
+  @DisplayName("Should create the next key only once the current interval nears its end")
+  void shouldCreateNextKeyWhenDue() {
+    rotatorAt(START).rotateIfDue();
+    var activatesAt = stored.getFirst().getActivatesAt();
+    var due = activatesAt.plus(properties.getInterval()).minus(properties.getPrepublish());
+
+    rotatorAt(due.minusSeconds(1)).rotateIfDue();
+    assertThat(stored).hasSize(1);
+
+    rotatorAt(due).rotateIfDue();
+    assertThat(stored).hasSize(2);
+    assertThat(stored.getLast().getActivatesAt())
+        .isEqualTo(activatesAt.plus(properties.getInterval()));
+  }
+
+  @Test
+  @DisplayName("Should publish a new key without signing with it before its activation")
+  void shouldPublishBeforeActivation() {
+    rotatorAt(START).rotateIfDue();
+    var next = stored.getFirst();
+
+    rotatorAt(next.getActivatesAt().minusSeconds(1)).reload();
+
+    assertThat(installedActive().kid()).isEqualTo(configuredKey.kid());
+    assertThat(installedOthers())
+        .extracting(SigningKey::kid, SigningKey::retiresAt)
+        .containsExactly(tuple(next.getKid(), null));
+  }
+
+  @Test
+  @DisplayName("Should sign with the new key from its activation and retire the previous one")
+  void shouldActivateAfterPrepublish() {
+    rotatorAt(START).rotateIfDue();
+    var next = stored.getFirst();
+
+    rotatorAt(next.getActivatesAt()).reload();
+
+    assertThat(installedActive().kid()).isEqualTo(next.getKid());
+    assertThat(installedOthers())
+        .extracting(SigningKey::kid, SigningKey::retiresAt)
+        .containsExactly(tuple(configuredKey.kid(),
+            next.getActivatesAt().plus(properties.getRetention())));
+  }
+
+  @Test
+  @DisplayName("Should drop a generated configured key instead of retiring it")
+  void shouldDropGeneratedConfiguredKey() {
+    when(keyMaterial.isConfiguredKeyGenerated()).thenReturn(true);
+    rotatorAt(START).rotateIfDue();
+    var first = stored.getFirst();
+
+    rotatorAt(START).reload();
+
+    assertThat(installedActive().kid()).isEqualTo(first.getKid());
+    assertThat(installedOthers()).isEmpty();
+  }
+
+  @Test
+  @DisplayName("Should keep a retired key published until its retention ends, then delete it")
+  void shouldDeleteRetiredKeyAfterRetention() {
+    rotatorAt(START).rotateIfDue();
+    var first = stored.getFirst();
+    rotatorAt(first.getActivatesAt().plus(properties.getInterval())
+        .minus(properties.getPrepublish())).rotateIfDue();
+    var second = stored.getLast();
+    var firstRetiresAt = second.getActivatesAt().plus(properties.getRetention());
+
+    rotatorAt(firstRetiresAt).rotateIfDue();
+    rotatorAt(firstRetiresAt).reload();
+
+    assertThat(stored).containsExactly(first, second);
+    assertThat(installedActive().kid()).isEqualTo(second.getKid());
+    assertThat(installedOthers())
+        .extracting(SigningKey::kid, SigningKey::retiresAt)
+        .containsExactly(
+            tuple(configuredKey.kid(), first.getActivatesAt().plus(properties.getRetention())),
+            tuple(first.getKid(), firstRetiresAt));
+
+    rotatorAt(firstRetiresAt.plusSeconds(1)).rotateIfDue();
+
+    verify(repository).delete(first);
+    assertThat(stored).containsExactly(second);
+  }
+
+  private JwtKeyRotator rotatorAt(Instant now) {
+    return new JwtKeyRotator(repository, properties, keyMaterial, mock(DatabaseLease.class),
+        transactionTemplate, Clock.fixed(now, ZoneOffset.UTC));
+  }
+
+  private SigningKey installedActive() {
+    var active = ArgumentCaptor.forClass(SigningKey.class);
+    verify(keyMaterial).install(active.capture(), any());
+    return active.getValue();
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<SigningKey> installedOthers() {
+    ArgumentCaptor<List<SigningKey>> others = ArgumentCaptor.forClass(List.class);
+    verify(keyMaterial).install(any(), others.capture());
+    return others.getValue();
+  }
+}
@@ -0,0 +1,55 @@
+package com.hjusic.auth.jwt.rotation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class PrivateKeyEncryptorTest {
+
+  private static final byte[] PLAINTEXT = "private key bytes".getBytes(StandardCharsets.UTF_8);
+
+  @Test
+  @DisplayName("Should decrypt what it encrypted")
+  void shouldRoundTrip() {
+    var encryptor = new PrivateKeyEncryptor("test-secret");
+
+    assertThat(encryptor.decrypt(encryptor.encrypt(PLAINTEXT))).isEqualTo(PLAINTEXT);
+  }
+
+  @Test
+  @DisplayName("Should use a fresh nonce for every encryption")
+  void shouldUseFreshNonce() {
+    var encryptor = new PrivateKeyEncryptor("test-secret");
+
+    assertThat(encryptor.encrypt(PLAINTEXT)).isNotEqualTo(encryptor.encrypt(PLAINTEXT));
+  }
+
+  @Test
+  @DisplayName("Should decrypt with another instance using the same secret")
+  void shouldDecryptAcrossInstances() {
+    var encrypted = new PrivateKeyEncryptor("test-secret").encrypt(PLAINTEXT);
+
+    assertThat(new PrivateKeyEncryptor("test-secret").decrypt(encrypted)).isEqualTo(PLAINTEXT);
+  }
+
+  @Test
+  @DisplayName("Should refuse to decrypt with a different secret")
+  void shouldRejectWrongSecret() {
+    var encrypted = new PrivateKeyEncryptor("test-secret").encrypt(PLAINTEXT);
+    var other = new PrivateKeyEncryptor("other-secret");
+
+    assertThatThrownBy(() -> other.decrypt(encrypted))
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  @DisplayName("Should require a secret")
+  void shouldRequireSecret() {
+    assertThatThrownBy(() -> new PrivateKeyEncryptor(" "))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("jwt.rotation.encryption-secret");
+  }
+}
@@ -7,6 +7,8 @@ import com.hjusic.auth.notification.model.NotificationType;
 import com.hjusic.auth.notification.model.Notifications;
 import com.hjusic.auth.notification.model.event.NotificationSent;
 import io.vavr.control.Either;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -20,11 +22,19 @@ import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -40,6 +50,9 @@ class NotifyTest {
   @Captor
   private ArgumentCaptor<NotificationSent> notificationEventCaptor;
 
+  @Captor
+  private ArgumentCaptor<List<NotificationSent>> notificationEventsCaptor;
+
   private static final String VALID_RECIPIENT = "test@example.com";
   private static final String VALID_CONTENT = "Test notification content";
   private static final String SENDER = "noreply@mail.com";
@@ -252,4 +265,68 @@ class NotifyTest {
       verify(notifications).publish(any(NotificationSent.class));
     }
   }
-}
\ No newline at end of file
+
+  @Nested
+  @DisplayName("When sending on commit inside a transaction")
+  class SendOnCommitTests {
+
+    @BeforeEach
+    void setUp() {
+      TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+      TransactionSynchronizationManager.unbindResourceIfPossible(notifyEmail);
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    @DisplayName("should record the events before commit and send only after it")
+    void shouldRecordBeforeCommitAndSendAfterCommit() {
+      notifyEmail.sendOnCommit(VALID_RECIPIENT, VALID_CONTENT);
+      notifyEmail.sendOnCommit("other@example.com", VALID_CONTENT);
+      verifyNoInteractions(notifications);
+
+      TransactionSynchronizationUtils.triggerBeforeCommit(false);
+      verify(notifications).recordAll(notificationEventsCaptor.capture());
+      assertThat(notificationEventsCaptor.getValue()).hasSize(2);
+      verify(notifications, never()).sendAll(anyList());
+
+      TransactionSynchronizationUtils.triggerAfterCommit();
+      TransactionSynchronizationUtils.triggerAfterCompletion(
+          TransactionSynchronization.STATUS_COMMITTED);
+
+      var order = inOrder(notifications);
+      order.verify(notifications).recordAll(anyList());
+      order.verify(notifications).sendAll(notificationEventsCaptor.capture());
+      assertThat(notificationEventsCaptor.getValue()).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("should send nothing when the transaction rolls back")
+    void shouldSendNothingOnRollback() {
+      notifyEmail.sendOnCommit(VALID_RECIPIENT, VALID_CONTENT);
+
+      TransactionSynchronizationUtils.triggerAfterCompletion(
+          TransactionSynchronization.STATUS_ROLLED_BACK);
+
+      verifyNoInteractions(notifications);
+    }
+
+    @Test
+    @DisplayName("should send nothing when recording the events fails")
+    void shouldSendNothingWhenRecordingFails() {
+      doThrow(new IllegalStateException("outbox unavailable"))
+          .when(notifications).recordAll(anyList());
+      notifyEmail.sendOnCommit(VALID_RECIPIENT, VALID_CONTENT);
+
+      assertThatThrownBy(() -> TransactionSynchronizationUtils.triggerBeforeCommit(false))
+          .isInstanceOf(IllegalStateException.class);
+      TransactionSynchronizationUtils.triggerAfterCompletion(
+          TransactionSynchronization.STATUS_ROLLED_BACK);
+
+      verify(notifications, never()).sendAll(anyList());
+    }
+  }
+}
@@ -1,5 +1,6 @@
 package com.hjusic.auth.notification.infrastructure;
 
+import com.hjusic.auth.event.model.DomainEvent;
 import com.hjusic.auth.event.model.DomainEventPublisher;
 import com.hjusic.auth.notification.model.Notification;
 import com.hjusic.auth.notification.model.NotificationType;
@@ -15,9 +16,14 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.kafka.core.KafkaTemplate;
 
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 
 @ExtendWith(MockitoExtension.class)
 @DisplayName("KafkaNotificationRepository Tests")
@@ -38,6 +44,9 @@ class KafkaNotificationRepositoryTest {
   @Captor
   private ArgumentCaptor<NotificationSent> eventCaptor;
 
+  @Captor
+  private ArgumentCaptor<Iterable<DomainEvent>> eventsCaptor;
+
   private static final String TOPIC_NAME = "notification";
   private static final String RECIPIENT = "test@example.com";
   private static final String SENDER = "noreply@mail.com";
@@ -64,12 +73,20 @@ class KafkaNotificationRepositoryTest {
   void shouldSendNotificationToKafkaTopic() {
     repository.publish(testEvent);
 
-    verify(kafkaTemplate).send(eq(TOPIC_NAME), notificationCaptor.capture());
+    verify(kafkaTemplate).send(eq(TOPIC_NAME), eq(RECIPIENT), notificationCaptor.capture());
     Notification capturedNotification = notificationCaptor.getValue();
 
     assertThat(capturedNotification).isEqualTo(testNotification);
   }
 
+  @Test
+  @DisplayName("should key the record by recipient")
+  void shouldKeyRecordByRecipient() {
+    repository.publish(testEvent);
+
+    verify(kafkaTemplate).send(eq(TOPIC_NAME), eq(RECIPIENT), eq(testNotification));
+  }
+
   @Test
   @DisplayName("should publish domain event")
   void shouldPublishDomainEvent() {
@@ -95,10 +112,38 @@ class KafkaNotificationRepositoryTest {
     repository.publish(testEvent);
 
     var inOrder = org.mockito.Mockito.inOrder(kafkaTemplate, publisher);
-    inOrder.verify(kafkaTemplate).send(eq(TOPIC_NAME), notificationCaptor.capture());
+    inOrder.verify(kafkaTemplate).send(eq(TOPIC_NAME), eq(RECIPIENT), notificationCaptor.capture());
     inOrder.verify(publisher).publish(eventCaptor.capture());
   }
 
+  @Test
+  @DisplayName("should record a batch of events in one outbox write without sending")
+  void shouldRecordBatchWithoutSending() {
+    var otherEvent = Notification.of(NotificationType.EMAIL, "other@example.com", SENDER, SUBJECT,
+        CONTENT).send();
+
+    repository.recordAll(List.of(testEvent, otherEvent));
+
+    verify(publisher).publishAll(eventsCaptor.capture());
+    assertThat(eventsCaptor.getValue()).containsExactly(testEvent, otherEvent);
+    verify(publisher, never()).publish(any());
+    verifyNoInteractions(kafkaTemplate);
+  }
+
+  @Test
+  @DisplayName("should send a batch to Kafka without recording its events again")
+  void shouldSendBatch() {
+    var other = Notification.of(NotificationType.EMAIL, "other@example.com", SENDER, SUBJECT,
+        CONTENT);
+
+    var result = repository.sendAll(List.of(testEvent, other.send()));
+
+    verify(kafkaTemplate).send(TOPIC_NAME, RECIPIENT, testNotification);
+    verify(kafkaTemplate).send(TOPIC_NAME, "other@example.com", other);
+    verifyNoInteractions(publisher);
+    assertThat(result).containsExactly(testNotification, other);
+  }
+
   @Test
   @DisplayName("should handle notification with special characters")
   void shouldHandleNotificationWithSpecialCharacters() {
@@ -114,7 +159,7 @@ class KafkaNotificationRepositoryTest {
 
     Notification result = repository.publish(specialEvent);
 
-    verify(kafkaTemplate).send(eq(TOPIC_NAME), eq(specialNotification));
+    verify(kafkaTemplate).send(eq(TOPIC_NAME), eq(RECIPIENT), eq(specialNotification));
     verify(publisher).publish(eq(specialEvent));
     assertThat(result).isEqualTo(specialNotification);
   }
@@ -134,7 +179,7 @@ class KafkaNotificationRepositoryTest {
 
     Notification result = repository.publish(longEvent);
 
-    verify(kafkaTemplate).send(eq(TOPIC_NAME), eq(longNotification));
+    verify(kafkaTemplate).send(eq(TOPIC_NAME), eq(RECIPIENT), eq(longNotification));
     verify(publisher).publish(eq(longEvent));
     assertThat(result).isEqualTo(longNotification);
   }
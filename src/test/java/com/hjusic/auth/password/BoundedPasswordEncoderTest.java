@@ -0,0 +1,149 @@
+package com.hjusic.auth.password;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+@DisplayName("BoundedPasswordEncoder Tests")
+class BoundedPasswordEncoderTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final CountDownLatch started = new CountDownLatch(1);
+  private final CountDownLatch release = new CountDownLatch(1);
+  private BoundedPasswordEncoder encoder;
+
+  @AfterEach
+  void tearDown() {
+    release.countDown();
+    if (encoder != null) {
+      encoder.destroy();
+    }
+  }
+
+  @Test
+  @DisplayName("should delegate encode and matches and record their latency")
+  void shouldDelegateAndRecordLatency() {
+    encoder = encoder(new PrefixEncoder(), Duration.ofSeconds(5));
+
+    assertThat(encoder.encode("secret")).isEqualTo("hashed:secret");
+    assertThat(encoder.matches("secret", "hashed:secret")).isTrue();
+    assertThat(encoder.matches("other", "hashed:secret")).isFalse();
+
+    assertThat(timer("encode").count()).isEqualTo(1);
+    assertThat(timer("matches").count()).isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("should tag hashing latency with the encoder id of the hash")
+  void shouldTagLatencyWithScheme() {
+    encoder = encoder(new PrefixEncoder(), Duration.ofSeconds(5));
+
+    encoder.matches("secret", "{argon2}hash");
+    encoder.matches("secret", "hashed:secret");
+
+    assertThat(meterRegistry.get("auth.password.hashing")
+        .tags("operation", "matches", "scheme", "argon2").timer().count()).isEqualTo(1);
+    assertThat(meterRegistry.get("auth.password.hashing")
+        .tags("operation", "matches", "scheme", "unknown").timer().count()).isEqualTo(1);
+    assertThat(BoundedPasswordEncoder.scheme("{Not-A-Scheme}x")).isEqualTo("unknown");
+  }
+
+  @Test
+  @DisplayName("should reject at once when the pool and queue are full")
+  void shouldRejectWhenSaturated() throws Exception {
+    encoder = encoder(new BlockingEncoder(), Duration.ofSeconds(5));
+
+    CompletableFuture.runAsync(() -> encoder.encode("running"));
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+    CompletableFuture.runAsync(() -> encoder.encode("queued"));
+    waitForQueueDepth(1);
+
+    assertThatThrownBy(() -> encoder.encode("rejected"))
+        .isInstanceOf(PasswordHashingRejectedException.class)
+        .satisfies(e -> assertThat(((PasswordHashingRejectedException) e).getRetryAfter())
+            .isEqualTo(Duration.ofSeconds(2)));
+    assertThat(meterRegistry.get("auth.password.hashing.rejected").counter().count())
+        .isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("should reject when the hash does not finish within the wait")
+  void shouldRejectOnTimeout() {
+    encoder = encoder(new BlockingEncoder(), Duration.ofMillis(50));
+
+    assertThatThrownBy(() -> encoder.matches("secret", "hashed:secret"))
+        .isInstanceOf(PasswordHashingRejectedException.class);
+  }
+
+  @Test
+  @DisplayName("should answer upgradeEncoding on the calling thread")
+  void shouldDelegateUpgradeEncoding() {
+    encoder = encoder(new PrefixEncoder(), Duration.ofSeconds(5));
+
+    assertThat(encoder.upgradeEncoding("legacy:secret")).isTrue();
+    assertThat(encoder.upgradeEncoding("hashed:secret")).isFalse();
+  }
+
+  private Timer timer(String operation) {
+    return meterRegistry.get("auth.password.hashing").tag("operation", operation).timer();
+  }
+
+  private void waitForQueueDepth(int depth) throws InterruptedException {
+    var gauge = meterRegistry.get("auth.password.hashing.queue.depth").gauge();
+    for (int i = 0; i < 500 && gauge.value() < depth; i++) {
+      Thread.sleep(10);
+    }
+    assertThat(gauge.value()).isEqualTo(depth);
+  }
+
+  private BoundedPasswordEncoder encoder(PasswordEncoder delegate, Duration maxWait) {
+    var properties = new PasswordHashingProperties();
+    properties.setPoolSize(1);
+    properties.setQueueCapacity(1);
+    properties.setMaxWait(maxWait);
+    properties.setRetryAfter(Duration.ofSeconds(2));
+    return new BoundedPasswordEncoder(delegate, properties, meterRegistry);
+  }
+
+  private static class PrefixEncoder implements PasswordEncoder {
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+      return "hashed:" + rawPassword;
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+      return encode(rawPassword).equals(encodedPassword);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+      return !encodedPassword.startsWith("hashed:");
+    }
+  }
+
+  private class BlockingEncoder extends PrefixEncoder {
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+      started.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return super.encode(rawPassword);
+    }
+  }
+}
@@ -0,0 +1,91 @@
+package com.hjusic.auth.ratelimit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("LoginRateLimiter Tests")
+class LoginRateLimiterTest {
+
+  private static final Duration WINDOW = Duration.ofMinutes(1);
+  private static final long T0 = 60_000L * 28_333_334;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private LoginRateLimitProperties properties;
+  private LocalRateLimitBackend backend;
+  private LoginRateLimiter limiter;
+
+  @BeforeEach
+  void setUp() {
+    properties = new LoginRateLimitProperties();
+    properties.setWindow(WINDOW);
+    properties.setMaxAttemptsPerUsername(3);
+    properties.setMaxAttemptsPerIp(5);
+    backend = new LocalRateLimitBackend(properties);
+    limiter = new LoginRateLimiter(backend, properties, meterRegistry);
+  }
+
+  @Test
+  @DisplayName("should allow attempts up to the limit within a window")
+  void shouldAllowUpToLimit() {
+    assertThat(IntStream.range(0, 4)
+        .mapToObj(i -> backend.tryAcquire("key", 3, WINDOW, T0 + i * 1_000L)))
+        .containsExactly(true, true, true, false);
+  }
+
+  @Test
+  @DisplayName("should weight the previous window by its overlap with the sliding window")
+  void shouldWeightPreviousWindow() {
+    IntStream.range(0, 3).forEach(i -> backend.tryAcquire("key", 3, WINDOW, T0 + i));
+
+    // A quarter into the next window, 75% of the previous 3 attempts still count: 2.25
+    assertThat(IntStream.range(0, 2)
+        .mapToObj(i -> backend.tryAcquire("key", 3, WINDOW, T0 + 75_000)))
+        .containsExactly(true, false);
+    // Three quarters in, only 25% of them count: 0.75 plus the one just allowed
+    assertThat(IntStream.range(0, 3)
+        .mapToObj(i -> backend.tryAcquire("key", 3, WINDOW, T0 + 105_000)))
+        .containsExactly(true, true, false);
+    // Two windows later nothing is carried over
+    assertThat(IntStream.range(0, 3)
+        .mapToObj(i -> backend.tryAcquire("key", 3, WINDOW, T0 + 240_000 + i)))
+        .containsOnly(true);
+  }
+
+  @Test
+  @DisplayName("should reject a username over its limit with 429 semantics")
+  void shouldRejectUsernameOverLimit() {
+    IntStream.range(0, 3).forEach(i -> limiter.check("Alice", "10.0.0." + i));
+
+    assertThatThrownBy(() -> limiter.check("alice ", "10.0.0.9"))
+        .isInstanceOf(LoginRateLimitExceededException.class)
+        .satisfies(e -> assertThat(((LoginRateLimitExceededException) e).getRetryAfter())
+            .isEqualTo(WINDOW));
+    assertThat(meterRegistry.get("auth.rate-limit.rejected").tag("key", "username").counter()
+        .count()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("should reject an address over its limit without touching username budgets")
+  void shouldRejectAddressOverLimit() {
+    IntStream.range(0, 5).forEach(i -> limiter.check("user" + i, "10.0.0.1"));
+
+    assertThatThrownBy(() -> limiter.check("victim", "10.0.0.1"))
+        .isInstanceOf(LoginRateLimitExceededException.class);
+    IntStream.range(0, 3).forEach(i -> limiter.check("victim", "10.0.0.2"));
+  }
+
+  @Test
+  @DisplayName("should allow everything when disabled")
+  void shouldAllowWhenDisabled() {
+    properties.setEnabled(false);
+
+    IntStream.range(0, 10).forEach(i -> limiter.check("alice", "10.0.0.1"));
+  }
+}
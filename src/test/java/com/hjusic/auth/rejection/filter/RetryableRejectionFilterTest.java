@@ -0,0 +1,58 @@
+package com.hjusic.auth.rejection.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.hjusic.auth.password.PasswordHashingRejectedException;
+import com.hjusic.auth.ratelimit.LoginRateLimitExceededException;
+import jakarta.servlet.ServletException;
+import java.time.Duration;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class RetryableRejectionFilterTest {
+
+  private final RetryableRejectionFilter filter = new RetryableRejectionFilter();
+
+  @Test
+  @DisplayName("Should answer a rate-limited login with 429 and Retry-After")
+  void shouldMapRateLimit() throws Exception {
+    var response = filter(new LoginRateLimitExceededException("limit", Duration.ofSeconds(60)));
+
+    assertThat(response.getStatus()).isEqualTo(429);
+    assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("60");
+    assertThat(response.getContentAsString()).isEqualTo("{\"error\":\"Too many requests\"}");
+  }
+
+  @Test
+  @DisplayName("Should answer a wrapped hashing rejection with 503 and at least one second")
+  void shouldMapWrappedHashingRejection() throws Exception {
+    var response = filter(new ServletException(
+        new PasswordHashingRejectedException("saturated", Duration.ofMillis(200))));
+
+    assertThat(response.getStatus()).isEqualTo(503);
+    assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+  }
+
+  @Test
+  @DisplayName("Should rethrow other exceptions")
+  void shouldRethrowOtherExceptions() {
+    assertThatThrownBy(() -> filter(new IllegalStateException("boom")))
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  private MockHttpServletResponse filter(Exception thrown) throws Exception {
+    var response = new MockHttpServletResponse();
+    filter.doFilter(new MockHttpServletRequest("POST", "/api/auth/login"), response,
+        (request, ignored) -> {
+          if (thrown instanceof ServletException servletException) {
+            throw servletException;
+          }
+          throw (RuntimeException) thrown;
+        });
+    return response;
+  }
+}
@@ -0,0 +1,173 @@
+package com.hjusic.auth.scheduling.infrastructure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("DatabaseLease Tests")
+class DatabaseLeaseTest {
+
+  private static final String NAME = "job";
+  private static final Duration DURATION = Duration.ofSeconds(30);
+
+  @Mock
+  private SchedulerLeaseRepository leaseRepository;
+
+  @Mock
+  private TransactionTemplate transactionTemplate;
+
+  @Captor
+  private ArgumentCaptor<Instant> lockedUntilCaptor;
+
+  private DatabaseLease lease;
+
+  @BeforeEach
+  void setUp() {
+    lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+        invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    lenient().doAnswer(invocation -> {
+      invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+      return null;
+    }).when(transactionTemplate).executeWithoutResult(any());
+    lease = new DatabaseLease(leaseRepository, transactionTemplate);
+  }
+
+  @Test
+  @DisplayName("should run the task and release the lease when it is acquired")
+  void shouldRunTaskWhenAcquired() {
+    when(leaseRepository.tryAcquire(eq(NAME), anyString(), any(), any())).thenReturn(1);
+    var ran = new AtomicBoolean();
+
+    assertThat(lease.runExclusively(NAME, DURATION, () -> ran.set(true))).isTrue();
+
+    assertThat(ran).isTrue();
+    verify(leaseRepository).release(eq(NAME), anyString(), any());
+  }
+
+  @Test
+  @DisplayName("should skip the task when another node holds the lease")
+  void shouldSkipTaskWhenHeldElsewhere() {
+    when(leaseRepository.tryAcquire(eq(NAME), anyString(), any(), any())).thenReturn(0);
+    var ran = new AtomicBoolean();
+
+    assertThat(lease.runExclusively(NAME, DURATION, () -> ran.set(true))).isFalse();
+
+    assertThat(ran).isFalse();
+    verify(leaseRepository, never()).release(any(), any(), any());
+  }
+
+  @Test
+  @DisplayName("should release the lease when the task fails")
+  void shouldReleaseWhenTaskFails() {
+    when(leaseRepository.tryAcquire(eq(NAME), anyString(), any(), any())).thenReturn(1);
+
+    assertThatThrownBy(() -> lease.runExclusively(NAME, DURATION, () -> {
+      throw new IllegalStateException("failed");
+    })).isInstanceOf(IllegalStateException.class);
+
+    verify(leaseRepository).release(eq(NAME), anyString(), any());
+  }
+
+  @Test
+  @DisplayName("should use the same owner to acquire, renew and release")
+  void shouldUseOneOwner() {
+    when(leaseRepository.tryAcquire(eq(NAME), anyString(), any(), any())).thenReturn(1);
+    when(leaseRepository.extend(eq(NAME), anyString(), any(), any())).thenReturn(1);
+
+    lease.runExclusively(NAME, DURATION, () -> lease.renew(NAME, DURATION));
+
+    var owner = ArgumentCaptor.forClass(String.class);
+    verify(leaseRepository).tryAcquire(eq(NAME), owner.capture(), any(), any());
+    verify(leaseRepository).extend(eq(NAME), eq(owner.getValue()), any(), any());
+    verify(leaseRepository).release(eq(NAME), eq(owner.getValue()), any());
+  }
+
+  @Test
+  @DisplayName("should extend a held lease by the full duration")
+  void shouldRenewHeldLease() {
+    when(leaseRepository.extend(eq(NAME), anyString(), any(), any())).thenReturn(1);
+    var before = Instant.now();
+
+    assertThat(lease.renew(NAME, DURATION)).isTrue();
+
+    verify(leaseRepository).extend(eq(NAME), anyString(), lockedUntilCaptor.capture(), any());
+    assertThat(lockedUntilCaptor.getValue()).isAfterOrEqualTo(before.plus(DURATION));
+  }
+
+  @Test
+  @DisplayName("should report a lease that ran out as lost")
+  void shouldReportLostLease() {
+    when(leaseRepository.extend(eq(NAME), anyString(), any(), any())).thenReturn(0);
+
+    assertThat(lease.renew(NAME, DURATION)).isFalse();
+  }
+
+  @Test
+  @DisplayName("should hold a lease without writing again until half of it has passed")
+  void shouldHoldWithoutRewriting() {
+    when(leaseRepository.tryAcquire(eq(NAME), anyString(), any(), any())).thenReturn(1);
+
+    assertThat(lease.hold(NAME, DURATION)).isTrue();
+    assertThat(lease.hold(NAME, DURATION)).isTrue();
+
+    verify(leaseRepository, times(1)).tryAcquire(eq(NAME), anyString(), any(), any());
+    verify(leaseRepository, never()).release(any(), any(), any());
+  }
+
+  @Test
+  @DisplayName("should ask the database again once half of a held lease has passed")
+  void shouldReacquireAfterHalfLease() {
+    when(leaseRepository.tryAcquire(eq(NAME), anyString(), any(), any())).thenReturn(1);
+
+    lease.hold(NAME, Duration.ZERO);
+    lease.hold(NAME, Duration.ZERO);
+
+    verify(leaseRepository, times(2)).tryAcquire(eq(NAME), anyString(), any(), any());
+  }
+
+  @Test
+  @DisplayName("should not hold a lease another node holds")
+  void shouldNotHoldWhenHeldElsewhere() {
+    when(leaseRepository.tryAcquire(eq(NAME), anyString(), any(), any())).thenReturn(0);
+
+    assertThat(lease.hold(NAME, DURATION)).isFalse();
+  }
+
+  @Test
+  @DisplayName("should release only a lease this node holds")
+  void shouldReleaseHeldLease() {
+    lease.release(NAME);
+    verify(leaseRepository, never()).release(any(), any(), any());
+
+    when(leaseRepository.tryAcquire(eq(NAME), anyString(), any(), any())).thenReturn(1);
+    lease.hold(NAME, DURATION);
+    lease.release(NAME);
+
+    verify(leaseRepository).release(eq(NAME), anyString(), any());
+  }
+}
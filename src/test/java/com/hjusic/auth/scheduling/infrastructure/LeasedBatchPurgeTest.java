@@ -0,0 +1,89 @@
+package com.hjusic.auth.scheduling.infrastructure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class LeasedBatchPurgeTest {
+
+  private DatabaseLease lease;
+  private BatchPurgeProperties properties;
+  private LeasedBatchPurge batchPurge;
+
+  @BeforeEach
+  void setUp() {
+    lease = mock(DatabaseLease.class);
+    var transactionTemplate = mock(TransactionTemplate.class);
+    when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+        invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+    properties = new BatchPurgeProperties();
+    properties.setBatchSize(2);
+    properties.setMaxBatchesPerRun(3);
+    properties.setPauseBetweenBatches(Duration.ZERO);
+    batchPurge = new LeasedBatchPurge(lease, transactionTemplate);
+  }
+
+  @Test
+  @DisplayName("Should run the purge under the named lease")
+  void shouldRunUnderLease() {
+    Runnable purge = () -> { };
+
+    batchPurge.run("job", properties, purge);
+
+    verify(lease).runExclusively("job", properties.getLeaseDuration(), purge);
+  }
+
+  @Test
+  @DisplayName("Should not take the lease when the purge is disabled")
+  void shouldSkipWhenDisabled() {
+    properties.setEnabled(false);
+
+    batchPurge.run("job", properties, () -> { });
+
+    verify(lease, never()).runExclusively(eq("job"), any(), any());
+  }
+
+  @Test
+  @DisplayName("Should pass pages of the batch size until a batch deletes nothing")
+  void shouldDeleteUntilEmpty() {
+    var remaining = new ArrayList<>(List.of(2, 1, 0));
+    var pages = new ArrayList<Pageable>();
+
+    long deleted = batchPurge.inBatches(properties, page -> {
+      pages.add(page);
+      return remaining.removeFirst();
+    });
+
+    assertThat(deleted).isEqualTo(3);
+    assertThat(pages).hasSize(3).allMatch(page -> page.getPageSize() == 2);
+  }
+
+  @Test
+  @DisplayName("Should stop after the maximum number of batches per run")
+  void shouldStopAfterMaxBatches() {
+    var calls = new ArrayList<Pageable>();
+
+    long deleted = batchPurge.inBatches(properties, page -> {
+      calls.add(page);
+      return 2;
+    });
+
+    assertThat(deleted).isEqualTo(6);
+    assertThat(calls).hasSize(3);
+  }
+}